@@ -44,6 +44,8 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   private final Set<ClassField> myOmegaFields = new HashSet<>();
   private UniverseKind myBaseUniverseKind = UniverseKind.NO_UNIVERSES;
   private UniverseKind myUniverseKind = UniverseKind.NO_UNIVERSES;
+  private volatile Set<ClassDefinition> myAncestors;
+  private volatile Map<ClassField, Integer> myFieldIndices;
 
   public ClassDefinition(TCDefReferable referable) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -243,9 +245,27 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   @Override
   public boolean isSubClassOf(@NotNull CoreClassDefinition classDefinition) {
-    if (this.equals(classDefinition)) return true;
-    ArrayDeque<CoreClassDefinition> classDefs = new ArrayDeque<>(mySuperClasses);
-    return isSubClassOf(classDefs, classDefinition);
+    return this.equals(classDefinition) || getAncestors().contains(classDefinition);
+  }
+
+  /**
+   * @return the set of all superclasses of this class, both direct and indirect.
+   *         It is computed on the first request and updated when the set of direct superclasses changes.
+   */
+  public Set<? extends ClassDefinition> getAncestors() {
+    Set<ClassDefinition> ancestors = myAncestors;
+    if (ancestors == null) {
+      ancestors = new HashSet<>();
+      Deque<ClassDefinition> toVisit = new ArrayDeque<>(mySuperClasses);
+      while (!toVisit.isEmpty()) {
+        ClassDefinition superClass = toVisit.pop();
+        if (superClass != this && ancestors.add(superClass)) {
+          toVisit.addAll(superClass.getSuperClasses());
+        }
+      }
+      myAncestors = ancestors;
+    }
+    return ancestors;
   }
 
   @NotNull
@@ -256,6 +276,7 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   public void addSuperClass(ClassDefinition superClass) {
     mySuperClasses.add(superClass);
+    myAncestors = null;
   }
 
   @NotNull
@@ -288,6 +309,7 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   public void addField(ClassField field) {
     myFields.add(field);
+    myFieldIndices = null;
   }
 
   public void addPersonalField(ClassField field) {
@@ -296,6 +318,23 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   public void addFields(Collection<? extends ClassField> fields) {
     myFields.addAll(fields);
+    myFieldIndices = null;
+  }
+
+  /**
+   * @return the position of the field in {@link #getFields} or -1 if it is not a field of this class.
+   */
+  public int getFieldIndex(ClassField field) {
+    Map<ClassField, Integer> indices = myFieldIndices;
+    if (indices == null) {
+      indices = new HashMap<>();
+      for (ClassField classField : myFields) {
+        indices.put(classField, indices.size());
+      }
+      myFieldIndices = indices;
+    }
+    Integer index = indices.get(field);
+    return index == null ? -1 : index;
   }
 
   @Override
@@ -493,6 +532,8 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
     mySuperClasses.clear();
     myFields.clear();
     myPersonalFields.clear();
+    myAncestors = null;
+    myFieldIndices = null;
     myImplemented.clear();
     myOverridden.clear();
     myCoercingField = null;
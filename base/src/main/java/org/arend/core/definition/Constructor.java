@@ -8,6 +8,7 @@ import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.ReferenceExpression;
+import org.arend.core.expr.visitor.NormalizationCache;
 import org.arend.core.pattern.ConstructorExpressionPattern;
 import org.arend.core.pattern.ExpressionPattern;
 import org.arend.core.pattern.Pattern;
@@ -36,6 +37,7 @@ public class Constructor extends Definition implements Function, BranchKey, Core
   private List<TypeClassParameterKind> myTypeClassParameters = Collections.emptyList();
   private int mySingleRecursiveParameter = -1;
   private List<Boolean> myStrictParameters = Collections.emptyList();
+  private int myIndex = -1;
 
   public Constructor(TCDefReferable referable, DataDefinition dataType) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -45,6 +47,18 @@ public class Constructor extends Definition implements Function, BranchKey, Core
 
   public void setBody(Body conditions) {
     myConditions = conditions;
+    NormalizationCache.invalidate();
+  }
+
+  /**
+   * @return the position of this constructor in the list of constructors of its data type, or -1 if it was not added yet.
+   */
+  public int getIndex() {
+    return myIndex;
+  }
+
+  void setIndex(int index) {
+    myIndex = index;
   }
 
   public List<ExpressionPattern> getPatterns() {
@@ -184,6 +184,7 @@ public class DataDefinition extends Definition implements CoreDataDefinition {
   }
 
   public void addConstructor(Constructor constructor) {
+    constructor.setIndex(myConstructors.size());
     myConstructors.add(constructor);
   }
 
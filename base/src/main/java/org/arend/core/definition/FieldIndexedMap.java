@@ -0,0 +1,229 @@
+package org.arend.core.definition;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A map from fields of a class to values which stores them in an array indexed by {@link ClassDefinition#getFieldIndex}.
+ * Entries are iterated in the order of {@link ClassDefinition#getFields}.
+ * Fields that do not belong to the class are kept in an additional map and iterated after the others.
+ */
+public class FieldIndexedMap<V> extends AbstractMap<ClassField, V> {
+  private final ClassDefinition myClass;
+  private ClassField[] myKeys;
+  private Object[] myValues;
+  private int myIndexedSize;
+  private Map<ClassField, V> myOtherFields;
+
+  public FieldIndexedMap(ClassDefinition classDef) {
+    myClass = classDef;
+  }
+
+  public FieldIndexedMap(ClassDefinition classDef, Map<? extends ClassField, ? extends V> map) {
+    myClass = classDef;
+    putAll(map);
+  }
+
+  /**
+   * @return the index of the field in the arrays or -1 if it is stored in {@link #myOtherFields}.
+   */
+  private int indexOf(Object field) {
+    if (myKeys == null || !(field instanceof ClassField)) {
+      return -1;
+    }
+    int index = myClass.getFieldIndex((ClassField) field);
+    return index >= 0 && index < myKeys.length && myKeys[index] == field ? index : -1;
+  }
+
+  @Override
+  public int size() {
+    return myIndexedSize + (myOtherFields == null ? 0 : myOtherFields.size());
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0 || myOtherFields != null && myOtherFields.containsKey(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object key) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      return (V) myValues[index];
+    }
+    return myOtherFields == null ? null : myOtherFields.get(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V put(ClassField key, V value) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      V old = (V) myValues[index];
+      myValues[index] = value;
+      return old;
+    }
+    if (myOtherFields != null && myOtherFields.containsKey(key)) {
+      return myOtherFields.put(key, value);
+    }
+
+    index = myClass.getFieldIndex(key);
+    if (index >= 0) {
+      if (myKeys == null || index >= myKeys.length) {
+        int length = Math.max(index + 1, myClass.getFields().size());
+        myKeys = myKeys == null ? new ClassField[length] : Arrays.copyOf(myKeys, length);
+        myValues = myValues == null ? new Object[length] : Arrays.copyOf(myValues, length);
+      }
+      if (myKeys[index] == null) {
+        myKeys[index] = key;
+        myValues[index] = value;
+        myIndexedSize++;
+        return null;
+      }
+    }
+
+    if (myOtherFields == null) {
+      myOtherFields = new LinkedHashMap<>();
+    }
+    return myOtherFields.put(key, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V remove(Object key) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      V old = (V) myValues[index];
+      removeAt(index);
+      return old;
+    }
+    return myOtherFields == null ? null : myOtherFields.remove(key);
+  }
+
+  private void removeAt(int index) {
+    myKeys[index] = null;
+    myValues[index] = null;
+    myIndexedSize--;
+  }
+
+  @Override
+  public void clear() {
+    myKeys = null;
+    myValues = null;
+    myIndexedSize = 0;
+    myOtherFields = null;
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<ClassField, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<ClassField, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return FieldIndexedMap.this.size();
+      }
+    };
+  }
+
+  private class EntryIterator implements Iterator<Entry<ClassField, V>> {
+    private int myNextIndex = -1;
+    private int myLastIndex = -1;
+    private Iterator<Entry<ClassField, V>> myOtherIterator;
+
+    EntryIterator() {
+      findNext();
+    }
+
+    private void findNext() {
+      do {
+        myNextIndex++;
+      } while (myKeys != null && myNextIndex < myKeys.length && myKeys[myNextIndex] == null);
+    }
+
+    private Iterator<Entry<ClassField, V>> getOtherIterator() {
+      if (myOtherIterator == null) {
+        myOtherIterator = myOtherFields == null ? Collections.emptyIterator() : myOtherFields.entrySet().iterator();
+      }
+      return myOtherIterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return myKeys != null && myNextIndex < myKeys.length || getOtherIterator().hasNext();
+    }
+
+    @Override
+    public Entry<ClassField, V> next() {
+      if (myKeys != null && myNextIndex < myKeys.length) {
+        myLastIndex = myNextIndex;
+        findNext();
+        return new IndexedEntry(myLastIndex);
+      }
+      myLastIndex = -1;
+      return getOtherIterator().next();
+    }
+
+    @Override
+    public void remove() {
+      if (myLastIndex >= 0) {
+        if (myKeys[myLastIndex] == null) {
+          throw new IllegalStateException();
+        }
+        removeAt(myLastIndex);
+      } else {
+        getOtherIterator().remove();
+      }
+    }
+  }
+
+  private class IndexedEntry implements Entry<ClassField, V> {
+    private final int myIndex;
+
+    IndexedEntry(int index) {
+      myIndex = index;
+    }
+
+    @Override
+    public ClassField getKey() {
+      return myKeys[myIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V getValue() {
+      return (V) myValues[myIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V setValue(V value) {
+      V old = (V) myValues[myIndex];
+      myValues[myIndex] = value;
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) return false;
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return getKey() == entry.getKey() && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
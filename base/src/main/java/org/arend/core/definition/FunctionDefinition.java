@@ -4,7 +4,10 @@ import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.EmptyDependentLink;
 import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimBody;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.NormalizationCache;
+import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.core.subst.Levels;
 import org.arend.ext.core.definition.CoreFunctionDefinition;
@@ -15,12 +18,14 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends Definition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private HiddenStatus myBodyIsHidden = HiddenStatus.NOT_HIDDEN;
@@ -34,6 +39,7 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
   private List<Boolean> myOmegaParameters = Collections.emptyList();
   private List<LevelVariable> myLevelParameters;
   private UniverseKind myUniverseKind = UniverseKind.NO_UNIVERSES;
+  private volatile int myHeight = -1;
 
   public enum HiddenStatus { NOT_HIDDEN, HIDDEN, REALLY_HIDDEN }
 
@@ -42,18 +48,31 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
     myParameters = EmptyDependentLink.getInstance();
   }
 
+  private Body loadBody() {
+    if (myBodyLoader != null) {
+      synchronized (this) {
+        Supplier<? extends Body> loader = myBodyLoader;
+        if (loader != null) {
+          myBody = loader.get();
+          myBodyLoader = null;
+        }
+      }
+    }
+    return myBody;
+  }
+
   @Override
   public Body getBody() {
-    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : myBody;
+    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : loadBody();
   }
 
   @Override
   public Body getActualBody() {
-    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : myBody;
+    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : loadBody();
   }
 
   public Body getReallyActualBody() {
-    return myBody;
+    return loadBody();
   }
 
   public HiddenStatus getBodyHiddenStatus() {
@@ -62,14 +81,73 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   public void hideBody() {
     myBodyIsHidden = HiddenStatus.HIDDEN;
+    myHeight = -1;
   }
 
   public void reallyHideBody() {
     myBodyIsHidden = HiddenStatus.REALLY_HIDDEN;
+    myHeight = -1;
   }
 
   public void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
+    myHeight = -1;
+    NormalizationCache.invalidate();
+  }
+
+  /**
+   * The height of a function is 0 if its calls are not unfolded by normalization.
+   * Otherwise, it is greater than heights of all functions which are invoked in its body and are not mutually recursive with it.
+   * When two calls of different functions are compared, the one with the greater height is unfolded first.
+   * The height is computed on first access unless it was set explicitly.
+   */
+  public int getHeight() {
+    int height = myHeight;
+    if (height < 0) {
+      // Protects from cycles if recursive definitions are not set yet
+      myHeight = 0;
+      height = computeHeight();
+      myHeight = height;
+    }
+    return height;
+  }
+
+  public void setHeight(int height) {
+    myHeight = height;
+  }
+
+  private int computeHeight() {
+    Body body = getBody();
+    if (!(body instanceof Expression || body instanceof ElimBody)) {
+      return 0;
+    }
+
+    int[] maxHeight = new int[] { 0 };
+    new VoidExpressionVisitor<Void>() {
+      @Override
+      public Void visitFunCall(FunCallExpression expr, Void params) {
+        FunctionDefinition function = expr.getDefinition();
+        if (function != FunctionDefinition.this && !myRecursiveDefinitions.contains(function)) {
+          maxHeight[0] = Math.max(maxHeight[0], function.getHeight());
+        }
+        return super.visitFunCall(expr, params);
+      }
+    }.visitBody(body, null);
+    return maxHeight[0] + 1;
+  }
+
+  /**
+   * Sets a function which computes the body on first access.
+   * It is used to postpone deserialization of bodies until they are actually needed.
+   */
+  public void setBodyLoader(Supplier<? extends Body> loader) {
+    myBody = null;
+    myBodyLoader = loader;
+  }
+
+  public boolean isBodyLoaded() {
+    return myBodyLoader == null;
   }
 
   @Override
@@ -121,6 +199,7 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   public void setRecursiveDefinitions(Set<Definition> recursiveDefinitions) {
     myRecursiveDefinitions = recursiveDefinitions;
+    myHeight = -1;
   }
 
   public boolean isSFunc() {
@@ -135,6 +214,7 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   public void setKind(Kind kind) {
     myKind = kind;
+    myHeight = -1;
   }
 
   @NotNull
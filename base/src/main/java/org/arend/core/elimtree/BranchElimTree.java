@@ -2,6 +2,8 @@ package org.arend.core.elimtree;
 
 import org.arend.core.constructor.*;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.expr.*;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
@@ -14,6 +16,23 @@ import static org.arend.core.expr.ExpressionFactory.Suc;
 public class BranchElimTree extends ElimTree {
   private final Map<BranchKey, ElimTree> myChildren = new HashMap<>();
   private final boolean myKeepConCall;
+  private volatile ConstructorDispatch myDispatch;
+
+  /**
+   * Children indexed by {@link Constructor#getIndex}.
+   * It is used when all keys are constructors of the same data type; otherwise, children are found in the map.
+   */
+  private static class ConstructorDispatch {
+    static final ConstructorDispatch NONE = new ConstructorDispatch(new Constructor[0], new ElimTree[0]);
+
+    final Constructor[] constructors;
+    final ElimTree[] children;
+
+    ConstructorDispatch(Constructor[] constructors, ElimTree[] children) {
+      this.constructors = constructors;
+      this.children = children;
+    }
+  }
 
   public BranchElimTree(int skip, boolean keepConCall) {
     super(skip);
@@ -50,12 +69,51 @@ public class BranchElimTree extends ElimTree {
     return myChildren.entrySet();
   }
 
+  private ConstructorDispatch getDispatch() {
+    ConstructorDispatch dispatch = myDispatch;
+    if (dispatch != null) {
+      return dispatch;
+    }
+
+    DataDefinition dataType = null;
+    int size = 0;
+    for (BranchKey key : myChildren.keySet()) {
+      if (!(key instanceof Constructor) || ((Constructor) key).getIndex() < 0 || dataType != null && dataType != ((Constructor) key).getDataType()) {
+        myDispatch = ConstructorDispatch.NONE;
+        return ConstructorDispatch.NONE;
+      }
+      dataType = ((Constructor) key).getDataType();
+      size = Math.max(size, ((Constructor) key).getIndex() + 1);
+    }
+
+    Constructor[] constructors = new Constructor[size];
+    ElimTree[] children = new ElimTree[size];
+    for (Map.Entry<BranchKey, ElimTree> entry : myChildren.entrySet()) {
+      int index = ((Constructor) entry.getKey()).getIndex();
+      constructors[index] = (Constructor) entry.getKey();
+      children[index] = entry.getValue();
+    }
+    dispatch = new ConstructorDispatch(constructors, children);
+    myDispatch = dispatch;
+    return dispatch;
+  }
+
   public ElimTree getChild(BranchKey key) {
+    if (key instanceof Constructor) {
+      ConstructorDispatch dispatch = getDispatch();
+      if (dispatch != ConstructorDispatch.NONE) {
+        int index = ((Constructor) key).getIndex();
+        if (index >= 0 && index < dispatch.constructors.length && dispatch.constructors[index] == key) {
+          return dispatch.children[index];
+        }
+      }
+    }
     return myChildren.get(key);
   }
 
   public void addChild(BranchKey key, ElimTree elimTree) {
     myChildren.put(key, elimTree);
+    myDispatch = null;
   }
 
   private boolean isSingleConstructorTree() {
@@ -98,7 +156,7 @@ public class BranchElimTree extends ElimTree {
       argument = argument.getUnderlyingExpression();
       if (argument instanceof ConCallExpression) {
         ConCallExpression conCall = (ConCallExpression) argument;
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           newArguments = new ArrayList<>(conCall.getDefCallArguments().size() + arguments.size() - index - 1);
           newArguments.addAll(conCall.getDefCallArguments());
@@ -109,7 +167,7 @@ public class BranchElimTree extends ElimTree {
       } else if (argument instanceof IntegerExpression) {
         IntegerExpression intExpr = (IntegerExpression) argument;
         boolean isZero = intExpr.isZero();
-        ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+        ElimTree elimTree = getChild(isZero ? Prelude.ZERO : Prelude.SUC);
         if (elimTree != null) {
           newArguments = new ArrayList<>();
           if (!isZero) {
@@ -173,7 +231,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       BranchKey key = getBranchKey(argument);
       if (key != null) {
-        ElimTree elimTree = myChildren.get(key);
+        ElimTree elimTree = getChild(key);
         if (elimTree != null) {
           return elimTree.isWHNF(newArguments).min(decision);
         } else {
@@ -204,7 +262,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       BranchKey key = getBranchKey(argument);
       if (key != null) {
-        ElimTree elimTree = myChildren.get(key);
+        ElimTree elimTree = getChild(key);
         if (elimTree != null) {
           return elimTree.getStuckExpression(newArguments, expression);
         } else {
@@ -275,7 +333,7 @@ public class BranchElimTree extends ElimTree {
       }
     } else if (argument instanceof ConCallExpression) {
       ConCallExpression conCall = (ConCallExpression) argument;
-      ElimTree elimTree = myChildren.get(conCall.getDefinition());
+      ElimTree elimTree = getChild(conCall.getDefinition());
       if (elimTree != null) {
         List<Expression> args = new ArrayList<>();
         args.addAll(conCall.getDefCallArguments());
@@ -288,7 +346,7 @@ public class BranchElimTree extends ElimTree {
     } else if (argument instanceof IntegerExpression) {
       IntegerExpression intExpr = (IntegerExpression) argument;
       boolean isZero = intExpr.isZero();
-      ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+      ElimTree elimTree = getChild(isZero ? Prelude.ZERO : Prelude.SUC);
       if (elimTree != null) {
         List<Expression> args = new ArrayList<>();
         if (!isZero) args.add(intExpr.pred());
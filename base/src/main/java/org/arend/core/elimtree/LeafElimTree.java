@@ -8,16 +8,25 @@ import java.util.List;
 
 public class LeafElimTree extends ElimTree {
   private final List<Integer> myIndices;
+  private final int[] myIndexTable;
   private final int myClauseIndex;
 
   public LeafElimTree(int skip, List<Integer> indices, int clauseIndex) {
     super(skip);
     myIndices = indices;
+    if (indices != null) {
+      myIndexTable = new int[indices.size()];
+      for (int i = 0; i < myIndexTable.length; i++) {
+        myIndexTable[i] = indices.get(i);
+      }
+    } else {
+      myIndexTable = null;
+    }
     myClauseIndex = clauseIndex;
   }
 
   public int getArgumentIndex(int index) {
-    return myIndices == null ? index : myIndices.get(index);
+    return myIndexTable == null ? index : myIndexTable[index];
   }
 
   public List<? extends Integer> getArgumentIndices() {
@@ -10,6 +10,8 @@ import org.arend.core.expr.type.Type;
 import org.arend.core.expr.type.TypeExpression;
 import org.arend.core.expr.visitor.ExpressionVisitor;
 import org.arend.core.expr.visitor.ExpressionVisitor2;
+import org.arend.core.expr.visitor.FingerprintVisitor;
+import org.arend.core.expr.visitor.FreeVariablesMaskVisitor;
 import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.expr.visitor.StripVisitor;
 import org.arend.core.pattern.ConstructorExpressionPattern;
@@ -80,12 +82,20 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
   public ClassCallExpression(ClassDefinition definition, Levels levels, Map<ClassField, Expression> implementations, Sort sort, UniverseKind universeKind) {
     super(definition, levels);
-    assert implementations instanceof LinkedHashMap || implementations.size() <= 1;
+    assert implementations instanceof LinkedHashMap || implementations instanceof FieldIndexedMap || implementations.size() <= 1;
     myImplementations = implementations;
     mySort = sort;
     myUniverseKind = universeKind.max(definition.getBaseUniverseKind());
   }
 
+  /**
+   * Creates a map for implementations of fields of the given class.
+   * If a large part of fields will be implemented, a {@link FieldIndexedMap} is used; otherwise, a {@link LinkedHashMap} is more compact.
+   */
+  public static Map<ClassField, Expression> makeImplementationMap(ClassDefinition classDef, int expectedSize) {
+    return expectedSize > 1 && 4 * expectedSize >= classDef.getFields().size() ? new FieldIndexedMap<>(classDef) : new LinkedHashMap<>();
+  }
+
   @NotNull
   @Override
   public ClassCallBinding getThisBinding() {
@@ -98,7 +108,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
   }
 
   public void fixOrderOfImplementations() {
-    if (myImplementations.size() <= 1) return;
+    if (myImplementations.size() <= 1 || myImplementations instanceof FieldIndexedMap) return;
     Map<ClassField, Expression> newImpls = new LinkedHashMap<>();
     for (ClassField field : getDefinition().getFields()) {
       Expression impl = myImplementations.get(field);
@@ -160,6 +170,23 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
     return myImplementations;
   }
 
+  /**
+   * Implementations can be added to {@link #getImplementedHere} after the class call is constructed, so the fingerprint is not cached.
+   */
+  @Override
+  public int getFingerprint() {
+    return accept(FingerprintVisitor.INSTANCE, null);
+  }
+
+  /**
+   * Implementations can be added to {@link #getImplementedHere} after the class call is constructed, so the mask is not cached.
+   * Masks of implementations are still cached, so this takes time proportional to the number of implementations.
+   */
+  @Override
+  public long getFreeVariablesMask() {
+    return accept(FreeVariablesMaskVisitor.INSTANCE, null) | Long.MIN_VALUE;
+  }
+
   @NotNull
   @Override
   public Collection<? extends Map.Entry<? extends CoreClassField, ? extends CoreExpression>> getImplementations() {
@@ -419,7 +446,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
         @Override
         public Expression visitClassCall(ClassCallExpression expr, Void params) {
-          Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+          Map<ClassField, Expression> fieldSet = makeImplementationMap(expr.getDefinition(), expr.getImplementedHere().size());
           ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(getLevelSubstitution()), fieldSet, expr.getSort(), expr.getUniverseKind());
           getExprSubstitution().add(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding()));
           for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
@@ -46,6 +46,7 @@ import org.arend.typechecking.visitor.FindSubexpressionVisitor;
 import org.arend.typechecking.visitor.FixLevelParameters;
 import org.arend.util.Decision;
 import org.arend.util.GraphClosure;
+import org.arend.util.Profiler;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
@@ -55,6 +56,9 @@ import java.util.*;
 import java.util.function.Function;
 
 public abstract class Expression implements Body, CoreExpression {
+  private int myFingerprint;
+  private volatile long myFreeVariablesMask;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
@@ -78,6 +82,48 @@ public abstract class Expression implements Body, CoreExpression {
     return this == obj || obj instanceof Expression && compare(this, (Expression) obj, null, CMP.EQ);
   }
 
+  /**
+   * Returns a structural hash of this expression which is invariant under renaming of variables.
+   * Expressions that are equal up to renaming have the same fingerprint; the converse is checked by {@link AlphaEquivalenceVisitor}.
+   * The fingerprint is computed lazily and cached.
+   *
+   * @return the fingerprint, or 0 if this expression contains subexpressions that are not fingerprinted, such as unsolved inference variables.
+   */
+  public int getFingerprint() {
+    int fingerprint = myFingerprint;
+    if (fingerprint == 0) {
+      fingerprint = accept(FingerprintVisitor.INSTANCE, null);
+      myFingerprint = fingerprint;
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Copies the cached fingerprint of an expression which is known to have the same structure as this one.
+   * A wrong fingerprint does not make comparison incorrect since equal fingerprints are always rechecked, but it disables the shortcut in {@link CompareVisitor}.
+   */
+  public void inheritFingerprint(Expression expr) {
+    if (myFingerprint == 0) {
+      myFingerprint = expr.myFingerprint;
+    }
+  }
+
+  /**
+   * Returns a bloom filter of bindings which may occur in this expression (see {@link FreeVariablesMaskVisitor}).
+   * If {@code getFreeVariablesMask() & FreeVariablesMaskVisitor.getMask(binding)} is 0, then the binding does not occur in this expression.
+   * The mask is computed on the first request, so an expression should not get new free variables after that.
+   * Class calls are an exception since their implementations can be added later; their masks are not cached.
+   */
+  public long getFreeVariablesMask() {
+    long mask = myFreeVariablesMask;
+    if (mask == 0) {
+      // The highest bit is not used by bindings, so it marks computed masks
+      mask = accept(FreeVariablesMaskVisitor.INSTANCE, null) | Long.MIN_VALUE;
+      myFreeVariablesMask = mask;
+    }
+    return mask;
+  }
+
   @Override
   public boolean isError() {
     ErrorExpression errorExpr = cast(ErrorExpression.class);
@@ -184,14 +230,22 @@ public abstract class Expression implements Body, CoreExpression {
   }
 
   public Expression copy() {
-    return accept(new SubstVisitor(new ExprSubstitution(), LevelSubstitution.EMPTY), null);
+    return applySubst(new SubstVisitor(new ExprSubstitution(), LevelSubstitution.EMPTY));
+  }
+
+  private Expression applySubst(SubstVisitor visitor) {
+    Expression result = accept(visitor, null);
+    if (result != this && visitor.preservesFingerprints()) {
+      result.inheritFingerprint(this);
+    }
+    return result;
   }
 
   public final Expression subst(Binding binding, Expression substExpr) {
     if (substExpr instanceof ReferenceExpression && ((ReferenceExpression) substExpr).getBinding() == binding) {
       return this;
     }
-    return accept(new SubstVisitor(new ExprSubstitution(binding, substExpr), LevelSubstitution.EMPTY), null);
+    return applySubst(new SubstVisitor(new ExprSubstitution(binding, substExpr), LevelSubstitution.EMPTY));
   }
 
   public final Expression subst(ExprSubstitution subst) {
@@ -203,7 +257,7 @@ public abstract class Expression implements Body, CoreExpression {
   }
 
   public Expression subst(ExprSubstitution exprSubst, LevelSubstitution levelSubst) {
-    return exprSubst.isEmpty() && levelSubst.isEmpty() ? this : accept(new SubstVisitor(exprSubst, levelSubst), null);
+    return exprSubst.isEmpty() && levelSubst.isEmpty() ? this : applySubst(new SubstVisitor(exprSubst, levelSubst));
   }
 
   public Type subst(SubstVisitor substVisitor) {
@@ -222,6 +276,7 @@ public abstract class Expression implements Body, CoreExpression {
   @NotNull
   @Override
   public Expression normalize(@NotNull NormalizationMode mode) {
+    Profiler.count(Profiler.Counter.NORMALIZATIONS);
     return accept(NormalizeVisitor.INSTANCE, mode);
   }
 
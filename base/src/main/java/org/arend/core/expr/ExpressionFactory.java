@@ -91,6 +91,17 @@ public class ExpressionFactory {
     return expr;
   }
 
+  /**
+   * @return {@code n} if {@code expr} is {@code e + n}, where {@code n} is a literal, or null otherwise.
+   */
+  public static IntegerExpression getOffset(Expression expr) {
+    if (expr instanceof FunCallExpression && ((FunCallExpression) expr).getDefinition() == Prelude.PLUS) {
+      Expression arg = ((FunCallExpression) expr).getDefCallArguments().get(1);
+      return arg instanceof IntegerExpression ? (IntegerExpression) arg : null;
+    }
+    return null;
+  }
+
   public static ConCallExpression Pos(Expression expr) {
     return ConCallExpression.makeConCall(Prelude.POS, Levels.EMPTY, Collections.emptyList(), new SingletonList<>(expr));
   }
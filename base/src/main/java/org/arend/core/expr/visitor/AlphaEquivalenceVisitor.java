@@ -0,0 +1,221 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that two expressions are equal up to renaming of bound variables without normalizing them.
+ * Only expressions that have fingerprints (see {@link Expression#getFingerprint}) are compared;
+ * for other expressions the visitor returns false.
+ */
+public class AlphaEquivalenceVisitor implements ExpressionVisitor2<Expression, Void, Boolean> {
+  private final Map<Binding, Binding> myOuterSubstitution;
+  private final Map<Binding, Binding> mySubstitution = new HashMap<>();
+
+  /**
+   * @param substitution  a map from free variables of the second expression to the corresponding variables of the first one.
+   */
+  public AlphaEquivalenceVisitor(Map<Binding, Binding> substitution) {
+    myOuterSubstitution = substitution;
+  }
+
+  public boolean compare(Expression expr1, Expression expr2) {
+    expr1 = expr1.getUnderlyingExpression();
+    expr2 = expr2.getUnderlyingExpression();
+    if (expr1 == expr2) {
+      return true;
+    }
+    int fingerprint = expr1.getFingerprint();
+    return fingerprint != 0 && fingerprint == expr2.getFingerprint() && expr1.accept(this, expr2, null);
+  }
+
+  private boolean compareLists(List<? extends Expression> list1, List<? extends Expression> list2) {
+    if (list1.size() != list2.size()) {
+      return false;
+    }
+    for (int i = 0; i < list1.size(); i++) {
+      if (!compare(list1.get(i), list2.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean compareParameters(DependentLink link1, DependentLink link2) {
+    for (; link1.hasNext() && link2.hasNext(); link1 = link1.getNext(), link2 = link2.getNext()) {
+      if (link1.isExplicit() != link2.isExplicit() || !compare(link1.getTypeExpr(), link2.getTypeExpr())) {
+        return false;
+      }
+      mySubstitution.put(link2, link1);
+    }
+    return !link1.hasNext() && !link2.hasNext();
+  }
+
+  private Binding substBinding(Binding binding) {
+    Binding subst = mySubstitution.get(binding);
+    if (subst == null) {
+      subst = myOuterSubstitution.get(binding);
+    }
+    return subst == null ? binding : subst;
+  }
+
+  @Override
+  public Boolean visitApp(AppExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof AppExpression && expr1.isExplicit() == ((AppExpression) expr2).isExplicit() && compare(expr1.getFunction(), ((AppExpression) expr2).getFunction()) && compare(expr1.getArgument(), ((AppExpression) expr2).getArgument());
+  }
+
+  @Override
+  public Boolean visitFunCall(FunCallExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof FunCallExpression && expr1.getDefinition() == ((FunCallExpression) expr2).getDefinition() && expr1.getLevels().equals(((FunCallExpression) expr2).getLevels()) && compareLists(expr1.getDefCallArguments(), ((FunCallExpression) expr2).getDefCallArguments());
+  }
+
+  @Override
+  public Boolean visitConCall(ConCallExpression expr1, Expression expr2, Void params) {
+    if (!(expr2 instanceof ConCallExpression)) {
+      return false;
+    }
+    ConCallExpression conCall2 = (ConCallExpression) expr2;
+    return expr1.getDefinition() == conCall2.getDefinition() && expr1.getLevels().equals(conCall2.getLevels()) && compareLists(expr1.getDataTypeArguments(), conCall2.getDataTypeArguments()) && compareLists(expr1.getDefCallArguments(), conCall2.getDefCallArguments());
+  }
+
+  @Override
+  public Boolean visitDataCall(DataCallExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof DataCallExpression && expr1.getDefinition() == ((DataCallExpression) expr2).getDefinition() && expr1.getLevels().equals(((DataCallExpression) expr2).getLevels()) && compareLists(expr1.getDefCallArguments(), ((DataCallExpression) expr2).getDefCallArguments());
+  }
+
+  @Override
+  public Boolean visitFieldCall(FieldCallExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof FieldCallExpression && expr1.getDefinition() == ((FieldCallExpression) expr2).getDefinition() && compare(expr1.getArgument(), ((FieldCallExpression) expr2).getArgument());
+  }
+
+  @Override
+  public Boolean visitClassCall(ClassCallExpression expr1, Expression expr2, Void params) {
+    if (!(expr2 instanceof ClassCallExpression)) {
+      return false;
+    }
+    ClassCallExpression classCall2 = (ClassCallExpression) expr2;
+    if (expr1.getDefinition() != classCall2.getDefinition() || expr1.getImplementedHere().size() != classCall2.getImplementedHere().size() || !expr1.getLevels().equals(classCall2.getLevels())) {
+      return false;
+    }
+
+    mySubstitution.put(classCall2.getThisBinding(), expr1.getThisBinding());
+    for (Map.Entry<ClassField, Expression> entry : expr1.getImplementedHere().entrySet()) {
+      Expression impl2 = classCall2.getImplementedHere().get(entry.getKey());
+      if (impl2 == null || !compare(entry.getValue(), impl2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public Boolean visitReference(ReferenceExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof ReferenceExpression && substBinding(((ReferenceExpression) expr2).getBinding()) == expr1.getBinding();
+  }
+
+  @Override
+  public Boolean visitInferenceReference(InferenceReferenceExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitSubst(SubstExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitLam(LamExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof LamExpression && compareParameters(expr1.getParameters(), ((LamExpression) expr2).getParameters()) && compare(expr1.getBody(), ((LamExpression) expr2).getBody());
+  }
+
+  @Override
+  public Boolean visitPi(PiExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof PiExpression && compareParameters(expr1.getParameters(), ((PiExpression) expr2).getParameters()) && compare(expr1.getCodomain(), ((PiExpression) expr2).getCodomain());
+  }
+
+  @Override
+  public Boolean visitSigma(SigmaExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof SigmaExpression && compareParameters(expr1.getParameters(), ((SigmaExpression) expr2).getParameters());
+  }
+
+  @Override
+  public Boolean visitUniverse(UniverseExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof UniverseExpression && expr1.getSort().equals(((UniverseExpression) expr2).getSort());
+  }
+
+  @Override
+  public Boolean visitError(ErrorExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitTuple(TupleExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof TupleExpression && compare(expr1.getSigmaType(), ((TupleExpression) expr2).getSigmaType()) && compareLists(expr1.getFields(), ((TupleExpression) expr2).getFields());
+  }
+
+  @Override
+  public Boolean visitProj(ProjExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof ProjExpression && expr1.getField() == ((ProjExpression) expr2).getField() && compare(expr1.getExpression(), ((ProjExpression) expr2).getExpression());
+  }
+
+  @Override
+  public Boolean visitNew(NewExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitPEval(PEvalExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitLet(LetExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitCase(CaseExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitOfType(OfTypeExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitInteger(IntegerExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof IntegerExpression && expr1.isEqual((IntegerExpression) expr2);
+  }
+
+  @Override
+  public Boolean visitTypeConstructor(TypeConstructorExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitTypeDestructor(TypeDestructorExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitArray(ArrayExpression expr1, Expression expr2, Void params) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitPath(PathExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof PathExpression && expr1.getLevels().equals(((PathExpression) expr2).getLevels()) && compare(expr1.getArgumentType(), ((PathExpression) expr2).getArgumentType()) && compare(expr1.getArgument(), ((PathExpression) expr2).getArgument());
+  }
+
+  @Override
+  public Boolean visitAt(AtExpression expr1, Expression expr2, Void params) {
+    return expr2 instanceof AtExpression && compare(expr1.getPathArgument(), ((AtExpression) expr2).getPathArgument()) && compare(expr1.getIntervalArgument(), ((AtExpression) expr2).getIntervalArgument());
+  }
+}
@@ -26,6 +26,7 @@ import org.arend.term.concrete.Concrete;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.ext.util.Pair;
+import org.arend.util.Profiler;
 import org.jetbrains.annotations.TestOnly;
 
 import java.math.BigInteger;
@@ -62,6 +63,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
   }
 
   public static boolean compare(Equations equations, CMP cmp, Expression expr1, Expression expr2, Expression type, Concrete.SourceNode sourceNode) {
+    Profiler.count(Profiler.Counter.COMPARISONS);
     return new CompareVisitor(equations, cmp, sourceNode).compare(expr1, expr2, type, true);
   }
 
@@ -346,6 +348,46 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
     else return null;
   }
 
+  /**
+   * Checks that expressions are equal up to renaming of variables without normalizing them.
+   * Expressions with different fingerprints are rejected without traversing them.
+   */
+  private boolean isAlphaEquivalent(Expression expr1, Expression expr2) {
+    int fingerprint = expr1.getFingerprint();
+    return fingerprint != 0 && fingerprint == expr2.getFingerprint() && new AlphaEquivalenceVisitor(mySubstitution).compare(expr1, expr2);
+  }
+
+  private static boolean isRigidType(Expression expr) {
+    return expr instanceof DataCallExpression || expr instanceof PiExpression || expr instanceof SigmaExpression || expr instanceof UniverseExpression;
+  }
+
+  /**
+   * Checks if expressions are types in whnf with different heads, so they cannot be equal.
+   */
+  private static boolean isRigidMismatch(Expression expr1, Expression expr2) {
+    if (!isRigidType(expr1) || !isRigidType(expr2)) {
+      return false;
+    }
+    if (expr1.getClass() != expr2.getClass()) {
+      return true;
+    }
+    if (!(expr1 instanceof DataCallExpression)) {
+      return false;
+    }
+    DataDefinition dataDef1 = ((DataCallExpression) expr1).getDefinition();
+    DataDefinition dataDef2 = ((DataCallExpression) expr2).getDefinition();
+    // Fin is a subtype of Nat
+    return dataDef1 != dataDef2 && !((dataDef1 == Prelude.FIN || dataDef1 == Prelude.NAT) && (dataDef2 == Prelude.FIN || dataDef2 == Prelude.NAT));
+  }
+
+  private static boolean isUnfoldable(Expression expr) {
+    if (!(expr instanceof FunCallExpression)) {
+      return false;
+    }
+    FunctionDefinition function = ((FunCallExpression) expr).getDefinition();
+    return function.getHeight() > 0 && !NormalizeVisitor.isBlocked(function);
+  }
+
   public Boolean compare(Expression expr1, Expression expr2, Expression type, boolean useType) {
     expr1 = expr1.getUnderlyingExpression();
     expr2 = expr2.getUnderlyingExpression();
@@ -370,6 +412,14 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
     if (stuckVar1 != stuckVar2 && (!myNormalCompare || myEquations == DummyEquations.getInstance())) {
       return myOnlySolveVars;
     }
+    if (stuckVar1 == null && stuckVar2 == null) {
+      if (isAlphaEquivalent(expr1, expr2)) {
+        return true;
+      }
+      if (!myOnlySolveVars && isRigidMismatch(expr1, expr2)) {
+        return false;
+      }
+    }
     Boolean result = compareImmediately(expr1, expr2, type);
     if (result != null) {
       return result;
@@ -390,6 +440,33 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       return myEquations.addEquation(expr1, substitute(expr2), type, myCMP, stuckVar1.getSourceNode(), stuckVar1, stuckVar2);
     }
 
+    // Unfold only the function with the greater height, so that calls of the lower one might be compared by their arguments
+    boolean unfolded = false;
+    while (isUnfoldable(expr1) && isUnfoldable(expr2)) {
+      FunCallExpression funCall1 = (FunCallExpression) expr1;
+      FunCallExpression funCall2 = (FunCallExpression) expr2;
+      if (unfolded && funCall1.getDefinition() == funCall2.getDefinition() && nonNormalizingCompare(funCall1, funCall2, type)) {
+        return true;
+      }
+
+      int height1 = funCall1.getDefinition().getHeight();
+      int height2 = funCall2.getDefinition().getHeight();
+      Expression newExpr1 = height1 >= height2 ? NormalizeVisitor.INSTANCE.eval(funCall1) : funCall1;
+      Expression newExpr2 = height2 >= height1 ? NormalizeVisitor.INSTANCE.eval(funCall2) : funCall2;
+      if (newExpr1 == null || newExpr2 == null) {
+        break;
+      }
+      expr1 = newExpr1.getUnderlyingExpression();
+      expr2 = newExpr2.getUnderlyingExpression();
+      unfolded = true;
+      if (expr1 == expr2 || isAlphaEquivalent(expr1, expr2)) {
+        return true;
+      }
+    }
+    if (unfolded) {
+      return compare(expr1, expr2, type, useType);
+    }
+
     return normalizedCompare(expr1.normalize(NormalizationMode.WHNF), expr2.normalize(NormalizationMode.WHNF), type == null ? null : type.normalize(NormalizationMode.WHNF), useType);
   }
 
@@ -624,14 +701,21 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
   }
 
   private Pair<Expression, BigInteger> getSucs(Expression expr) {
-    int sucs = 0;
+    BigInteger sucs = BigInteger.ZERO;
     while (true) {
       if (!(expr instanceof ConCallExpression && ((ConCallExpression) expr).getDefinition() == Prelude.SUC)) {
-        return expr instanceof IntegerExpression ? new Pair<>(new SmallIntegerExpression(0), ((IntegerExpression) expr).plus(sucs).getBigInteger()) : new Pair<>(expr, BigInteger.valueOf(sucs));
+        return expr instanceof IntegerExpression ? new Pair<>(new SmallIntegerExpression(0), ((IntegerExpression) expr).getBigInteger().add(sucs)) : new Pair<>(expr, sucs);
       }
       expr = ((ConCallExpression) expr).getDefCallArguments().get(0);
+      if (myNormalize) {
+        IntegerExpression offset = ExpressionFactory.getOffset(expr);
+        if (offset != null) {
+          sucs = sucs.add(offset.getBigInteger());
+          expr = ((FunCallExpression) expr).getDefCallArguments().get(0);
+        }
+      }
       expr = myNormalize ? expr.normalize(NormalizationMode.WHNF) : expr.getUnderlyingExpression();
-      sucs++;
+      sucs = sucs.add(BigInteger.ONE);
     }
   }
 
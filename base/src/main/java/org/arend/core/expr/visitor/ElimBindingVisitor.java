@@ -122,7 +122,7 @@ public class ElimBindingVisitor extends ExpressionTransformer<Void> {
   }
 
   public ClassCallExpression visitClassCall(ClassCallExpression expr, boolean removeImplementations) {
-    Map<ClassField, Expression> newFieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> newFieldSet = ClassCallExpression.makeImplementationMap(expr.getDefinition(), expr.getImplementedHere().size());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels(), newFieldSet, expr.getSort(), expr.getUniverseKind());
     if (myKeepVisitor != null) {
       myKeepVisitor.getBindings().add(expr.getThisBinding());
@@ -17,16 +17,38 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
   private final Set<? extends Variable> myBindings;
   private final Set<Binding> myAllowedBindings = new HashSet<>();
   private final boolean myNormalizeClassCallBindings;
+  private final long myMask;
   private Variable myResult = null;
 
   public FindBindingVisitor(Set<? extends Variable> binding, boolean normalizeClassCallBindings) {
     myBindings = binding;
     myNormalizeClassCallBindings = normalizeClassCallBindings;
+    myMask = getMask(binding);
   }
 
   public FindBindingVisitor(Set<? extends Variable> binding) {
-    myBindings = binding;
-    myNormalizeClassCallBindings = false;
+    this(binding, false);
+  }
+
+  /**
+   * @return the union of masks of bindings or 0 if some of the variables are not bindings.
+   */
+  private static long getMask(Set<? extends Variable> bindings) {
+    long mask = 0;
+    for (Variable binding : bindings) {
+      if (!(binding instanceof Binding)) {
+        return 0;
+      }
+      mask |= FreeVariablesMaskVisitor.getMask((Binding) binding);
+    }
+    return mask;
+  }
+
+  /**
+   * Checks if the mask of the expression shows that it does not contain any of the bindings.
+   */
+  private boolean isSkipped(Expression expr) {
+    return myMask != 0 && (expr.getFreeVariablesMask() & myMask) == 0;
   }
 
   Set<? extends Variable> getBindings() {
@@ -47,8 +69,46 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
     }
   }
 
+  @Override
+  public Boolean visitDefCall(DefCallExpression expression, Void param) {
+    return !isSkipped(expression) && super.visitDefCall(expression, param);
+  }
+
+  @Override
+  public Boolean visitConCall(ConCallExpression expression, Void param) {
+    return !isSkipped(expression) && super.visitConCall(expression, param);
+  }
+
+  @Override
+  public Boolean visitApp(AppExpression expression, Void param) {
+    return !isSkipped(expression) && super.visitApp(expression, param);
+  }
+
+  @Override
+  public Boolean visitTuple(TupleExpression expression, Void param) {
+    return !isSkipped(expression) && super.visitTuple(expression, param);
+  }
+
+  @Override
+  public Boolean visitProj(ProjExpression expression, Void param) {
+    return !isSkipped(expression) && super.visitProj(expression, param);
+  }
+
+  @Override
+  public Boolean visitPath(PathExpression expr, Void params) {
+    return !isSkipped(expr) && super.visitPath(expr, params);
+  }
+
+  @Override
+  public Boolean visitAt(AtExpression expr, Void params) {
+    return !isSkipped(expr) && super.visitAt(expr, params);
+  }
+
   @Override
   public Boolean visitFieldCall(FieldCallExpression expr, Void params) {
+    if (isSkipped(expr)) {
+      return false;
+    }
     if (myBindings.contains(expr.getDefinition())) {
       myResult = expr.getDefinition();
       return true;
@@ -97,6 +157,9 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitClassCall(ClassCallExpression expr, Void param) {
+    if (isSkipped(expr)) {
+      return false;
+    }
     myAllowedBindings.add(expr.getThisBinding());
     Boolean result = super.visitClassCall(expr, param);
     myAllowedBindings.remove(expr.getThisBinding());
@@ -122,6 +185,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitLam(LamExpression expr, Void param) {
+    if (isSkipped(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     Boolean result = expr.getBody().accept(this, param);
     freeDependentLink(expr.getParameters());
@@ -130,6 +194,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitPi(PiExpression expr, Void param) {
+    if (isSkipped(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     Boolean result = expr.getCodomain().accept(this, param);
     freeDependentLink(expr.getParameters());
@@ -138,6 +203,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitSigma(SigmaExpression expr, Void param) {
+    if (isSkipped(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     freeDependentLink(expr.getParameters());
     return false;
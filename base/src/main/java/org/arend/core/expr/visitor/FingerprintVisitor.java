@@ -0,0 +1,205 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes structural hashes of expressions (see {@link Expression#getFingerprint}).
+ * Variables do not contribute to the hash, so it is invariant under renaming of both bound and free variables,
+ * and the fingerprint of an expression depends only on fingerprints of its immediate subexpressions.
+ * Levels are ignored too.
+ * Returns 0 for expressions that are not fingerprinted.
+ */
+public class FingerprintVisitor implements ExpressionVisitor<Void, Integer> {
+  public static final FingerprintVisitor INSTANCE = new FingerprintVisitor();
+
+  private static final int APP = 1;
+  private static final int DEF_CALL = 2;
+  private static final int CLASS_CALL = 3;
+  private static final int REFERENCE = 4;
+  private static final int LAM = 5;
+  private static final int PI = 6;
+  private static final int SIGMA = 7;
+  private static final int UNIVERSE = 8;
+  private static final int TUPLE = 9;
+  private static final int PROJ = 10;
+  private static final int INTEGER = 11;
+  private static final int PATH = 12;
+  private static final int AT = 13;
+
+  private FingerprintVisitor() {}
+
+  private static int combine(int hash, int fingerprint) {
+    return fingerprint == 0 || hash == 0 ? 0 : 31 * hash + fingerprint;
+  }
+
+  private static int result(int hash) {
+    return hash == 0 ? 0 : hash * 0x9E3779B9 | 1;
+  }
+
+  private static int combine(int hash, List<? extends Expression> args) {
+    for (Expression arg : args) {
+      hash = combine(hash, arg.getFingerprint());
+    }
+    return hash;
+  }
+
+  private static int combine(int hash, DependentLink parameters) {
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
+      int fingerprint = link.getTypeExpr().getFingerprint();
+      if (fingerprint == 0) {
+        return 0;
+      }
+      hash = combine(hash, link.isExplicit() ? fingerprint : ~fingerprint);
+    }
+    return hash;
+  }
+
+  @Override
+  public Integer visitApp(AppExpression expr, Void params) {
+    return result(combine(combine(expr.isExplicit() ? APP : -APP, expr.getFunction().getFingerprint()), expr.getArgument().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitFunCall(FunCallExpression expr, Void params) {
+    return result(combine(combine(DEF_CALL, System.identityHashCode(expr.getDefinition())), expr.getDefCallArguments()));
+  }
+
+  @Override
+  public Integer visitConCall(ConCallExpression expr, Void params) {
+    return result(combine(combine(combine(DEF_CALL, System.identityHashCode(expr.getDefinition())), expr.getDataTypeArguments()), expr.getDefCallArguments()));
+  }
+
+  @Override
+  public Integer visitDataCall(DataCallExpression expr, Void params) {
+    return result(combine(combine(DEF_CALL, System.identityHashCode(expr.getDefinition())), expr.getDefCallArguments()));
+  }
+
+  @Override
+  public Integer visitFieldCall(FieldCallExpression expr, Void params) {
+    return result(combine(combine(DEF_CALL, System.identityHashCode(expr.getDefinition())), expr.getArgument().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitClassCall(ClassCallExpression expr, Void params) {
+    // Implementations are stored in a map, so the order of entries should not matter
+    int implementations = 0;
+    for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+      int fingerprint = entry.getValue().getFingerprint();
+      if (fingerprint == 0) {
+        return 0;
+      }
+      implementations += System.identityHashCode(entry.getKey()) * 31 + fingerprint;
+    }
+    return result(combine(combine(CLASS_CALL, System.identityHashCode(expr.getDefinition())), implementations == 0 ? 1 : implementations));
+  }
+
+  @Override
+  public Integer visitReference(ReferenceExpression expr, Void params) {
+    return result(REFERENCE);
+  }
+
+  @Override
+  public Integer visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return expr.getSubstExpression() == null ? 0 : expr.getSubstExpression().getFingerprint();
+  }
+
+  @Override
+  public Integer visitSubst(SubstExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitLam(LamExpression expr, Void params) {
+    return result(combine(combine(LAM, expr.getParameters()), expr.getBody().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitPi(PiExpression expr, Void params) {
+    return result(combine(combine(PI, expr.getParameters()), expr.getCodomain().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitSigma(SigmaExpression expr, Void params) {
+    return result(combine(SIGMA, expr.getParameters()));
+  }
+
+  @Override
+  public Integer visitUniverse(UniverseExpression expr, Void params) {
+    return result(UNIVERSE);
+  }
+
+  @Override
+  public Integer visitError(ErrorExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitTuple(TupleExpression expr, Void params) {
+    return result(combine(combine(TUPLE, expr.getFields()), expr.getSigmaType().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitProj(ProjExpression expr, Void params) {
+    return result(combine(combine(PROJ, expr.getField() + 1), expr.getExpression().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitNew(NewExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitPEval(PEvalExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitLet(LetExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitCase(CaseExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getUnderlyingExpression().getFingerprint();
+  }
+
+  @Override
+  public Integer visitInteger(IntegerExpression expr, Void params) {
+    return result(combine(INTEGER, expr.getBigInteger().hashCode() | 1));
+  }
+
+  @Override
+  public Integer visitTypeConstructor(TypeConstructorExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitTypeDestructor(TypeDestructorExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitArray(ArrayExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitPath(PathExpression expr, Void params) {
+    return result(combine(combine(PATH, expr.getArgumentType().getFingerprint()), expr.getArgument().getFingerprint()));
+  }
+
+  @Override
+  public Integer visitAt(AtExpression expr, Void params) {
+    return result(combine(combine(AT, expr.getPathArgument().getFingerprint()), expr.getIntervalArgument().getFingerprint()));
+  }
+}
@@ -0,0 +1,193 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.expr.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes bloom filters of bindings that occur in expressions (see {@link Expression#getFreeVariablesMask}).
+ * Every binding sets one of the lower 63 bits; bound variables are not removed, so the mask over-approximates the set of free variables.
+ * Expressions which may be modified after their construction, such as references to inference variables, let and case expressions, get {@link #ALL}.
+ */
+public class FreeVariablesMaskVisitor implements ExpressionVisitor<Void, Long> {
+  public static final FreeVariablesMaskVisitor INSTANCE = new FreeVariablesMaskVisitor();
+
+  /**
+   * The mask of expressions that may contain any binding.
+   */
+  public static final long ALL = -1L;
+
+  private FreeVariablesMaskVisitor() {}
+
+  public static long getMask(Binding binding) {
+    return 1L << ((System.identityHashCode(binding) * 0x9E3779B9 >>> 26) % 63);
+  }
+
+  private static long getMask(List<? extends Expression> exprs) {
+    long mask = 0;
+    for (Expression expr : exprs) {
+      mask |= expr.getFreeVariablesMask();
+    }
+    return mask;
+  }
+
+  private static long getMask(DependentLink link) {
+    long mask = 0;
+    for (; link.hasNext(); link = link.getNext()) {
+      link = link.getNextTyped(null);
+      mask |= link.getTypeExpr().getFreeVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitApp(AppExpression expr, Void params) {
+    return expr.getFunction().getFreeVariablesMask() | expr.getArgument().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitFunCall(FunCallExpression expr, Void params) {
+    return getMask(expr.getDefCallArguments());
+  }
+
+  @Override
+  public Long visitConCall(ConCallExpression expr, Void params) {
+    return getMask(expr.getDataTypeArguments()) | getMask(expr.getDefCallArguments());
+  }
+
+  @Override
+  public Long visitDataCall(DataCallExpression expr, Void params) {
+    return getMask(expr.getDefCallArguments());
+  }
+
+  @Override
+  public Long visitFieldCall(FieldCallExpression expr, Void params) {
+    return expr.getArgument().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitClassCall(ClassCallExpression expr, Void params) {
+    long mask = 0;
+    for (Map.Entry<?, Expression> entry : expr.getImplementedHere().entrySet()) {
+      mask |= entry.getValue().getFreeVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitReference(ReferenceExpression expr, Void params) {
+    return getMask(expr.getBinding());
+  }
+
+  @Override
+  public Long visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    // Solutions of inference variables can be reverted
+    return ALL;
+  }
+
+  @Override
+  public Long visitSubst(SubstExpression expr, Void params) {
+    if (expr.isInferenceVariable()) {
+      return ALL;
+    }
+    long mask = expr.getExpression().getFreeVariablesMask();
+    for (Map.Entry<Binding, Expression> entry : expr.getSubstitution().getEntries()) {
+      mask |= entry.getValue().getFreeVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitLam(LamExpression expr, Void params) {
+    return getMask(expr.getParameters()) | expr.getBody().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitPi(PiExpression expr, Void params) {
+    return getMask(expr.getParameters()) | expr.getCodomain().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitSigma(SigmaExpression expr, Void params) {
+    return getMask(expr.getParameters());
+  }
+
+  @Override
+  public Long visitUniverse(UniverseExpression expr, Void params) {
+    return 0L;
+  }
+
+  @Override
+  public Long visitError(ErrorExpression expr, Void params) {
+    return 0L;
+  }
+
+  @Override
+  public Long visitTuple(TupleExpression expr, Void params) {
+    return getMask(expr.getFields()) | expr.getSigmaType().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitProj(ProjExpression expr, Void params) {
+    return expr.getExpression().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitNew(NewExpression expr, Void params) {
+    return (expr.getRenewExpression() == null ? 0L : expr.getRenewExpression().getFreeVariablesMask()) | expr.getClassCall().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitPEval(PEvalExpression expr, Void params) {
+    return expr.getExpression().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitLet(LetExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitCase(CaseExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().getFreeVariablesMask() | expr.getTypeOf().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitInteger(IntegerExpression expr, Void params) {
+    return 0L;
+  }
+
+  @Override
+  public Long visitTypeConstructor(TypeConstructorExpression expr, Void params) {
+    // The argument can be replaced
+    return ALL;
+  }
+
+  @Override
+  public Long visitTypeDestructor(TypeDestructorExpression expr, Void params) {
+    return expr.getArgument().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitArray(ArrayExpression expr, Void params) {
+    return expr.getElementsType().getFreeVariablesMask() | getMask(expr.getElements()) | (expr.getTail() == null ? 0L : expr.getTail().getFreeVariablesMask());
+  }
+
+  @Override
+  public Long visitPath(PathExpression expr, Void params) {
+    return (expr.getArgumentType() == null ? 0L : expr.getArgumentType().getFreeVariablesMask()) | expr.getArgument().getFreeVariablesMask();
+  }
+
+  @Override
+  public Long visitAt(AtExpression expr, Void params) {
+    return expr.getPathArgument().getFreeVariablesMask() | expr.getIntervalArgument().getFreeVariablesMask();
+  }
+}
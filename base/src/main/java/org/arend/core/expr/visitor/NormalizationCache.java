@@ -0,0 +1,147 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers weak head normal forms of function and field calls which do not contain free variables and unsolved inference variables.
+ * Expressions are identified by identity, so the cache must be {@link #invalidate invalidated} when expressions are modified in place.
+ * The cache is used by {@link NormalizeVisitor} in the thread which {@link #run runs} a computation with it.
+ */
+public class NormalizationCache {
+  private static final ThreadLocal<NormalizationCache> CURRENT = new ThreadLocal<>();
+  private static final Object NOT_CACHEABLE = new Object();
+
+  private final int myMaxSize;
+  private final Map<Key, Object> myCache;
+  private long myHits;
+  private long myMisses;
+
+  private static final class Key {
+    final Expression expression;
+
+    Key(Expression expression) {
+      this.expression = expression;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && ((Key) obj).expression == expression;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(expression);
+    }
+  }
+
+  public NormalizationCache(int maxSize) {
+    myMaxSize = maxSize;
+    myCache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+        return size() > myMaxSize;
+      }
+    };
+  }
+
+  /**
+   * Runs a computation in the current thread with the given cache.
+   */
+  public static <T> T run(NormalizationCache cache, Supplier<T> supplier) {
+    NormalizationCache prev = CURRENT.get();
+    CURRENT.set(cache);
+    try {
+      return supplier.get();
+    } finally {
+      if (prev == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(prev);
+      }
+    }
+  }
+
+  public static NormalizationCache getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Clears the cache of the current thread if there is one.
+   */
+  public static void invalidate() {
+    NormalizationCache cache = CURRENT.get();
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * @return the cached normal form of the expression, or null if it is not cached.
+   */
+  Expression get(Expression expr) {
+    Object result = myCache.get(new Key(expr));
+    if (result instanceof Expression) {
+      myHits++;
+      return (Expression) result;
+    }
+    return null;
+  }
+
+  /**
+   * @return true if the normal form of the expression can be cached.
+   *         The result is remembered, so that expressions are checked only once.
+   */
+  boolean isCacheable(Expression expr) {
+    Key key = new Key(expr);
+    Object result = myCache.get(key);
+    if (result != null) {
+      return result != NOT_CACHEABLE;
+    }
+    if (isClosed(expr)) {
+      return true;
+    }
+    myCache.put(key, NOT_CACHEABLE);
+    return false;
+  }
+
+  void put(Expression expr, Expression result) {
+    myMisses++;
+    myCache.put(new Key(expr), result);
+  }
+
+  public void clear() {
+    myCache.clear();
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+
+  private static class ClosedExpressionChecker extends FreeVariablesCollector {
+    boolean hasInferenceVariables;
+
+    @Override
+    public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+      if (expr.getSubstExpression() == null) {
+        hasInferenceVariables = true;
+        return null;
+      }
+      return super.visitInferenceReference(expr, params);
+    }
+  }
+
+  private static boolean isClosed(Expression expr) {
+    ClosedExpressionChecker checker = new ClosedExpressionChecker();
+    expr.accept(checker, null);
+    return !checker.hasInferenceVariables && checker.getResult().isEmpty();
+  }
+}
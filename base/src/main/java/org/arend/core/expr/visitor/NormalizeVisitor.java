@@ -30,6 +30,7 @@ import org.arend.util.SingletonList;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.BiFunction;
 
 import static org.arend.core.expr.ExpressionFactory.*;
 
@@ -96,18 +97,11 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
       if (arg2 instanceof IntegerExpression) {
         return intExpr1.plus((IntegerExpression) arg2);
       }
-      for (int i = 0; intExpr1.compare(i) > 0; i++) {
-        arg2 = Suc(arg2);
-      }
-      return arg2;
+      return addInteger(arg2, intExpr1, expr.getLevels(), mode);
     }
 
     if (arg2 instanceof IntegerExpression) {
-      IntegerExpression intExpr2 = (IntegerExpression) arg2;
-      for (int i = 0; intExpr2.compare(i) > 0; i++) {
-        arg1 = Suc(arg1);
-      }
-      return arg1;
+      return addInteger(arg1, (IntegerExpression) arg2, expr.getLevels(), mode);
     }
 
     List<Expression> newDefCallArgs = new ArrayList<>(2);
@@ -117,6 +111,24 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     return result;
   }
 
+  /**
+   * Adds a number to a neutral expression.
+   * In WHNF, only the first constructor is computed: {@code e + n} reduces to {@code suc (e + (n-1))}.
+   */
+  private static Expression addInteger(Expression arg, IntegerExpression intExpr, Levels levels, NormalizationMode mode) {
+    if (intExpr.isZero()) {
+      return arg;
+    }
+    if (mode == NormalizationMode.WHNF) {
+      IntegerExpression pred = intExpr.pred();
+      return Suc(pred.isZero() ? arg : FunCallExpression.make(Prelude.PLUS, levels, Arrays.asList(arg, pred)));
+    }
+    for (int i = 0; intExpr.compare(i) > 0; i++) {
+      arg = Suc(arg);
+    }
+    return arg;
+  }
+
   private Expression addSucs(Expression arg1, List<Expression> defCallArgs, Expression result) {
     ConCallExpression conCall1 = arg1.cast(ConCallExpression.class);
     while (conCall1 != null && conCall1.getDefinition() == Prelude.SUC) {
@@ -493,7 +505,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
   }
 
-  private static boolean isBlocked(FunctionDefinition def) {
+  static boolean isBlocked(FunctionDefinition def) {
     return def.isSFunc() || def == Prelude.PLUS || def == Prelude.MUL || def == Prelude.MINUS || def == Prelude.DIV || def == Prelude.MOD || def == Prelude.DIV_MOD || def == Prelude.COERCE || def == Prelude.COERCE2;
   }
 
@@ -786,6 +798,25 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     return substitution;
   }
 
+  private <E extends Expression> Expression normalizeCached(E expr, NormalizationMode mode, BiFunction<E, NormalizationMode, Expression> normalizer) {
+    NormalizationCache cache = mode == NormalizationMode.WHNF ? NormalizationCache.getCurrent() : null;
+    if (cache == null || !cache.isCacheable(expr)) {
+      return normalizer.apply(expr, mode);
+    }
+
+    Expression result = cache.get(expr);
+    if (result == null) {
+      result = normalizer.apply(expr, mode);
+      cache.put(expr, result);
+    }
+    return result;
+  }
+
+  @Override
+  public Expression visitFunCall(FunCallExpression expr, NormalizationMode mode) {
+    return normalizeCached(expr, mode, this::visitDefCall);
+  }
+
   @Override
   public Expression visitDefCall(DefCallExpression expr, NormalizationMode mode) {
     if (expr.getDefinition() instanceof FunctionDefinition && ((FunctionDefinition) expr.getDefinition()).isSFunc() || !(expr.getDefinition() instanceof Function) || ((Function) expr.getDefinition()).getBody() == null && expr.getDefinition() != Prelude.DIV_MOD && expr.getDefinition() != Prelude.ARRAY_INDEX) {
@@ -820,6 +851,10 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, NormalizationMode mode) {
+    return normalizeCached(expr, mode, this::normalizeFieldCall);
+  }
+
+  private Expression normalizeFieldCall(FieldCallExpression expr, NormalizationMode mode) {
     if (expr.getDefinition().isProperty()) {
       return applyDefCall(expr, mode);
     }
@@ -875,7 +910,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
   public ClassCallExpression visitClassCall(ClassCallExpression expr, NormalizationMode mode) {
     if (mode == NormalizationMode.WHNF) return expr;
 
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = ClassCallExpression.makeImplementationMap(expr.getDefinition(), expr.getImplementedHere().size());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels(), fieldSet, expr.getSort(), expr.getUniverseKind());
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       fieldSet.put(entry.getKey(), entry.getValue().accept(this, mode).subst(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding())));
@@ -987,12 +1022,18 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
 
   private static Pair<BigInteger,Expression> getNumber(Expression expr) {
     expr = expr.normalize(NormalizationMode.WHNF);
-    int s = 0;
+    BigInteger s = BigInteger.ZERO;
     while (expr instanceof ConCallExpression && ((ConCallExpression) expr).getDefinition() == Prelude.SUC) {
-      s++;
-      expr = ((ConCallExpression) expr).getDefCallArguments().get(0).normalize(NormalizationMode.WHNF);
+      s = s.add(BigInteger.ONE);
+      expr = ((ConCallExpression) expr).getDefCallArguments().get(0);
+      IntegerExpression offset = ExpressionFactory.getOffset(expr);
+      if (offset != null) {
+        s = s.add(offset.getBigInteger());
+        expr = ((FunCallExpression) expr).getDefCallArguments().get(0);
+      }
+      expr = expr.normalize(NormalizationMode.WHNF);
     }
-    return new Pair<>(expr instanceof IntegerExpression || s > 0 ? (expr instanceof IntegerExpression ? ((IntegerExpression) expr).getBigInteger() : BigInteger.ZERO).add(BigInteger.valueOf(s)) : null, expr);
+    return new Pair<>(expr instanceof IntegerExpression || s.signum() > 0 ? (expr instanceof IntegerExpression ? ((IntegerExpression) expr).getBigInteger() : BigInteger.ZERO).add(s) : null, expr);
   }
 
   @Override
@@ -8,7 +8,6 @@ import org.arend.core.subst.SubstVisitor;
 import org.arend.ext.core.ops.ExpressionMapper;
 import org.arend.extImpl.UncheckedExpressionImpl;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class RecreateExpressionVisitor extends SubstVisitor {
@@ -61,7 +60,7 @@ public class RecreateExpressionVisitor extends SubstVisitor {
       return result;
     }
 
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = ClassCallExpression.makeImplementationMap(expr.getDefinition(), expr.getImplementedHere().size());
     ClassCallExpression classCall = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(getLevelSubstitution()), fieldSet, expr.getSort().subst(getLevelSubstitution()), expr.getUniverseKind());
     if (expr.getImplementedHere().isEmpty()) {
       return classCall;
@@ -6,98 +6,280 @@ import org.arend.core.expr.Expression;
 import org.arend.ext.core.level.LevelSubstitution;
 
 import java.util.*;
+import java.util.function.UnaryOperator;
 
+/**
+ * A map from bindings to expressions.
+ * Bindings are compared by identity.
+ * Substitutions with at most {@link #SMALL_SIZE} entries are stored in two arrays which are searched linearly,
+ * larger ones are stored in an {@link IdentityHashMap}.
+ * Copies share the storage until one of them is modified.
+ */
 public class ExprSubstitution {
-  private Map<Binding, Expression> mySubstExprs;
+  private static final int SMALL_SIZE = 8;
+
+  private Binding[] myKeys;
+  private Expression[] myValues;
+  private int mySize;
+  private IdentityHashMap<Binding, Expression> myMap;
+  private boolean myShared;
 
   public ExprSubstitution() {
-    mySubstExprs = Collections.emptyMap();
   }
 
   public ExprSubstitution(ExprSubstitution substitution) {
-    mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    share(substitution);
   }
 
   public ExprSubstitution(Binding from, Expression to) {
-    mySubstExprs = new HashMap<>();
-    add(from, to);
+    myKeys = new Binding[] { from };
+    myValues = new Expression[] { to };
+    mySize = 1;
+  }
+
+  private void share(ExprSubstitution substitution) {
+    if (substitution.isEmpty()) {
+      return;
+    }
+    substitution.myShared = true;
+    myKeys = substitution.myKeys;
+    myValues = substitution.myValues;
+    mySize = substitution.mySize;
+    myMap = substitution.myMap;
+    myShared = true;
+  }
+
+  private void unshare() {
+    if (!myShared) {
+      return;
+    }
+    myShared = false;
+    if (myMap != null) {
+      myMap = new IdentityHashMap<>(myMap);
+    } else if (myKeys != null) {
+      myKeys = Arrays.copyOf(myKeys, myKeys.length);
+      myValues = Arrays.copyOf(myValues, myValues.length);
+    }
+  }
+
+  private int indexOf(Object binding) {
+    for (int i = 0; i < mySize; i++) {
+      if (myKeys[i] == binding) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   public Set<Binding> getKeys() {
-    return mySubstExprs.keySet();
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Binding> iterator() {
+        if (myMap != null) {
+          return Collections.unmodifiableSet(myMap.keySet()).iterator();
+        }
+        return new SmallIterator<>() {
+          @Override
+          Binding get(int index) {
+            return myKeys[index];
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return myMap != null ? myMap.containsKey(o) : indexOf(o) >= 0;
+      }
+
+      @Override
+      public int size() {
+        return ExprSubstitution.this.size();
+      }
+    };
   }
 
+  /**
+   * @return a view of entries of this substitution.
+   *         Values of entries can be replaced with {@link Map.Entry#setValue}.
+   */
   public Set<Map.Entry<Binding, Expression>> getEntries() {
-    return mySubstExprs.entrySet();
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<Binding, Expression>> iterator() {
+        if (myMap != null) {
+          Iterator<Binding> keys = myMap.keySet().iterator();
+          return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+              return keys.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Binding, Expression> next() {
+              return new MapEntry(keys.next());
+            }
+          };
+        }
+        return new SmallIterator<>() {
+          @Override
+          Map.Entry<Binding, Expression> get(int index) {
+            return new SmallEntry(index);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ExprSubstitution.this.size();
+      }
+    };
   }
 
   public boolean isEmpty() {
-    return mySubstExprs.isEmpty();
+    return myMap != null ? myMap.isEmpty() : mySize == 0;
   }
 
   public int size() {
-    return mySubstExprs.size();
+    return myMap != null ? myMap.size() : mySize;
   }
 
   public Expression get(Binding binding)  {
-    return mySubstExprs.get(binding);
+    if (myMap != null) {
+      return myMap.get(binding);
+    }
+    int index = indexOf(binding);
+    return index >= 0 ? myValues[index] : null;
   }
 
   public void clear() {
-    if (!mySubstExprs.isEmpty()) {
-      mySubstExprs.clear();
-    }
+    myKeys = null;
+    myValues = null;
+    mySize = 0;
+    myMap = null;
+    myShared = false;
   }
 
   public void remove(Binding variable) {
-    if (!mySubstExprs.isEmpty()) {
-      mySubstExprs.remove(variable);
+    if (myMap != null) {
+      if (myMap.containsKey(variable)) {
+        unshare();
+        myMap.remove(variable);
+      }
+      return;
+    }
+
+    int index = indexOf(variable);
+    if (index < 0) {
+      return;
     }
+    unshare();
+    mySize--;
+    System.arraycopy(myKeys, index + 1, myKeys, index, mySize - index);
+    System.arraycopy(myValues, index + 1, myValues, index, mySize - index);
+    myKeys[mySize] = null;
+    myValues[mySize] = null;
   }
 
-  public void add(Binding binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
+  private void put(Binding binding, Expression expression, boolean replace) {
+    if (myMap != null) {
+      unshare();
+      if (replace) {
+        myMap.put(binding, expression);
+      } else {
+        myMap.putIfAbsent(binding, expression);
+      }
+      return;
+    }
+
+    int index = indexOf(binding);
+    if (index >= 0) {
+      if (replace) {
+        unshare();
+        myValues[index] = expression;
+      }
+      return;
+    }
+
+    if (mySize == SMALL_SIZE) {
+      IdentityHashMap<Binding, Expression> map = new IdentityHashMap<>(2 * SMALL_SIZE);
+      for (int i = 0; i < mySize; i++) {
+        map.put(myKeys[i], myValues[i]);
+      }
+      map.put(binding, expression);
+      myKeys = null;
+      myValues = null;
+      mySize = 0;
+      myMap = map;
+      myShared = false;
+      return;
+    }
+
+    if (myKeys == null) {
+      myKeys = new Binding[4];
+      myValues = new Expression[4];
+    } else if (mySize == myKeys.length || myShared) {
+      int length = mySize == myKeys.length ? Math.min(2 * mySize, SMALL_SIZE) : myKeys.length;
+      myKeys = Arrays.copyOf(myKeys, length);
+      myValues = Arrays.copyOf(myValues, length);
     }
-    mySubstExprs.put(binding, expression);
+    myShared = false;
+    myKeys[mySize] = binding;
+    myValues[mySize] = expression;
+    mySize++;
+  }
+
+  public void add(Binding binding, Expression expression) {
+    put(binding, expression, true);
   }
 
   public void addIfAbsent(Binding binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    }
-    mySubstExprs.putIfAbsent(binding, expression);
+    put(binding, expression, false);
   }
 
-  public void addSubst(Binding binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
+  private void replaceValues(UnaryOperator<Expression> function) {
+    if (isEmpty()) {
+      return;
+    }
+    unshare();
+    if (myMap != null) {
+      myMap.replaceAll((binding, expression) -> function.apply(expression));
     } else {
-      for (Map.Entry<Binding, Expression> entry : mySubstExprs.entrySet()) {
-        entry.setValue(entry.getValue().subst(binding, expression));
+      for (int i = 0; i < mySize; i++) {
+        myValues[i] = function.apply(myValues[i]);
       }
     }
-    mySubstExprs.put(binding, expression);
+  }
+
+  public void addSubst(Binding binding, Expression expression) {
+    replaceValues(value -> value.subst(binding, expression));
+    add(binding, expression);
   }
 
   public void addAll(ExprSubstitution substitution) {
-    if (!substitution.mySubstExprs.isEmpty()) {
-      if (mySubstExprs.isEmpty()) {
-        mySubstExprs = new HashMap<>();
+    if (substitution.isEmpty()) {
+      return;
+    }
+    if (isEmpty()) {
+      share(substitution);
+      return;
+    }
+    if (substitution.myMap != null) {
+      for (Map.Entry<Binding, Expression> entry : substitution.myMap.entrySet()) {
+        add(entry.getKey(), entry.getValue());
+      }
+    } else {
+      for (int i = 0; i < substitution.mySize; i++) {
+        add(substitution.myKeys[i], substitution.myValues[i]);
       }
-      mySubstExprs.putAll(substitution.mySubstExprs);
     }
   }
 
   public ExprSubstitution add(DependentLink link, List<? extends Expression> args) {
-    if (!args.isEmpty() && mySubstExprs.isEmpty() && link.hasNext()) {
-      mySubstExprs = new HashMap<>();
-    }
     for (Expression arg : args) {
       if (!link.hasNext()) {
         break;
       }
-      mySubstExprs.put(link, arg);
+      add(link, arg);
       link = link.getNext();
     }
     return this;
@@ -107,9 +289,6 @@ public class ExprSubstitution {
     if (subst.isEmpty()) {
       return;
     }
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    }
     subst(subst);
     addAll(subst);
   }
@@ -118,21 +297,100 @@ public class ExprSubstitution {
     if (subst.isEmpty()) {
       return;
     }
-    for (Map.Entry<Binding, Expression> entry : mySubstExprs.entrySet()) {
-      entry.setValue(entry.getValue().subst(subst));
-    }
+    replaceValues(value -> value.subst(subst));
   }
 
   public void subst(LevelSubstitution subst) {
     if (subst.isEmpty()) {
       return;
     }
-    for (Map.Entry<Binding, Expression> entry : mySubstExprs.entrySet()) {
-      entry.setValue(entry.getValue().subst(subst));
-    }
+    replaceValues(value -> value.subst(subst));
   }
 
   public String toString() {
-    return mySubstExprs.toString();
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    for (Map.Entry<Binding, Expression> entry : getEntries()) {
+      joiner.add(entry.getKey() + "=" + entry.getValue());
+    }
+    return joiner.toString();
+  }
+
+  private abstract class SmallIterator<T> implements Iterator<T> {
+    private int myIndex;
+
+    abstract T get(int index);
+
+    @Override
+    public boolean hasNext() {
+      return myIndex < mySize;
+    }
+
+    @Override
+    public T next() {
+      if (myIndex >= mySize) {
+        throw new NoSuchElementException();
+      }
+      return get(myIndex++);
+    }
+  }
+
+  private class SmallEntry implements Map.Entry<Binding, Expression> {
+    private final int myIndex;
+
+    SmallEntry(int index) {
+      myIndex = index;
+    }
+
+    @Override
+    public Binding getKey() {
+      return myKeys[myIndex];
+    }
+
+    @Override
+    public Expression getValue() {
+      return myValues[myIndex];
+    }
+
+    @Override
+    public Expression setValue(Expression value) {
+      unshare();
+      Expression old = myValues[myIndex];
+      myValues[myIndex] = value;
+      return old;
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  private class MapEntry implements Map.Entry<Binding, Expression> {
+    private final Binding myKey;
+
+    MapEntry(Binding key) {
+      myKey = key;
+    }
+
+    @Override
+    public Binding getKey() {
+      return myKey;
+    }
+
+    @Override
+    public Expression getValue() {
+      return myMap.get(myKey);
+    }
+
+    @Override
+    public Expression setValue(Expression value) {
+      unshare();
+      return myMap.put(myKey, value);
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
   }
-}
\ No newline at end of file
+}
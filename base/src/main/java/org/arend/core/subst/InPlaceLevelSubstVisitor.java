@@ -8,6 +8,7 @@ import org.arend.core.elimtree.BranchElimTree;
 import org.arend.core.elimtree.BranchKey;
 import org.arend.core.elimtree.ElimTree;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.NormalizationCache;
 import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.ext.core.level.LevelSubstitution;
 
@@ -18,6 +19,10 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   public InPlaceLevelSubstVisitor(LevelSubstitution levelSubstitution) {
     mySubstitution = levelSubstitution;
+    // Expressions are modified in place, so cached normal forms may become invalid
+    if (!levelSubstitution.isEmpty()) {
+      NormalizationCache.invalidate();
+    }
   }
 
   public LevelSubstitution getLevelSubstitution() {
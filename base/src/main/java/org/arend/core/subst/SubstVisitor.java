@@ -51,6 +51,19 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  /**
+   * @return true if this visitor only renames variables and substitutes levels,
+   *         so the result has the same fingerprint (see {@link Expression#getFingerprint}) as the original expression.
+   */
+  public boolean preservesFingerprints() {
+    for (Map.Entry<Binding, Expression> entry : myExprSubstitution.getEntries()) {
+      if (!(entry.getValue() instanceof ReferenceExpression)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
     return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
@@ -86,7 +99,7 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitClassCall(ClassCallExpression expr, Void params) {
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = ClassCallExpression.makeImplementationMap(expr.getDefinition(), expr.getImplementedHere().size());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(myLevelSubstitution), fieldSet, expr.getSort(), expr.getUniverseKind());
     if (expr.getImplementedHere().isEmpty()) {
       return result;
@@ -37,6 +37,7 @@ public class LibraryManager {
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
   private final DefinitionListener myDefinitionListener;
+  private int myLoadingParallelism = 1;
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -56,6 +57,18 @@ public class LibraryManager {
     myDefinitionListener = listener;
   }
 
+  public int getLoadingParallelism() {
+    return myLoadingParallelism;
+  }
+
+  /**
+   * Sets the number of threads used to parse and resolve raw sources of libraries.
+   * If it is greater than 1, errors are reported from several threads while synchronized on the typechecking error reporter.
+   */
+  public void setLoadingParallelism(int parallelism) {
+    myLoadingParallelism = Math.max(parallelism, 1);
+  }
+
   /**
    * Gets a module scope provider that can be used to get scopes of modules in a library and its dependencies.
    * This method may be invoked only after the library is successfully loaded.
@@ -11,6 +11,7 @@ import org.arend.extImpl.*;
 import org.arend.library.classLoader.MultiClassLoader;
 import org.arend.library.error.LibraryError;
 import org.arend.module.error.ExceptionError;
+import org.arend.module.serialization.InterfaceHash;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.module.scopeprovider.SimpleModuleScopeProvider;
 import org.arend.naming.reference.converter.IdReferableConverter;
@@ -23,16 +24,15 @@ import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.EnumSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
@@ -42,8 +42,31 @@ public abstract class SourceLibrary extends BaseLibrary {
   public enum Flag { RECOMPILE }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
   private final SimpleModuleScopeProvider myAdditionalModuleScopeProvider = new SimpleModuleScopeProvider();
+  private final Map<ModulePath, byte[]> mySourceHashes = new ConcurrentHashMap<>();
+  private Map<ModulePath, byte[]> myInterfaceHashes;
+  private CutoffState myCutoffState;
   private ArendExtension myExtension;
 
+  /**
+   * Modules whose binaries were not loaded only because their dependencies are outdated.
+   * They are loaded before typechecking if interfaces of their dependencies did not change.
+   */
+  private static class CutoffState {
+    final Set<ModulePath> candidates;
+    final SerializableKeyRegistryImpl keyRegistry;
+    final DefinitionListener definitionListener;
+    final ModuleScopeProvider moduleScopeProvider;
+    final ErrorReporter errorReporter;
+
+    CutoffState(Set<ModulePath> candidates, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, ModuleScopeProvider moduleScopeProvider, ErrorReporter errorReporter) {
+      this.candidates = candidates;
+      this.keyRegistry = keyRegistry;
+      this.definitionListener = definitionListener;
+      this.moduleScopeProvider = moduleScopeProvider;
+      this.errorReporter = errorReporter;
+    }
+  }
+
   /**
    * Adds a flag.
    */
@@ -148,6 +171,54 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   }
 
+  /**
+   * Invoked by a raw source when it reads the content of a module.
+   * The hash is stored in the binary of the module when it is persisted.
+   *
+   * @param modulePath  the path to the module.
+   * @param hash        the hash of the content of the module.
+   */
+  public void sourceHashComputed(ModulePath modulePath, byte[] hash) {
+    mySourceHashes.put(modulePath, hash);
+  }
+
+  /**
+   * Gets the hash of the content from which a module was loaded.
+   *
+   * @param modulePath  the path to the module.
+   *
+   * @return the hash or null if the module was not loaded from a raw source.
+   */
+  public @Nullable byte[] getSourceHash(ModulePath modulePath) {
+    return mySourceHashes.get(modulePath);
+  }
+
+  /**
+   * Computes the hash of the interface of a module.
+   *
+   * @param modulePath          the path to the module.
+   * @param referableConverter  a referable converter.
+   *
+   * @return the hash or null if the module is not loaded.
+   */
+  public @Nullable byte[] getInterfaceHash(ModulePath modulePath, ReferableConverter referableConverter) {
+    Map<ModulePath, byte[]> interfaceHashes = myInterfaceHashes;
+    byte[] hash = interfaceHashes == null ? null : interfaceHashes.get(modulePath);
+    if (hash != null) {
+      return hash;
+    }
+
+    ChildGroup group = getModuleGroup(modulePath, false);
+    if (group == null) {
+      return null;
+    }
+    hash = InterfaceHash.compute(group, referableConverter);
+    if (interfaceHashes != null) {
+      interfaceHashes.put(modulePath, hash);
+    }
+    return hash;
+  }
+
   /**
    * Invoked by a binary source after it is loaded.
    *
@@ -282,6 +353,7 @@ public abstract class SourceLibrary extends BaseLibrary {
     try {
       SourceLoader sourceLoader = new SourceLoader(this, libraryManager, true);
       if (hasRawSources()) {
+        sourceLoader.parseRawSources(header.modules, false);
         for (ModulePath module : header.modules) {
           sourceLoader.preloadRaw(module, false);
         }
@@ -293,6 +365,9 @@ public abstract class SourceLibrary extends BaseLibrary {
 
         for (ModulePath module : header.modules)
           sourceLoader.preloadBinary(module, keyRegistry, definitionListener);
+        if (!sourceLoader.getCutoffCandidates().isEmpty()) {
+          myCutoffState = new CutoffState(sourceLoader.getCutoffCandidates(), keyRegistry, definitionListener, libraryManager.getAvailableModuleScopeProvider(this), libraryManager.getLibraryErrorReporter());
+        }
 
         SourceLoader newSourceLoader = new SourceLoader(this, libraryManager, false);
         newSourceLoader.initializeLoader(sourceLoader);
@@ -334,6 +409,7 @@ public abstract class SourceLibrary extends BaseLibrary {
     for (ModulePath module : getLoadedModules()) {
       sourceLoader.setModuleLoaded(module);
     }
+    sourceLoader.parseRawSources(modules, true);
     for (ModulePath module : modules) {
       sourceLoader.preloadRaw(module, true);
     }
@@ -350,9 +426,60 @@ public abstract class SourceLibrary extends BaseLibrary {
   @Override
   public boolean unload() {
     myAdditionalModuleScopeProvider.clear();
+    mySourceHashes.clear();
+    myCutoffState = null;
     return super.unload();
   }
 
+  @Override
+  public boolean orderModules(Ordering ordering) {
+    CutoffState cutoffState = myCutoffState;
+    if (cutoffState != null) {
+      myCutoffState = null;
+      myInterfaceHashes = new HashMap<>();
+      try {
+        Set<ModulePath> visited = new HashSet<>();
+        for (ModulePath module : cutoffState.candidates) {
+          loadIfInterfacesMatch(module, cutoffState, ordering, visited);
+        }
+      } finally {
+        myInterfaceHashes = null;
+      }
+    }
+    return super.orderModules(ordering);
+  }
+
+  /**
+   * Dependencies of a candidate are ordered before their interfaces are compared.
+   * If the ordering does not typecheck them immediately, the interfaces do not match and the candidate is typechecked as usual.
+   */
+  private void loadIfInterfacesMatch(ModulePath modulePath, CutoffState cutoffState, Ordering ordering, Set<ModulePath> visited) {
+    if (!visited.add(modulePath) || !getUpdatedModules().contains(modulePath)) {
+      return;
+    }
+
+    ChildGroup group = getModuleGroup(modulePath, false);
+    BinarySource binarySource = getBinarySource(modulePath);
+    if (group == null || binarySource == null || !binarySource.isAvailable()) {
+      return;
+    }
+
+    binarySource.setKeyRegistry(cutoffState.keyRegistry);
+    binarySource.setDefinitionListener(cutoffState.definitionListener);
+    binarySource.loadIfInterfacesMatch(this, group, cutoffState.moduleScopeProvider, dependency -> {
+      if (cutoffState.candidates.contains(dependency)) {
+        loadIfInterfacesMatch(dependency, cutoffState, ordering, visited);
+      }
+      if (getUpdatedModules().contains(dependency)) {
+        ChildGroup dependencyGroup = getModuleGroup(dependency, false);
+        if (dependencyGroup != null) {
+          ordering.orderModule(dependencyGroup);
+        }
+      }
+      return getInterfaceHash(dependency, IdReferableConverter.INSTANCE);
+    }, cutoffState.errorReporter);
+  }
+
   @Override
   public boolean containsModule(ModulePath modulePath) {
     Source source = getRawSource(modulePath);
@@ -379,10 +506,15 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   public boolean persistUpdatedModules(ErrorReporter errorReporter) {
     boolean ok = true;
-    for (ModulePath module : getUpdatedModules()) {
-      if (getModuleGroup(module, false) != null && !persistModule(module, IdReferableConverter.INSTANCE, errorReporter)) {
-        ok = false;
+    myInterfaceHashes = new HashMap<>();
+    try {
+      for (ModulePath module : getUpdatedModules()) {
+        if (getModuleGroup(module, false) != null && !persistModule(module, IdReferableConverter.INSTANCE, errorReporter)) {
+          ok = false;
+        }
       }
+    } finally {
+      myInterfaceHashes = null;
     }
     return ok;
   }
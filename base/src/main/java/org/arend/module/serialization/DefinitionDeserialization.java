@@ -1,6 +1,7 @@
 package org.arend.module.serialization;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import org.arend.core.context.LinkList;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.FieldLevelVariable;
@@ -12,37 +13,55 @@ import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
 import org.arend.core.pattern.*;
 import org.arend.core.subst.Levels;
+import org.arend.error.DummyErrorReporter;
 import org.arend.ext.core.definition.CoreDefinition;
 import org.arend.ext.core.definition.CoreFunctionDefinition;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
 import org.arend.ext.serialization.ArendDeserializer;
 import org.arend.ext.serialization.DeserializationException;
 import org.arend.ext.serialization.SerializableKey;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.SerializableKeyRegistryImpl;
+import org.arend.module.ModuleLocation;
+import org.arend.module.error.DeserializationError;
 import org.arend.naming.reference.*;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.ext.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.*;
 
 public class DefinitionDeserialization implements ArendDeserializer {
   private final CallTargetProvider myCallTargetProvider;
+  private final SharedExpressionProvider mySharedExpressionProvider;
   private final DependencyListener myDependencyListener;
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
+  private final ErrorReporter myErrorReporter;
 
   public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
+    this(callTargetProvider, SharedExpressionProvider.EMPTY, dependencyListener, keyRegistry, definitionListener, DummyErrorReporter.INSTANCE);
+  }
+
+  /**
+   * @param errorReporter reports errors that occur when bodies of functions are decoded on first access.
+   */
+  DefinitionDeserialization(CallTargetProvider callTargetProvider, SharedExpressionProvider sharedExpressionProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, ErrorReporter errorReporter) {
     myCallTargetProvider = callTargetProvider;
+    mySharedExpressionProvider = sharedExpressionProvider;
     myDependencyListener = dependencyListener;
     myKeyRegistry = keyRegistry;
     myDefinitionListener = definitionListener;
+    myErrorReporter = errorReporter;
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def) throws DeserializationException {
-    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def);
+    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, mySharedExpressionProvider, myDependencyListener, def);
 
     switch (defProto.getDefinitionDataCase()) {
       case CLASS:
@@ -494,10 +513,51 @@ public class DefinitionDeserialization implements ArendDeserializer {
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
     if (functionProto.hasBody()) {
       functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+    } else if (!functionProto.getLazyBody().isEmpty()) {
+      readLazyBody(defDeserializer, functionProto, functionDef);
     }
+    // The height is stored with an offset so that it is never the default value; otherwise, it would be computed from the body
+    functionDef.setHeight(Math.max(functionProto.getHeight() - 1, 0));
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
 
+  private void readLazyBody(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.FunctionData functionProto, FunctionDefinition functionDef) throws DeserializationException {
+    for (Integer index : functionProto.getBodyDependencyList()) {
+      Definition dependency = myCallTargetProvider.getCallTarget(index);
+      if (dependency instanceof Constructor) {
+        dependency = ((Constructor) dependency).getDataType();
+      } else if (dependency instanceof ClassField) {
+        dependency = ((ClassField) dependency).getParentClass();
+      }
+      myDependencyListener.dependsOn(functionDef.getRef(), dependency.getRef());
+    }
+
+    // Dependencies are already recorded, and the call target provider is shared by all definitions of the module
+    ExpressionDeserialization bodyDeserializer = defDeserializer.copy(DummyDependencyListener.INSTANCE);
+    ByteString bytes = functionProto.getLazyBody();
+    int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+    Object lock = myCallTargetProvider;
+    ErrorReporter errorReporter = myErrorReporter;
+    functionDef.setBodyLoader(() -> {
+      synchronized (lock) {
+        try {
+          CodedInputStream codedInputStream = bytes.newCodedInput();
+          codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+          return readBody(bodyDeserializer, DefinitionProtos.Body.parseFrom(codedInputStream), numberOfParameters);
+        } catch (IOException | DeserializationException e) {
+          // The function is treated as if it had no body
+          ModuleLocation location = functionDef.getRef().getLocation();
+          if (location != null) {
+            errorReporter.report(new DeserializationError(location.getModulePath(), e));
+          } else {
+            errorReporter.report(new GeneralError(GeneralError.Level.WARNING, "Cannot read the body of '" + functionDef.getName() + "': " + e.getLocalizedMessage()));
+          }
+          return null;
+        }
+      }
+    });
+  }
+
   private void fillInDConstructor(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.DConstructorData constructorProto, DConstructor constructorDef) throws DeserializationException {
     fillInFunctionDefinition(defDeserializer, constructorProto.getFunction(), constructorDef);
     constructorDef.setNumberOfParameters(constructorProto.getNumberOfParameters());
@@ -1,6 +1,8 @@
 package org.arend.module.serialization;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
 import org.arend.core.context.binding.FieldLevelVariable;
 import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.context.binding.ParamLevelVariable;
@@ -18,6 +20,7 @@ import org.arend.core.pattern.EmptyPattern;
 import org.arend.core.pattern.ExpressionPattern;
 import org.arend.core.subst.Levels;
 import org.arend.ext.core.definition.CoreDefinition;
+import org.arend.ext.core.definition.CoreFunctionDefinition;
 import org.arend.ext.reference.Precedence;
 import org.arend.ext.serialization.ArendSerializer;
 import org.arend.ext.userData.Key;
@@ -29,19 +32,37 @@ import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.ext.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.*;
 
 public class DefinitionSerialization implements ArendSerializer {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
   private final DependencyListener myDependencyListener;
+  private final boolean myInterfaceOnly;
+  private final SharedExpressionIndexProvider mySharedExpressionIndexProvider;
+  private final RecordingCallTargetIndexProvider myBodyIndexProvider;
 
   public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener) {
+    this(callTargetIndexProvider, dependencyListener, false);
+  }
+
+  /**
+   * @param interfaceOnly if true, bodies of lemmas are omitted since they cannot be observed by other definitions.
+   */
+  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener, boolean interfaceOnly) {
+    this(callTargetIndexProvider, dependencyListener, interfaceOnly, null);
+  }
+
+  DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener, boolean interfaceOnly, SharedExpressionIndexProvider sharedExpressionIndexProvider) {
     myCallTargetIndexProvider = callTargetIndexProvider;
     myDependencyListener = dependencyListener;
+    myInterfaceOnly = interfaceOnly;
+    mySharedExpressionIndexProvider = sharedExpressionIndexProvider;
+    myBodyIndexProvider = new RecordingCallTargetIndexProvider(callTargetIndexProvider);
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
-    final ExpressionSerialization defSerializer = new ExpressionSerialization(myCallTargetIndexProvider);
+    final ExpressionSerialization defSerializer = new ExpressionSerialization(myBodyIndexProvider, mySharedExpressionIndexProvider);
 
     final DefinitionProtos.Definition.Builder out = DefinitionProtos.Definition.newBuilder();
     out.setUniverseKind(defSerializer.writeUniverseKind(definition.getUniverseKind()));
@@ -412,8 +433,12 @@ public class DefinitionSerialization implements ArendSerializer {
     }
     builder.setKind(kind);
     builder.setVisibleParameter(definition.getVisibleParameter());
-    if (definition.getReallyActualBody() != null) {
-      builder.setBody(writeBody(defSerializer, definition.getReallyActualBody()));
+    builder.setHeight(definition.getHeight() + 1);
+    if (definition.getReallyActualBody() != null && !(myInterfaceOnly && definition.getKind() == CoreFunctionDefinition.Kind.LEMMA)) {
+      // Bodies are stored as bytes so that they can be decoded lazily; the reader needs their dependencies in advance
+      myBodyIndexProvider.startRecording();
+      builder.setLazyBody(toDeterministicByteString(writeBody(defSerializer, definition.getReallyActualBody())));
+      builder.addAllBodyDependency(myBodyIndexProvider.stopRecording());
     }
 
     return builder.build();
@@ -486,6 +511,22 @@ public class DefinitionSerialization implements ArendSerializer {
     return builder.build();
   }
 
+  /**
+   * Serializes a message so that equal messages produce equal bytes.
+   */
+  static ByteString toDeterministicByteString(MessageLite message) {
+    ByteString.Output stream = ByteString.newOutput(message.getSerializedSize());
+    CodedOutputStream output = CodedOutputStream.newInstance(stream);
+    output.useDeterministicSerialization();
+    try {
+      message.writeTo(output);
+      output.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return stream.toByteString();
+  }
+
   static DefinitionProtos.Precedence writePrecedence(Precedence precedence) {
     DefinitionProtos.Precedence.Builder builder = DefinitionProtos.Precedence.newBuilder();
     switch (precedence.associativity) {
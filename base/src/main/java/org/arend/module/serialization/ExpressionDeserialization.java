@@ -23,25 +23,45 @@ import org.arend.core.subst.LevelPair;
 import org.arend.core.subst.Levels;
 import org.arend.core.subst.ListLevels;
 import org.arend.ext.serialization.DeserializationException;
+import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.order.dependency.RecordingDependencyListener;
 
 import java.math.BigInteger;
 import java.util.*;
 
 class ExpressionDeserialization {
   private final CallTargetProvider myCallTargetProvider;
+  private final SharedExpressionProvider mySharedExpressionProvider;
   private final List<Binding> myBindings = new ArrayList<>();
+  private final List<Binding> myThisBindings = new ArrayList<>();
 
   private final DependencyListener myDependencyListener;
   private final Definition myDefinition;
 
   ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, Definition definition) {
+    this(callTargetProvider, SharedExpressionProvider.EMPTY, dependencyListener, definition);
+  }
+
+  ExpressionDeserialization(CallTargetProvider callTargetProvider, SharedExpressionProvider sharedExpressionProvider, DependencyListener dependencyListener, Definition definition) {
     myCallTargetProvider = callTargetProvider;
+    mySharedExpressionProvider = sharedExpressionProvider;
     myDependencyListener = dependencyListener;
     myDefinition = definition;
   }
 
+  /**
+   * @return a deserializer which knows the bindings registered so far, so that it can be used after this one continues.
+   */
+  ExpressionDeserialization copy(DependencyListener dependencyListener) {
+    ExpressionDeserialization result = new ExpressionDeserialization(myCallTargetProvider, mySharedExpressionProvider, dependencyListener, myDefinition);
+    result.myBindings.addAll(myBindings);
+    result.myThisBindings.addAll(myThisBindings);
+    return result;
+  }
+
   // Bindings
 
   private void registerBinding(Binding binding) {
@@ -341,11 +361,31 @@ class ExpressionDeserialization {
         return readPath(proto.getPath());
       case AT:
         return readAt(proto.getAt());
+      case SHARED:
+        return readShared(proto.getShared());
       default:
         throw new DeserializationException("Unknown Expression kind: " + proto.getKindCase());
     }
   }
 
+  /**
+   * Shared expressions do not depend on the context, so each of them is read once.
+   * Dependencies of a shared expression are recorded for every definition that refers to it.
+   */
+  private Expression readShared(int index) throws DeserializationException {
+    ExpressionProtos.Expression proto = mySharedExpressionProvider.getProto(index);
+    SharedExpressionProvider.Entry entry = mySharedExpressionProvider.getEntry(index);
+    if (entry == null) {
+      RecordingDependencyListener dependencyListener = new RecordingDependencyListener(DummyDependencyListener.INSTANCE);
+      Expression expr = new ExpressionDeserialization(myCallTargetProvider, mySharedExpressionProvider, dependencyListener, myDefinition).readExpr(proto);
+      entry = mySharedExpressionProvider.putEntry(index, expr, dependencyListener.getRecordedDependencies(myDefinition.getRef()));
+    }
+    for (TCReferable dependency : entry.dependencies) {
+      myDependencyListener.dependsOn(myDefinition.getRef(), dependency);
+    }
+    return entry.expression;
+  }
+
   private List<Expression> readExprList(List<ExpressionProtos.Expression> protos) throws DeserializationException {
     List<Expression> result = new ArrayList<>(protos.size());
     for (ExpressionProtos.Expression proto : protos) {
@@ -423,13 +463,14 @@ class ExpressionDeserialization {
     ClassDefinition classDefinition = myCallTargetProvider.getCallTarget(proto.getClassRef(), ClassDefinition.class);
     myDependencyListener.dependsOn(myDefinition.getRef(), classDefinition.getReferable());
 
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = ClassCallExpression.makeImplementationMap(classDefinition, proto.getFieldImplCount());
     LevelProtos.Sort sort = proto.getSort();
     ClassCallExpression classCall = new ClassCallExpression(classDefinition, readLevels(proto.getLevels()), fieldSet, new Sort(readLevel(sort.getPLevel(), LevelVariable.PVAR, classDefinition), readLevel(sort.getHLevel(), LevelVariable.HVAR, classDefinition)), readUniverseKind(proto.getUniverseKind()));
-    registerBinding(classCall.getThisBinding());
+    myThisBindings.add(classCall.getThisBinding());
     for (ExpressionProtos.Expression.ClassCall.ImplEntry entry : proto.getFieldImplList()) {
       fieldSet.put(myCallTargetProvider.getCallTarget(entry.getField(), ClassField.class), readExpr(entry.getImpl()));
     }
+    myThisBindings.remove(myThisBindings.size() - 1);
     return classCall;
   }
 
@@ -443,6 +484,13 @@ class ExpressionDeserialization {
   }
 
   private ReferenceExpression readReference(ExpressionProtos.Expression.Reference proto) throws DeserializationException {
+    int thisRef = proto.getThisRef();
+    if (thisRef != 0) {
+      if (thisRef > myThisBindings.size()) {
+        throw new DeserializationException("Trying to read a reference to an unregistered \\this binding");
+      }
+      return new ReferenceExpression(myThisBindings.get(myThisBindings.size() - thisRef));
+    }
     return new ReferenceExpression(readBindingRef(proto.getBindingRef()));
   }
 
@@ -33,12 +33,25 @@ import java.util.List;
 import java.util.Map;
 
 class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProtos.Expression> {
+  private static final int MIN_SHARED_SIZE = 8;
+
   private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private final SharedExpressionIndexProvider mySharedExpressionIndexProvider;
   private final Map<Binding, Integer> myBindingsMap = new HashMap<>();
+  private final List<Binding> myThisBindings = new ArrayList<>();
   private int myIndex;
+  private int myMinReference = Integer.MAX_VALUE;
 
   ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+    this(callTargetIndexProvider, null);
+  }
+
+  /**
+   * @param sharedExpressionIndexProvider collects expressions which do not depend on the context in which they occur, or null if they should not be shared.
+   */
+  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider, SharedExpressionIndexProvider sharedExpressionIndexProvider) {
     myCallTargetIndexProvider = callTargetIndexProvider;
+    mySharedExpressionIndexProvider = sharedExpressionIndexProvider;
   }
 
   // Bindings
@@ -83,6 +96,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
       builder.setVariable(-1);
     } else if (var instanceof ParamLevelVariable) {
       builder.setVariable(((ParamLevelVariable) var).getIndex());
+      myMinReference = -1;
     } else {
       throw new IllegalStateException();
     }
@@ -187,8 +201,25 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     return builder.build();
   }
 
+  /**
+   * Writes an expression.
+   * If it neither binds variables nor refers to variables and level parameters bound outside of it,
+   * it does not depend on the context, so it is replaced with a reference to a shared expression.
+   */
   ExpressionProtos.Expression writeExpr(Expression expr) {
-    return expr.accept(this, null);
+    if (mySharedExpressionIndexProvider == null) {
+      return expr.accept(this, null);
+    }
+
+    int index = myIndex;
+    int minReference = myMinReference;
+    myMinReference = Integer.MAX_VALUE;
+    ExpressionProtos.Expression result = expr.accept(this, null);
+    if (myIndex == index && myMinReference >= myThisBindings.size() && result.getKindCase() != ExpressionProtos.Expression.KindCase.SHARED && result.getSerializedSize() >= MIN_SHARED_SIZE) {
+      result = ExpressionProtos.Expression.newBuilder().setShared(mySharedExpressionIndexProvider.getIndex(result)).build();
+    }
+    myMinReference = Math.min(minReference, myMinReference);
+    return result;
   }
 
   ExpressionProtos.Pattern writePattern(Pattern pattern) {
@@ -316,8 +347,8 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitApp(AppExpression expr, Void params) {
     ExpressionProtos.Expression.App.Builder builder = ExpressionProtos.Expression.App.newBuilder();
-    builder.setFunction(expr.getFunction().accept(this, null));
-    builder.setArgument(expr.getArgument().accept(this, null));
+    builder.setFunction(writeExpr(expr.getFunction()));
+    builder.setArgument(writeExpr(expr.getArgument()));
     builder.setIsExplicit(expr.isExplicit());
     return ExpressionProtos.Expression.newBuilder().setApp(builder).build();
   }
@@ -327,7 +358,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setFunRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
     builder.setLevels(writeLevels(expr.getLevels(), expr.getDefinition()));
     for (Expression arg : expr.getDefCallArguments()) {
-      builder.addArgument(arg.accept(this, null));
+      builder.addArgument(writeExpr(arg));
     }
     return builder.build();
   }
@@ -347,7 +378,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
       builder.setRecursiveParam(expr.getDefinition().getRecursiveParameter());
       builder.setLevels(writeLevels(expr.getLevels(), expr.getDefinition()));
       for (Expression arg : expr.getDataTypeArguments()) {
-        builder.addDatatypeArgument(arg.accept(this, null));
+        builder.addDatatypeArgument(writeExpr(arg));
       }
 
       int recursiveParam = expr.getDefinition().getRecursiveParameter();
@@ -362,7 +393,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
           }
         }
         if (i != recursiveParam) {
-          builder.addArgument(arg.accept(this, null));
+          builder.addArgument(writeExpr(arg));
         }
       }
 
@@ -381,7 +412,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setDataRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
     builder.setLevels(writeLevels(expr.getLevels(), expr.getDefinition()));
     for (Expression arg : expr.getDefCallArguments()) {
-      builder.addArgument(arg.accept(this, null));
+      builder.addArgument(writeExpr(arg));
     }
     return ExpressionProtos.Expression.newBuilder().setDataCall(builder).build();
   }
@@ -390,11 +421,15 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     ExpressionProtos.Expression.ClassCall.Builder builder = ExpressionProtos.Expression.ClassCall.newBuilder();
     builder.setClassRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
     builder.setLevels(writeLevels(expr.getLevels(), expr.getDefinition()));
-    registerBinding(expr.getThisBinding());
+    myThisBindings.add(expr.getThisBinding());
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       builder.addFieldImpl(ExpressionProtos.Expression.ClassCall.ImplEntry.newBuilder().setField(myCallTargetIndexProvider.getDefIndex(entry.getKey())).setImpl(writeExpr(entry.getValue())));
     }
+    myThisBindings.remove(myThisBindings.size() - 1);
+    // The sort of a class call is expressed in terms of level parameters of the class
+    int minReference = myMinReference;
     builder.setSort(writeSort(expr.getSort()));
+    myMinReference = minReference;
     builder.setUniverseKind(writeUniverseKind(expr.getUniverseKind()));
     return builder.build();
   }
@@ -418,6 +453,16 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
   @Override
   public ExpressionProtos.Expression visitReference(ReferenceExpression expr, Void params) {
+    // References to \this bindings of class calls are relative, so that class calls do not depend on the context
+    int thisIndex = myThisBindings.lastIndexOf(expr.getBinding());
+    if (thisIndex >= 0) {
+      myMinReference = Math.min(myMinReference, thisIndex);
+      ExpressionProtos.Expression.Reference.Builder builder = ExpressionProtos.Expression.Reference.newBuilder();
+      builder.setThisRef(myThisBindings.size() - thisIndex);
+      return ExpressionProtos.Expression.newBuilder().setReference(builder).build();
+    }
+
+    myMinReference = -1;
     Integer ref = myBindingsMap.get(expr.getBinding());
     if (ref == null) {
       if (!(expr.getBinding() instanceof PersistentEvaluatingBinding)) {
@@ -426,7 +471,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
       registerBinding(expr.getBinding());
       ExpressionProtos.Expression.EvaluatingReference.Builder builder = ExpressionProtos.Expression.EvaluatingReference.newBuilder();
       builder.setName(expr.getBinding().getName());
-      builder.setExpression(((PersistentEvaluatingBinding) expr.getBinding()).getExpression().accept(this, null));
+      builder.setExpression(writeExpr(((PersistentEvaluatingBinding) expr.getBinding()).getExpression()));
       return ExpressionProtos.Expression.newBuilder().setEvaluatingReference(builder).build();
     }
 
@@ -450,7 +495,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     ExpressionProtos.Expression.Lam.Builder builder = ExpressionProtos.Expression.Lam.newBuilder();
     builder.setResultSort(writeSort(expr.getResultSort()));
     builder.setParam(writeSingleParameter(expr.getParameters()));
-    builder.setBody(expr.getBody().accept(this, null));
+    builder.setBody(writeExpr(expr.getBody()));
     return ExpressionProtos.Expression.newBuilder().setLam(builder).build();
   }
 
@@ -458,7 +503,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     ExpressionProtos.Expression.Pi.Builder builder = ExpressionProtos.Expression.Pi.newBuilder();
     builder.setResultSort(LevelProtos.Sort.newBuilder(writeSort(expr.getResultSort())));
     builder.setParam(writeSingleParameter(expr.getParameters()));
-    builder.setCodomain(expr.getCodomain().accept(this, null));
+    builder.setCodomain(writeExpr(expr.getCodomain()));
     return builder.build();
   }
 
@@ -478,7 +523,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitError(ErrorExpression expr, Void params) {
     ExpressionProtos.Expression.Error.Builder builder = ExpressionProtos.Expression.Error.newBuilder();
     if (expr.getExpression() != null && expr.isGoal()) {
-      builder.setExpression(expr.getExpression().accept(this, null));
+      builder.setExpression(writeExpr(expr.getExpression()));
     }
     builder.setIsGoal(expr.isGoal());
     builder.setUseExpression(expr.useExpression());
@@ -489,7 +534,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitTuple(TupleExpression expr, Void params) {
     ExpressionProtos.Expression.Tuple.Builder builder = ExpressionProtos.Expression.Tuple.newBuilder();
     for (Expression field : expr.getFields()) {
-      builder.addField(field.accept(this, null));
+      builder.addField(writeExpr(field));
     }
     builder.setType(writeSigma(expr.getSigmaType()));
     return ExpressionProtos.Expression.newBuilder().setTuple(builder).build();
@@ -511,7 +556,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitProj(ProjExpression expr, Void params) {
     ExpressionProtos.Expression.Proj.Builder builder = ExpressionProtos.Expression.Proj.newBuilder();
-    builder.setExpression(expr.getExpression().accept(this, null));
+    builder.setExpression(writeExpr(expr.getExpression()));
     builder.setField(expr.getField());
     return ExpressionProtos.Expression.newBuilder().setProj(builder).build();
   }
@@ -529,7 +574,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitPEval(PEvalExpression expr, Void params) {
     ExpressionProtos.Expression.PEval.Builder builder = ExpressionProtos.Expression.PEval.newBuilder();
-    builder.setExpression(expr.getExpression().accept(this, null));
+    builder.setExpression(writeExpr(expr.getExpression()));
     return ExpressionProtos.Expression.newBuilder().setPEval(builder).build();
   }
 
@@ -548,7 +593,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
       builder.addClause(letBuilder);
       registerBinding(letClause);
     }
-    builder.setExpression(letExpression.getExpression().accept(this, null));
+    builder.setExpression(writeExpr(letExpression.getExpression()));
     return ExpressionProtos.Expression.newBuilder().setLet(builder).build();
   }
 
@@ -617,9 +662,9 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setLevels(writeLevels(expr.getLevels(), expr.getDefinition()));
     builder.setClauseIndex(expr.getClauseIndex());
     for (Expression arg : expr.getClauseArguments()) {
-      builder.addClauseArgument(arg.accept(this, null));
+      builder.addClauseArgument(writeExpr(arg));
     }
-    builder.setArgument(expr.getArgument().accept(this, null));
+    builder.setArgument(writeExpr(expr.getArgument()));
     return ExpressionProtos.Expression.newBuilder().setTypeConstructor(builder.build()).build();
   }
 
@@ -627,7 +672,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitTypeDestructor(TypeDestructorExpression expr, Void params) {
     ExpressionProtos.Expression.TypeDestructor.Builder builder = ExpressionProtos.Expression.TypeDestructor.newBuilder();
     builder.setFunRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
-    builder.setArgument(expr.getArgument().accept(this, null));
+    builder.setArgument(writeExpr(expr.getArgument()));
     return ExpressionProtos.Expression.newBuilder().setTypeDestructor(builder.build()).build();
   }
 
@@ -670,7 +715,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitFieldCall(FieldCallExpression expr, Void params) {
     ExpressionProtos.Expression.FieldCall.Builder builder = ExpressionProtos.Expression.FieldCall.newBuilder();
     builder.setFieldRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
-    builder.setExpression(expr.getArgument().accept(this, null));
+    builder.setExpression(writeExpr(expr.getArgument()));
     return ExpressionProtos.Expression.newBuilder().setFieldCall(builder).build();
   }
 }
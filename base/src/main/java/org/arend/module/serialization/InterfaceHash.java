@@ -0,0 +1,99 @@
+package org.arend.module.serialization;
+
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.Definition;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.*;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.util.ContentHash;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes hashes of interfaces of modules.
+ * The interface of a module consists of its group structure and typechecked definitions except for bodies of lemmas,
+ * that is, of everything that can be observed by modules which depend on it.
+ */
+public class InterfaceHash {
+  private static final int NOT_TYPECHECKED = 0;
+  private static final int TYPECHECKED = 1;
+
+  private InterfaceHash() {}
+
+  public static byte[] compute(Group group, ReferableConverter referableConverter) {
+    MessageDigest digest = ContentHash.newDigest();
+    updateGroup(digest, group, referableConverter);
+    return digest.digest();
+  }
+
+  private static void updateInt(MessageDigest digest, int value) {
+    digest.update((byte) (value >>> 24));
+    digest.update((byte) (value >>> 16));
+    digest.update((byte) (value >>> 8));
+    digest.update((byte) value);
+  }
+
+  private static void updateBytes(MessageDigest digest, byte[] bytes) {
+    updateInt(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void updateString(MessageDigest digest, String string) {
+    updateBytes(digest, string.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void updateGroup(MessageDigest digest, Group group, ReferableConverter referableConverter) {
+    LocatedReferable referable = group.getReferable();
+    updateString(digest, referable instanceof ModuleReferable ? ((ModuleReferable) referable).path.getLastName() : referable.textRepresentation());
+    updateBytes(digest, DefinitionSerialization.writePrecedence(referable.getPrecedence()).toByteArray());
+
+    TCReferable tcReferable = referableConverter.toDataLocatedReferable(referable);
+    Definition typechecked = tcReferable instanceof TCDefReferable ? ((TCDefReferable) tcReferable).getTypechecked() : null;
+    if (typechecked != null && typechecked.status().withoutErrors()) {
+      updateInt(digest, TYPECHECKED);
+      if (!(typechecked instanceof Constructor || typechecked instanceof ClassField)) {
+        updateDefinition(digest, typechecked);
+      }
+    } else {
+      updateInt(digest, NOT_TYPECHECKED);
+    }
+
+    updateInt(digest, group.getSubgroups().size());
+    for (Group subgroup : group.getSubgroups()) {
+      updateGroup(digest, subgroup, referableConverter);
+    }
+    updateInt(digest, group.getDynamicSubgroups().size());
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      updateGroup(digest, subgroup, referableConverter);
+    }
+  }
+
+  private static void updateDefinition(MessageDigest digest, Definition definition) {
+    SimpleCallTargetIndexProvider indexProvider = new SimpleCallTargetIndexProvider();
+    indexProvider.getDefIndex(definition);
+    DefinitionProtos.Definition proto = new DefinitionSerialization(indexProvider, DummyDependencyListener.INSTANCE, true).writeDefinition(definition);
+    updateBytes(digest, DefinitionSerialization.toDeterministicByteString(proto).toByteArray());
+
+    // Indices in the serialized definition refer to call targets, so we identify them by their full names
+    for (Map.Entry<Object, Integer> entry : indexProvider.getCallTargets()) {
+      if (entry.getKey() instanceof TCReferable) {
+        List<String> longName = new ArrayList<>();
+        ModuleLocation location = LocatedReferable.Helper.getLocation((TCReferable) entry.getKey(), longName);
+        updateString(digest, location == null ? "" : location.getModulePath().toString());
+        updateInt(digest, longName.size());
+        for (String name : longName) {
+          updateString(digest, name);
+        }
+      } else {
+        updateInt(digest, -1);
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@ package org.arend.module.serialization;
 import org.arend.core.context.binding.FieldLevelVariable;
 import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.definition.*;
+import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.ext.reference.Precedence;
 import org.arend.ext.serialization.DeserializationException;
@@ -42,7 +43,7 @@ public class ModuleDeserialization {
     return myModuleProto;
   }
 
-  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
+  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener, ErrorReporter errorReporter) throws DeserializationException {
     if (myModuleProto.getVersion() != ModuleSerialization.VERSION) {
       throw new DeserializationException("Version mismatch");
     }
@@ -59,7 +60,8 @@ public class ModuleDeserialization {
       }
     }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener);
+    SharedExpressionProvider sharedExpressionProvider = new SharedExpressionProvider(myModuleProto.getSharedExpressionList());
+    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, sharedExpressionProvider, dependencyListener, myKeyRegistry, myDefinitionListener, errorReporter);
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
       defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
     }
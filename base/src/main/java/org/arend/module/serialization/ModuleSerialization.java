@@ -1,5 +1,6 @@
 package org.arend.module.serialization;
 
+import com.google.protobuf.ByteString;
 import org.arend.core.definition.ClassField;
 import org.arend.core.definition.Constructor;
 import org.arend.core.definition.Definition;
@@ -13,29 +14,52 @@ import org.arend.term.group.Group;
 import org.arend.typechecking.order.dependency.DependencyListener;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class ModuleSerialization {
   private final ErrorReporter myErrorReporter;
   private final SimpleCallTargetIndexProvider myCallTargetIndexProvider = new SimpleCallTargetIndexProvider();
+  private final SharedExpressionIndexProvider mySharedExpressionIndexProvider = new SharedExpressionIndexProvider();
   private final DefinitionSerialization myDefinitionSerialization;
   private final Set<Integer> myCurrentDefinitions = new HashSet<>();
   private boolean myComplete;
 
-  static final int VERSION = 10;
+  static final int VERSION = 13;
 
   public ModuleSerialization(ErrorReporter errorReporter, DependencyListener dependencyListener) {
+    this(errorReporter, dependencyListener, true);
+  }
+
+  /**
+   * @param shareExpressions  if false, context-independent expressions are written in place instead of being shared between definitions.
+   *                          Such modules can be read as usual; this is used to measure the effect of sharing.
+   */
+  public ModuleSerialization(ErrorReporter errorReporter, DependencyListener dependencyListener, boolean shareExpressions) {
     myErrorReporter = errorReporter;
-    myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, dependencyListener);
+    myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, dependencyListener, false, shareExpressions ? mySharedExpressionIndexProvider : null);
   }
 
   public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
+    return writeModule(group, modulePath, referableConverter, null, null);
+  }
+
+  /**
+   * @param sourceHash      the hash of the raw source from which the module was loaded, or null if it is unknown.
+   * @param interfaceHashes computes interface hashes of dependencies (see {@link InterfaceHash}), which are written with call targets.
+   *                        It may return null if a hash is not available.
+   */
+  public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter, byte[] sourceHash, Function<ModulePath, byte[]> interfaceHashes) {
     ModuleProtos.Module.Builder out = ModuleProtos.Module.newBuilder();
+    if (sourceHash != null) {
+      out.setSourceHash(ByteString.copyFrom(sourceHash));
+    }
 
     // Serialize the group structure first in order to populate the call target tree
     myComplete = true;
     out.setVersion(VERSION);
     out.setGroup(writeGroup(group, referableConverter));
     out.setComplete(myComplete);
+    out.addAllSharedExpression(mySharedExpressionIndexProvider.getExpressions());
 
     // Now write the call target tree
     Map<ModulePath, Map<String, CallTargetTree>> moduleCallTargets = new HashMap<>();
@@ -65,6 +89,10 @@ public class ModuleSerialization {
     for (Map.Entry<ModulePath, Map<String, CallTargetTree>> entry : moduleCallTargets.entrySet()) {
       ModuleProtos.ModuleCallTargets.Builder builder = ModuleProtos.ModuleCallTargets.newBuilder();
       builder.addAllName(entry.getKey().toList());
+      byte[] interfaceHash = interfaceHashes == null ? null : interfaceHashes.apply(entry.getKey());
+      if (interfaceHash != null) {
+        builder.setInterfaceHash(ByteString.copyFrom(interfaceHash));
+      }
       for (Map.Entry<String, CallTargetTree> treeEntry : entry.getValue().entrySet()) {
         builder.addCallTargetTree(writeCallTargetTree(treeEntry.getKey(), treeEntry.getValue()));
       }
@@ -0,0 +1,49 @@
+package org.arend.module.serialization;
+
+import org.arend.core.context.binding.FieldLevelVariable;
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Records indices of definitions requested while recording is active.
+ */
+class RecordingCallTargetIndexProvider implements CallTargetIndexProvider {
+  private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private Set<Integer> myRecorded;
+
+  RecordingCallTargetIndexProvider(CallTargetIndexProvider callTargetIndexProvider) {
+    myCallTargetIndexProvider = callTargetIndexProvider;
+  }
+
+  void startRecording() {
+    myRecorded = new LinkedHashSet<>();
+  }
+
+  Set<Integer> stopRecording() {
+    Set<Integer> result = myRecorded;
+    myRecorded = null;
+    return result;
+  }
+
+  @Override
+  public int getDefIndex(Definition definition) {
+    int index = myCallTargetIndexProvider.getDefIndex(definition);
+    if (myRecorded != null) {
+      myRecorded.add(index);
+    }
+    return index;
+  }
+
+  @Override
+  public int getDefIndex(TCReferable definition) {
+    return myCallTargetIndexProvider.getDefIndex(definition);
+  }
+
+  @Override
+  public int getDefIndex(FieldLevelVariable.LevelField levelField) {
+    return myCallTargetIndexProvider.getDefIndex(levelField);
+  }
+}
@@ -0,0 +1,26 @@
+package org.arend.module.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects expressions which are shared between all definitions of a module.
+ * Equal expressions get the same index, and an expression may refer only to expressions with smaller indices.
+ */
+class SharedExpressionIndexProvider {
+  private final Map<ExpressionProtos.Expression, Integer> myIndices = new HashMap<>();
+  private final List<ExpressionProtos.Expression> myExpressions = new ArrayList<>();
+
+  int getIndex(ExpressionProtos.Expression expression) {
+    return myIndices.computeIfAbsent(expression, k -> {
+      myExpressions.add(k);
+      return myExpressions.size() - 1;
+    });
+  }
+
+  List<ExpressionProtos.Expression> getExpressions() {
+    return myExpressions;
+  }
+}
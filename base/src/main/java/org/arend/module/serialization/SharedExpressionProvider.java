@@ -0,0 +1,52 @@
+package org.arend.module.serialization;
+
+import org.arend.core.expr.Expression;
+import org.arend.ext.serialization.DeserializationException;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides expressions shared between definitions of a module.
+ * Every shared expression is read once, so definitions which refer to it share the same object.
+ */
+class SharedExpressionProvider {
+  static final SharedExpressionProvider EMPTY = new SharedExpressionProvider(Collections.emptyList());
+
+  private final List<ExpressionProtos.Expression> myProtos;
+  private final Entry[] myEntries;
+
+  static class Entry {
+    final Expression expression;
+    final Collection<? extends TCReferable> dependencies;
+
+    Entry(Expression expression, Collection<? extends TCReferable> dependencies) {
+      this.expression = expression;
+      this.dependencies = dependencies;
+    }
+  }
+
+  SharedExpressionProvider(List<ExpressionProtos.Expression> protos) {
+    myProtos = protos;
+    myEntries = new Entry[protos.size()];
+  }
+
+  ExpressionProtos.Expression getProto(int index) throws DeserializationException {
+    if (index < 0 || index >= myProtos.size()) {
+      throw new DeserializationException("Wrong shared expression index");
+    }
+    return myProtos.get(index);
+  }
+
+  Entry getEntry(int index) {
+    return myEntries[index];
+  }
+
+  Entry putEntry(int index, Expression expression, Collection<? extends TCReferable> dependencies) {
+    Entry entry = new Entry(expression, dependencies);
+    myEntries[index] = entry;
+    return entry;
+  }
+}
@@ -58,7 +58,10 @@ public class ConcreteClassReferable extends ConcreteResolvedClassReferable imple
     return superClasses;
   }
 
-  protected void resolve() {
+  /**
+   * Modules which import the same class can be resolved concurrently, so super classes are resolved under the lock of this referable.
+   */
+  protected synchronized void resolve() {
     if (!myResolved) {
       ChildGroup parent = myGroup.getParentGroup();
       resolve(CachingScope.make(parent == null ? ScopeFactory.forGroup(myGroup, EmptyModuleScopeProvider.INSTANCE) : LexicalScope.insideOf(myGroup, parent.getGroupScope(), LexicalScope.Extent.ONLY_EXTERNAL)));
@@ -66,7 +69,7 @@ public class ConcreteClassReferable extends ConcreteResolvedClassReferable imple
     }
   }
 
-  protected void resolve(Scope scope) {
+  protected synchronized void resolve(Scope scope) {
     superClasses.clear();
     for (Reference superClass : myUnresolvedSuperClasses) {
       Referable ref = ExpressionResolveNameVisitor.resolve(superClass.getReferent(), scope, true, null);
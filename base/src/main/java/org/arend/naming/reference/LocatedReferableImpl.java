@@ -3,6 +3,7 @@ package org.arend.naming.reference;
 import org.arend.core.definition.Definition;
 import org.arend.ext.reference.Precedence;
 import org.arend.module.ModuleLocation;
+import org.arend.typechecking.instance.provider.SimpleInstanceProvider;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -47,6 +48,9 @@ public class LocatedReferableImpl implements TCDefReferable {
 
   @Override
   public void setTypechecked(Definition definition) {
+    if (myKind == Kind.INSTANCE && myTypechecked != definition) {
+      SimpleInstanceProvider.instanceUpdated();
+    }
     myTypechecked = definition;
   }
 
@@ -6,14 +6,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CachingScope implements Scope {
   private final Map<String, Referable> myElements = new LinkedHashMap<>();
-  private final Map<String, Scope> myNamespaces = new HashMap<>();
-  private final Map<String, Scope> myOnlyInternalNamespaces = new HashMap<>();
+  // Namespaces are cached lazily, possibly by several threads which resolve modules concurrently
+  private final Map<String, Scope> myNamespaces = new ConcurrentHashMap<>();
+  private final Map<String, Scope> myOnlyInternalNamespaces = new ConcurrentHashMap<>();
   private final Scope myScope;
   private final static Scope EMPTY_SCOPE = new Scope() {};
   private final boolean myWithModules;
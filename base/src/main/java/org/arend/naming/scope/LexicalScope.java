@@ -11,9 +11,7 @@ import org.arend.term.group.Group;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 @SuppressWarnings("Duplicates")
 public class LexicalScope implements Scope {
@@ -22,6 +20,7 @@ public class LexicalScope implements Scope {
   private final ModulePath myModule;
   private final Kind myKind;
   private final Extent myExtent;
+  private volatile Index myIndex;
 
   private enum Kind { INSIDE, OPENED, OPENED_INTERNAL }
 
@@ -129,94 +128,101 @@ public class LexicalScope implements Scope {
     return elements;
   }
 
-  private static GlobalReferable resolveInternal(Group group, String name, boolean onlyInternal) {
+  /**
+   * Maps names defined in the group to the results of resolution, so that lookups do not iterate over all definitions.
+   * Namespaces of namespace commands are resolved once, and commands which open only some names are indexed by these names.
+   * The index is computed lazily on the first lookup.
+   */
+  private static class Index {
+    final Map<String, Object> references = new HashMap<>();
+    final Map<String, Group> namespaces = new HashMap<>();
+    final boolean resolveClassFields;
+    volatile CommandIndex commandIndex;
+
+    Index(boolean resolveClassFields) {
+      this.resolveClassFields = resolveClassFields;
+    }
+  }
+
+  private static class CommandIndex {
+    final List<Scope> scopes = new ArrayList<>();
+    final List<Integer> openEverything = new ArrayList<>();
+    final Map<String, List<Integer>> byName = new HashMap<>();
+  }
+
+  private static void addReference(String name, Object result, Map<String, Object> references) {
+    if (name != null && !name.isEmpty() && !"_".equals(name)) {
+      references.putIfAbsent(name, result);
+    }
+  }
+
+  private static void addGlobalReference(GlobalReferable referable, Map<String, Object> references) {
+    addReference(referable.textRepresentation(), referable, references);
+    String alias = referable.getAliasName();
+    if (alias != null) {
+      addReference(alias, new AliasReferable(referable), references);
+    }
+  }
+
+  private static void addInternal(Group group, boolean onlyInternal, Map<String, Object> references) {
     for (Group.InternalReferable internalReferable : group.getConstructors()) {
       if (!onlyInternal || internalReferable.isVisible()) {
-        GlobalReferable constructor = internalReferable.getReferable();
-        if (constructor.textRepresentation().equals(name)) {
-          return constructor;
-        }
-        String alias = constructor.getAliasName();
-        if (alias != null && alias.equals(name)) {
-          return new AliasReferable(constructor);
-        }
+        addGlobalReference(internalReferable.getReferable(), references);
       }
     }
-
     if (onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
       for (Group.InternalReferable internalReferable : group.getFields()) {
         if (!onlyInternal || internalReferable.isVisible()) {
-          GlobalReferable field = internalReferable.getReferable();
-          if (field.textRepresentation().equals(name)) {
-            return field;
-          }
-          String alias = field.getAliasName();
-          if (alias != null && alias.equals(name)) {
-            return new AliasReferable(field);
-          }
+          addGlobalReference(internalReferable.getReferable(), references);
         }
       }
-    } else {
-      Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), ClassFieldImplScope.Extent.WITH_SUPER_DYNAMIC).resolveName(name);
-      return referable instanceof GlobalReferable ? (GlobalReferable) referable : null;
     }
-
-    return null;
   }
 
-  private static Object resolveSubgroup(Group group, String name, ResolveType resolveType) {
-    GlobalReferable ref = group.getReferable();
-    boolean match = ref.textRepresentation().equals(name);
-    if (!match) {
+  private static void addSubgroups(Collection<? extends Group> subgroups, Index index) {
+    for (Group subgroup : subgroups) {
+      GlobalReferable ref = subgroup.getReferable();
+      addGlobalReference(ref, index.references);
+      String name = ref.textRepresentation();
+      if (name != null && !name.isEmpty()) {
+        index.namespaces.putIfAbsent(name, subgroup);
+      }
       String alias = ref.getAliasName();
-      if (alias != null && alias.equals(name)) {
-        if (resolveType == ResolveType.REF) {
-          return new AliasReferable(ref);
-        }
-        match = true;
+      if (alias != null && !alias.isEmpty()) {
+        index.namespaces.putIfAbsent(alias, subgroup);
       }
+      addInternal(subgroup, true, index.references);
     }
-    if (match) {
-      return resolveType == ResolveType.REF ? ref : LexicalScope.opened(group, resolveType == ResolveType.INTERNAL_SCOPE);
-    }
-
-    if (resolveType == ResolveType.REF) {
-      return resolveInternal(group, name, true);
-    }
-
-    return null;
   }
 
-  private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
-
-  private Object resolve(String name, ResolveType resolveType) {
-    if (name == null || name.isEmpty() || "_".equals(name)) {
-      return null;
+  private Index getIndex() {
+    Index index = myIndex;
+    if (index != null) {
+      return index;
     }
 
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
-      }
-    }
+    boolean onlyInternal = myKind == Kind.OPENED_INTERNAL;
+    index = new Index(myExtent != Extent.ONLY_EXTERNAL && !onlyInternal && myGroup.getReferable() instanceof ClassReferable);
+    addSubgroups(myGroup.getSubgroups(), index);
     if (myExtent == Extent.EVERYTHING) {
-      for (Group subgroup : myGroup.getDynamicSubgroups()) {
-        Object result = resolveSubgroup(subgroup, name, resolveType);
-        if (result != null) {
-          return result;
-        }
-      }
+      addSubgroups(myGroup.getDynamicSubgroups(), index);
+    }
+    if (myExtent != Extent.ONLY_EXTERNAL) {
+      addInternal(myGroup, onlyInternal, index.references);
     }
 
-    if (resolveType == ResolveType.REF && myExtent != Extent.ONLY_EXTERNAL) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
-      if (result != null) {
-        return result;
-      }
+    myIndex = index;
+    return index;
+  }
+
+  private CommandIndex getCommandIndex(Index index) {
+    CommandIndex commandIndex = index.commandIndex;
+    if (commandIndex != null) {
+      return commandIndex;
     }
 
-    Scope cachingScope = null;
+    commandIndex = new CommandIndex();
+    Scope openedScope = null;
     for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
       if (ignoreOpens() && cmd.getKind() == NamespaceCommand.Kind.OPEN) {
         continue;
@@ -229,20 +235,76 @@ public class LexicalScope implements Scope {
         }
         scope = getImportedSubscope();
       } else {
-        if (cachingScope == null) {
-          cachingScope = CachingScope.make(new LexicalScope(myParent, myGroup, null, Kind.OPENED, myExtent));
+        if (openedScope == null) {
+          openedScope = new LexicalScope(myParent, myGroup, null, Kind.OPENED, myExtent);
         }
-        scope = cachingScope;
+        scope = openedScope;
       }
 
       scope = NamespaceCommandNamespace.resolveNamespace(scope, cmd);
-      Object result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
+      if (scope == EmptyScope.INSTANCE) {
+        continue;
+      }
+
+      int i = commandIndex.scopes.size();
+      commandIndex.scopes.add(scope);
+      Set<String> names = scope instanceof NamespaceCommandNamespace ? ((NamespaceCommandNamespace) scope).getOpenedNames() : null;
+      if (names == null) {
+        commandIndex.openEverything.add(i);
+      } else {
+        for (String name : names) {
+          commandIndex.byName.computeIfAbsent(name, k -> new ArrayList<>(1)).add(i);
+        }
+      }
+    }
+
+    index.commandIndex = commandIndex;
+    return commandIndex;
+  }
+
+  private static Object resolveInScope(Scope scope, String name, ResolveType resolveType) {
+    return resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
+  }
+
+  private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
+
+  private Object resolve(String name, ResolveType resolveType) {
+    if (name == null || name.isEmpty() || "_".equals(name)) {
+      return null;
+    }
+
+    Index index = getIndex();
+    if (resolveType == ResolveType.REF) {
+      Object result = index.references.get(name);
+      if (result != null) {
+        return result;
+      }
+      if (index.resolveClassFields) {
+        Referable referable = new ClassFieldImplScope((ClassReferable) myGroup.getReferable(), ClassFieldImplScope.Extent.WITH_SUPER_DYNAMIC).resolveName(name);
+        if (referable instanceof GlobalReferable) {
+          return referable;
+        }
+      }
+    } else {
+      Group subgroup = index.namespaces.get(name);
+      if (subgroup != null) {
+        return LexicalScope.opened(subgroup, resolveType == ResolveType.INTERNAL_SCOPE);
+      }
+    }
+
+    // Commands are checked in the order in which they are declared
+    CommandIndex commandIndex = getCommandIndex(index);
+    List<Integer> named = commandIndex.byName.getOrDefault(name, Collections.emptyList());
+    List<Integer> everything = commandIndex.openEverything;
+    for (int i = 0, j = 0; i < named.size() || j < everything.size(); ) {
+      int next = j >= everything.size() || i < named.size() && named.get(i) < everything.get(j) ? named.get(i++) : everything.get(j++);
+      Object result = resolveInScope(commandIndex.scopes.get(next), name, resolveType);
       if (result != null) {
         return result;
       }
     }
 
-    return resolveType == ResolveType.REF ? myParent.resolveName(name) : myParent.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
+    return resolveInScope(myParent, name, resolveType);
   }
 
   @Nullable
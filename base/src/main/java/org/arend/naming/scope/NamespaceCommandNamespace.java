@@ -12,6 +12,17 @@ import java.util.*;
 public class NamespaceCommandNamespace implements Scope {
   private final Scope myModuleNamespace;
   private final NamespaceCommand myNamespaceCommand;
+  private volatile Index myIndex;
+
+  /**
+   * Names affected by the command.
+   * It is computed lazily since hidden and renamed references must be resolved in the namespace.
+   */
+  private static class Index {
+    final Set<String> hidden = new HashSet<>();
+    final Map<String, NameRenaming> renamings = new HashMap<>();
+    final Set<String> hiddenByUsing = new HashSet<>();
+  }
 
   private NamespaceCommandNamespace(Scope moduleNamespace, NamespaceCommand namespaceCommand) {
     myNamespaceCommand = namespaceCommand;
@@ -88,37 +99,57 @@ public class NamespaceCommandNamespace implements Scope {
     return elements;
   }
 
-  private boolean isHidden(String name) {
+  private Index getIndex() {
+    Index index = myIndex;
+    if (index != null) {
+      return index;
+    }
+
+    index = new Index();
     for (Referable hiddenRef : myNamespaceCommand.getHiddenReferences()) {
       Referable oldRef = ExpressionResolveNameVisitor.resolve(hiddenRef, myModuleNamespace);
-      if (oldRef.getRefName().equals(name)) {
-        return true;
-      }
+      index.hidden.add(oldRef.getRefName());
       String alias = oldRef instanceof GlobalReferable ? ((GlobalReferable) oldRef).getAliasName() : null;
-      if (alias != null && alias.equals(name)) {
-        return true;
+      if (alias != null) {
+        index.hidden.add(alias);
       }
     }
-    return false;
-  }
-
-  private boolean isHiddenByUsing(String name) {
-    if (!myNamespaceCommand.isUsing()) {
-      return true;
-    }
 
     for (NameRenaming renaming : myNamespaceCommand.getOpenedReferences()) {
+      String newName = renaming.getName();
       Referable oldRef = ExpressionResolveNameVisitor.resolve(renaming.getOldReference(), myModuleNamespace);
-      if (oldRef.textRepresentation().equals(name)) {
-        return true;
-      }
       String alias = oldRef instanceof GlobalReferable ? ((GlobalReferable) oldRef).getAliasName() : null;
-      if (alias != null && alias.equals(name)) {
-        return true;
+      if (newName != null) {
+        index.renamings.putIfAbsent(newName, renaming);
+      } else {
+        index.renamings.putIfAbsent(oldRef.getRefName(), renaming);
+        if (alias != null) {
+          index.renamings.putIfAbsent(alias, renaming);
+        }
+      }
+      index.hiddenByUsing.add(oldRef.textRepresentation());
+      if (alias != null) {
+        index.hiddenByUsing.add(alias);
       }
     }
 
-    return false;
+    myIndex = index;
+    return index;
+  }
+
+  /**
+   * @return the names which can be resolved in this namespace, or null if the command opens every element of the namespace.
+   */
+  public @Nullable Set<String> getOpenedNames() {
+    return myNamespaceCommand.isUsing() ? null : getIndex().renamings.keySet();
+  }
+
+  private boolean isHidden(String name) {
+    return getIndex().hidden.contains(name);
+  }
+
+  private boolean isHiddenByUsing(String name) {
+    return !myNamespaceCommand.isUsing() || getIndex().hiddenByUsing.contains(name);
   }
 
   @Nullable
@@ -128,25 +159,11 @@ public class NamespaceCommandNamespace implements Scope {
       return null;
     }
 
-    Collection<? extends NameRenaming> opened = myNamespaceCommand.getOpenedReferences();
-    for (NameRenaming renaming : opened) {
+    NameRenaming renaming = getIndex().renamings.get(name);
+    if (renaming != null) {
       String newName = renaming.getName();
-      Referable oldRef = renaming.getOldReference();
-      boolean ok;
-      if (newName != null) {
-        ok = newName.equals(name);
-      } else {
-        oldRef = ExpressionResolveNameVisitor.resolve(oldRef, myModuleNamespace);
-        ok = oldRef.getRefName().equals(name);
-        if (!ok) {
-          String alias = oldRef instanceof GlobalReferable ? ((GlobalReferable) oldRef).getAliasName() : null;
-          ok = alias != null && alias.equals(name);
-        }
-      }
-      if (ok) {
-        oldRef = ExpressionResolveNameVisitor.resolve(oldRef, myModuleNamespace);
-        return oldRef == null || oldRef instanceof ErrorReference ? null : newName != null ? new RedirectingReferableImpl(oldRef, renaming.getPrecedence(), newName) : oldRef;
-      }
+      Referable oldRef = ExpressionResolveNameVisitor.resolve(renaming.getOldReference(), myModuleNamespace);
+      return oldRef == null || oldRef instanceof ErrorReference ? null : newName != null ? new RedirectingReferableImpl(oldRef, renaming.getPrecedence(), newName) : oldRef;
     }
 
     return isHiddenByUsing(name) ? null : myModuleNamespace.resolveName(name);
@@ -159,24 +176,13 @@ public class NamespaceCommandNamespace implements Scope {
       return null;
     }
 
-    Collection<? extends NameRenaming> opened = myNamespaceCommand.getOpenedReferences();
-    for (NameRenaming renaming : opened) {
-      String newName = renaming.getName();
+    NameRenaming renaming = getIndex().renamings.get(name);
+    if (renaming != null) {
       Referable oldRef = renaming.getOldReference();
-      boolean ok;
-      if (newName != null) {
-        ok = newName.equals(name);
-      } else {
+      if (renaming.getName() == null) {
         oldRef = ExpressionResolveNameVisitor.resolve(oldRef, myModuleNamespace);
-        ok = oldRef.getRefName().equals(name);
-        if (!ok) {
-          String alias = oldRef instanceof GlobalReferable ? ((GlobalReferable) oldRef).getAliasName() : null;
-          ok = alias != null && alias.equals(name);
-        }
-      }
-      if (ok) {
-        return myModuleNamespace.resolveNamespace(oldRef.getRefName(), onlyInternal);
       }
+      return myModuleNamespace.resolveNamespace(oldRef.getRefName(), onlyInternal);
     }
 
     return isHiddenByUsing(name) ? null : myModuleNamespace.resolveNamespace(name, onlyInternal);
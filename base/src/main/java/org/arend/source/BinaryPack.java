@@ -0,0 +1,219 @@
+package org.arend.source;
+
+import com.google.protobuf.CodedInputStream;
+import org.arend.ext.module.ModulePath;
+import org.arend.module.serialization.ModuleProtos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A single file which contains binaries of all modules of a library.
+ * The file starts with a directory of modules and offsets of their data, so it can be memory-mapped and modules can be parsed independently.
+ */
+public class BinaryPack {
+  public static final String FILE_NAME = "lib.arcpack";
+
+  private static final int MAGIC = 0x41524350;
+  private static final int VERSION = 1;
+
+  private final long myTimeStamp;
+  private final Map<ModulePath, Entry> myEntries;
+
+  private static class Entry {
+    final ByteBuffer data;
+    volatile ModuleProtos.Module module;
+
+    Entry(ByteBuffer data) {
+      this.data = data;
+    }
+  }
+
+  private BinaryPack(long timeStamp, Map<ModulePath, Entry> entries) {
+    myTimeStamp = timeStamp;
+    myEntries = entries;
+  }
+
+  /**
+   * Maps a pack into memory.
+   *
+   * @return the pack or null if it was written in a different format.
+   */
+  public static @Nullable BinaryPack open(Path file) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+
+      int size = buffer.getInt();
+      Map<ModulePath, Entry> entries = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        int length = buffer.getInt();
+        List<String> names = new ArrayList<>(length);
+        for (int j = 0; j < length; j++) {
+          byte[] bytes = new byte[buffer.getInt()];
+          buffer.get(bytes);
+          names.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        int offset = buffer.getInt();
+        int dataLength = buffer.getInt();
+        if (offset < 0 || dataLength < 0 || offset > buffer.limit() - dataLength) {
+          throw new IOException("Corrupted binary pack " + file);
+        }
+        entries.put(new ModulePath(names), new Entry(buffer.duplicate().position(offset).limit(offset + dataLength).slice()));
+      }
+      return new BinaryPack(Files.getLastModifiedTime(file).toMillis(), entries);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Corrupted binary pack " + file, e);
+    }
+  }
+
+  /**
+   * Writes binaries of given sources into a pack.
+   * The pack is written to a temporary file first, so that packs which are already mapped are not affected.
+   *
+   * @return the number of modules in the pack.
+   */
+  public static int write(Path file, Collection<? extends StreamBinarySource> sources) throws IOException {
+    List<ModulePath> modules = new ArrayList<>(sources.size());
+    List<byte[]> data = new ArrayList<>(sources.size());
+    for (StreamBinarySource source : sources) {
+      if (!source.isAvailable()) {
+        continue;
+      }
+      try (InputStream stream = source.getInputStream()) {
+        if (stream != null) {
+          modules.add(source.getModulePath());
+          data.add(stream.readAllBytes());
+        }
+      }
+    }
+
+    ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+    DataOutputStream directory = new DataOutputStream(directoryBytes);
+    int headerSize = 3 * Integer.BYTES;
+    for (ModulePath module : modules) {
+      headerSize += 3 * Integer.BYTES;
+      for (String name : module.toList()) {
+        headerSize += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+
+    int offset = headerSize;
+    for (int i = 0; i < modules.size(); i++) {
+      List<String> names = modules.get(i).toList();
+      directory.writeInt(names.size());
+      for (String name : names) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        directory.writeInt(bytes.length);
+        directory.write(bytes);
+      }
+      directory.writeInt(offset);
+      directory.writeInt(data.get(i).length);
+      offset += data.get(i).length;
+      if (offset < 0) {
+        throw new IOException("Binaries are too large to be packed");
+      }
+    }
+
+    Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(modules.size());
+      directoryBytes.writeTo(output);
+      for (byte[] bytes : data) {
+        output.write(bytes);
+      }
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return modules.size();
+  }
+
+  public long getTimeStamp() {
+    return myTimeStamp;
+  }
+
+  public boolean contains(ModulePath modulePath) {
+    return myEntries.containsKey(modulePath);
+  }
+
+  public @NotNull Collection<? extends ModulePath> getModules() {
+    return myEntries.keySet();
+  }
+
+  private static ModuleProtos.Module parse(ByteBuffer data) throws IOException {
+    // Aliasing lets byte fields, such as lazily decoded bodies, refer to the mapped file instead of being copied
+    CodedInputStream input = CodedInputStream.newInstance(data.duplicate());
+    input.enableAliasing(true);
+    input.setRecursionLimit(Integer.MAX_VALUE);
+    return ModuleProtos.Module.parseFrom(input);
+  }
+
+  /**
+   * Parses all modules in parallel.
+   * Modules which cannot be parsed are skipped; the error is reported when such a module is requested.
+   */
+  public void parseAll(int parallelism) {
+    List<Callable<Void>> tasks = new ArrayList<>(myEntries.size());
+    for (Entry entry : myEntries.values()) {
+      tasks.add(() -> {
+        if (entry.module == null) {
+          try {
+            entry.module = parse(entry.data);
+          } catch (IOException ignored) {}
+        }
+        return null;
+      });
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invokeAll(tasks);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns a module of the pack.
+   * The module is parsed if it was not parsed in advance.
+   *
+   * @return the module or null if the pack does not contain it.
+   */
+  public @Nullable ModuleProtos.Module getModule(ModulePath modulePath) throws IOException {
+    Entry entry = myEntries.get(modulePath);
+    if (entry == null) {
+      return null;
+    }
+
+    ModuleProtos.Module module = entry.module;
+    return module != null ? module : parse(entry.data);
+  }
+
+  /**
+   * Forgets modules parsed in advance, so that the pack does not keep them in memory after the library is loaded.
+   */
+  public void releaseParsedModules() {
+    for (Entry entry : myEntries.values()) {
+      entry.module = null;
+    }
+  }
+}
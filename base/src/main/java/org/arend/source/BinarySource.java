@@ -1,7 +1,14 @@
 package org.arend.source;
 
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.SerializableKeyRegistryImpl;
+import org.arend.library.SourceLibrary;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.term.group.ChildGroup;
+
+import java.util.function.Function;
 
 /**
  * Represents a module persisted in a binary format.
@@ -10,4 +17,20 @@ public interface BinarySource extends Source {
   void setKeyRegistry(SerializableKeyRegistryImpl keyRegistry);
 
   void setDefinitionListener(DefinitionListener definitionListener);
+
+  /**
+   * Loads definitions of a module whose dependencies were changed into its raw group
+   * if interfaces of these dependencies are the same as when the binary was persisted.
+   *
+   * @param library             the library to which this source belongs.
+   * @param group               the raw group of the module.
+   * @param moduleScopeProvider a module scope provider.
+   * @param interfaceHashes     computes current interface hashes of modules of the library.
+   * @param errorReporter       reports errors that occur when definitions of the module are read later.
+   *
+   * @return true if the binary was loaded, false otherwise.
+   */
+  default boolean loadIfInterfacesMatch(SourceLibrary library, ChildGroup group, ModuleScopeProvider moduleScopeProvider, Function<ModulePath, byte[]> interfaceHashes, ErrorReporter errorReporter) {
+    return false;
+  }
 }
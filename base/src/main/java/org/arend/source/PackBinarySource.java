@@ -0,0 +1,59 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.arend.module.serialization.ModuleProtos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Represents a binary module stored in a {@link BinaryPack}.
+ */
+public class PackBinarySource extends StreamBinarySource {
+  private final BinaryPack myPack;
+  private final ModulePath myModulePath;
+
+  public PackBinarySource(BinaryPack pack, ModulePath modulePath) {
+    myPack = pack;
+    myModulePath = modulePath;
+  }
+
+  @Override
+  public @NotNull ModulePath getModulePath() {
+    return myModulePath;
+  }
+
+  @Override
+  protected @Nullable ModuleProtos.Module parseModuleProto() throws IOException {
+    return myPack.getModule(myModulePath);
+  }
+
+  @Override
+  protected @Nullable InputStream getInputStream() {
+    return null;
+  }
+
+  @Override
+  protected @Nullable OutputStream getOutputStream() {
+    return null;
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return myPack.getTimeStamp();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return myPack.contains(myModulePath);
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return false;
+  }
+}
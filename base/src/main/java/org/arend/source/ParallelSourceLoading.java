@@ -0,0 +1,220 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Parses and loads raw sources of a library on a work-stealing pool.
+ * Sources are parsed as soon as they are discovered, and steps of loading that can run concurrently
+ * are executed in waves: a module is processed after all modules it imports.
+ */
+class ParallelSourceLoading {
+  private final SourceLoader mySourceLoader;
+  private final int myParallelism;
+
+  ParallelSourceLoading(SourceLoader sourceLoader, int parallelism) {
+    mySourceLoader = sourceLoader;
+    myParallelism = parallelism;
+  }
+
+  private static void rethrow(Throwable error) {
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    if (error != null) {
+      throw new IllegalStateException(error);
+    }
+  }
+
+  /**
+   * Parses the given modules and modules of the library they import.
+   *
+   * @param toParse  a predicate that checks if an imported module should be parsed.
+   * @return parsed sources.
+   */
+  Map<ModulePath, Source> parse(Collection<? extends ModulePath> modules, boolean inTests, Predicate<ModulePath> toParse) {
+    SourceLibrary library = mySourceLoader.getLibrary();
+    Map<ModulePath, Source> result = new ConcurrentHashMap<>();
+    Set<ModulePath> visited = ConcurrentHashMap.newKeySet();
+    ForkJoinPool pool = new ForkJoinPool(myParallelism);
+    Phaser phaser = new Phaser(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    class Parser {
+      void submit(ModulePath module) {
+        if (!visited.add(module)) {
+          return;
+        }
+        phaser.register();
+        pool.execute(() -> {
+          try {
+            if (failure.get() == null) {
+              run(module);
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            phaser.arriveAndDeregister();
+          }
+        });
+      }
+
+      void run(ModulePath module) {
+        Source source = inTests ? library.getTestSource(module) : library.getRawSource(module);
+        if (source == null || !source.isAvailable()) {
+          return;
+        }
+        Collection<ModulePath> imports = source.parse(mySourceLoader);
+        if (imports == null) {
+          return;
+        }
+        result.put(module, source);
+        for (ModulePath imported : imports) {
+          if (library.containsModule(imported) && toParse.test(imported)) {
+            submit(imported);
+          }
+        }
+      }
+    }
+
+    Parser parser = new Parser();
+    try {
+      for (ModulePath module : modules) {
+        parser.submit(module);
+      }
+      phaser.arriveAndAwaitAdvance();
+    } finally {
+      pool.shutdown();
+    }
+
+    rethrow(failure.get());
+    return result;
+  }
+
+  /**
+   * Loads sources in rounds; every round invokes {@link Source#load} once for each remaining source.
+   * Steps that cannot run concurrently are executed sequentially in the order of the map, the other ones are executed in waves.
+   * Loaded sources are removed from the map.
+   *
+   * @param sources       sources that were preloaded.
+   * @param dependencies  modules imported by each module.
+   */
+  void load(Map<ModulePath, Source> sources, Map<ModulePath, ? extends Set<ModulePath>> dependencies) {
+    ForkJoinPool pool = new ForkJoinPool(myParallelism);
+    try {
+      while (!sources.isEmpty()) {
+        List<ModulePath> concurrent = new ArrayList<>();
+        for (Iterator<Map.Entry<ModulePath, Source>> it = sources.entrySet().iterator(); it.hasNext(); ) {
+          Map.Entry<ModulePath, Source> entry = it.next();
+          if (entry.getValue().canLoadConcurrently()) {
+            concurrent.add(entry.getKey());
+          } else if (entry.getValue().load(mySourceLoader) != Source.LoadResult.CONTINUE) {
+            it.remove();
+          }
+        }
+        if (concurrent.isEmpty()) {
+          continue;
+        }
+
+        for (List<ModulePath> wave : makeWaves(concurrent, dependencies)) {
+          loadWave(pool, wave, sources);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Splits modules into waves such that every module is in a later wave than modules it imports.
+   * Modules on an import cycle are put into separate waves at the end.
+   */
+  private static List<List<ModulePath>> makeWaves(List<ModulePath> modules, Map<ModulePath, ? extends Set<ModulePath>> dependencies) {
+    Set<ModulePath> moduleSet = new HashSet<>(modules);
+    Map<ModulePath, Integer> remaining = new HashMap<>();
+    Map<ModulePath, List<ModulePath>> dependents = new HashMap<>();
+    for (ModulePath module : modules) {
+      int count = 0;
+      Set<ModulePath> moduleDependencies = dependencies.get(module);
+      if (moduleDependencies != null) {
+        for (ModulePath dependency : moduleDependencies) {
+          if (moduleSet.contains(dependency) && !dependency.equals(module)) {
+            dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(module);
+            count++;
+          }
+        }
+      }
+      remaining.put(module, count);
+    }
+
+    List<List<ModulePath>> waves = new ArrayList<>();
+    List<ModulePath> wave = new ArrayList<>();
+    for (ModulePath module : modules) {
+      if (remaining.get(module) == 0) {
+        wave.add(module);
+      }
+    }
+    while (!wave.isEmpty()) {
+      waves.add(wave);
+      List<ModulePath> next = new ArrayList<>();
+      for (ModulePath module : wave) {
+        remaining.remove(module);
+        for (ModulePath dependent : dependents.getOrDefault(module, Collections.emptyList())) {
+          if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+            next.add(dependent);
+          }
+        }
+      }
+      wave = next;
+    }
+
+    for (ModulePath module : modules) {
+      if (remaining.containsKey(module)) {
+        waves.add(Collections.singletonList(module));
+      }
+    }
+    return waves;
+  }
+
+  private void loadWave(ForkJoinPool pool, List<ModulePath> wave, Map<ModulePath, Source> sources) {
+    if (wave.size() == 1) {
+      if (sources.get(wave.get(0)).load(mySourceLoader) != Source.LoadResult.CONTINUE) {
+        sources.remove(wave.get(0));
+      }
+      return;
+    }
+
+    List<Callable<Source.LoadResult>> tasks = new ArrayList<>(wave.size());
+    for (ModulePath module : wave) {
+      Source source = sources.get(module);
+      tasks.add(() -> source.load(mySourceLoader));
+    }
+
+    List<Future<Source.LoadResult>> results = pool.invokeAll(tasks);
+    Throwable failure = null;
+    for (int i = 0; i < wave.size(); i++) {
+      try {
+        if (results.get(i).get() != Source.LoadResult.CONTINUE) {
+          sources.remove(wave.get(i));
+        }
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ComputationInterruptedException();
+      }
+    }
+    rethrow(failure);
+  }
+}
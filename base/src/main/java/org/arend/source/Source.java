@@ -4,6 +4,7 @@ import org.arend.ext.module.ModulePath;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Collection;
 
 /**
  * Represents a persisted module.
@@ -28,6 +29,19 @@ public interface Source {
    */
   boolean preload(SourceLoader sourceLoader);
 
+  /**
+   * Reads and parses the source in advance, so that {@link #preload} does not have to.
+   * This method can be invoked concurrently for different sources.
+   * It must not modify the library or report errors; errors are reported by {@link #preload} instead.
+   *
+   * @param sourceLoader    the state of the loading process.
+   *
+   * @return modules imported by the source, or null if the source cannot be parsed in advance.
+   */
+  default @Nullable Collection<ModulePath> parse(SourceLoader sourceLoader) {
+    return null;
+  }
+
   /**
    * This method is called after all dependencies of the source were preloaded.
    *
@@ -38,6 +52,16 @@ public interface Source {
    */
   LoadResult load(SourceLoader sourceLoader);
 
+  /**
+   * Checks if the next invocation of {@link #load} can run concurrently with invocations for other sources.
+   * In this case, it is invoked after it is finished for all dependencies of this source.
+   *
+   * @return true if the next step of loading is thread-safe, false otherwise.
+   */
+  default boolean canLoadConcurrently() {
+    return false;
+  }
+
   /**
    * Gets the timestamp for this source.
    *
@@ -46,6 +70,17 @@ public interface Source {
    */
   long getTimeStamp();
 
+  /**
+   * Gets the hash of the content of this source.
+   * For binary sources, this is the hash of the raw source from which the binary was compiled.
+   *
+   * @return the hash or null if it is not available.
+   * @see org.arend.util.ContentHash
+   */
+  default @Nullable byte[] getContentHash() {
+    return null;
+  }
+
   /**
    * Checks if the source is available for loading.
    *
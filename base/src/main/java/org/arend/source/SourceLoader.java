@@ -13,10 +13,7 @@ import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.Scope;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Contains all necessary information for source loading.
@@ -32,6 +29,10 @@ public final class SourceLoader {
   private ModuleScopeProvider myTestsModuleScopeProvider;
   private final boolean myPreviewBinariesMode;
   private final Map<ModulePath, HashSet<ModulePath>> myModuleDependencies = new HashMap<>();
+  private final Set<ModulePath> myCutoffCandidates = new LinkedHashSet<>();
+  private final Map<ModulePath, Set<ModulePath>> myRawDependencies = new HashMap<>();
+  private final Map<ModulePath, Source> myParsedRawSources = new HashMap<>();
+  private final Map<ModulePath, Source> myParsedTestSources = new HashMap<>();
 
   private enum SourceType { RAW, BINARY, BINARY_FAIL }
 
@@ -87,6 +88,28 @@ public final class SourceLoader {
     }
   }
 
+  /**
+   * Marks a module whose binary is complete, but cannot be loaded since some of its dependencies are outdated.
+   * Such a binary still can be used if interfaces of its dependencies did not change.
+   */
+  public void markCutoffCandidate(ModulePath modulePath) {
+    if (myPreviewBinariesMode) {
+      myCutoffCandidates.add(modulePath);
+    }
+  }
+
+  public Set<ModulePath> getCutoffCandidates() {
+    return myCutoffCandidates;
+  }
+
+  /**
+   * Records that a raw source imports another raw source of the same library.
+   * Dependencies are loaded before dependents when raw sources are loaded concurrently.
+   */
+  public void markRawDependency(ModulePath dependent, ModulePath dependency) {
+    myRawDependencies.computeIfAbsent(dependent, k -> new LinkedHashSet<>()).add(dependency);
+  }
+
   public SourceLibrary getLibrary() {
     return myLibrary;
   }
@@ -118,7 +141,15 @@ public final class SourceLoader {
   }
 
   public ErrorReporter getTypecheckingErrorReporter() {
-    return myLibraryManager.getTypecheckingErrorReporter();
+    ErrorReporter errorReporter = myLibraryManager.getTypecheckingErrorReporter();
+    if (myLibraryManager.getLoadingParallelism() <= 1) {
+      return errorReporter;
+    }
+    return error -> {
+      synchronized (errorReporter) {
+        errorReporter.report(error);
+      }
+    };
   }
 
   public ErrorReporter getLibraryErrorReporter() {
@@ -144,7 +175,10 @@ public final class SourceLoader {
       return true;
     }
 
-    Source rawSource = inTests ? myLibrary.getTestSource(modulePath) : myLibrary.getRawSource(modulePath);
+    Source rawSource = (inTests ? myParsedTestSources : myParsedRawSources).remove(modulePath);
+    if (rawSource == null) {
+      rawSource = inTests ? myLibrary.getTestSource(modulePath) : myLibrary.getRawSource(modulePath);
+    }
     boolean rawSourceIsAvailable = rawSource != null && rawSource.isAvailable();
 
     if (!rawSourceIsAvailable) {
@@ -162,10 +196,44 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * Parses raw sources of the given modules and of modules they import concurrently.
+   * Parsed sources are preloaded by {@link #preloadRaw} in the same order as usual, so errors are reported in the same order.
+   * This method does nothing if the library manager loads libraries in one thread.
+   *
+   * @param modules  modules to parse.
+   * @param inTests  true if modules located in the test directory, false otherwise.
+   */
+  public void parseRawSources(Collection<? extends ModulePath> modules, boolean inTests) {
+    int parallelism = myLibraryManager.getLoadingParallelism();
+    if (parallelism <= 1 || modules.size() <= 1) {
+      return;
+    }
+
+    Map<ModulePath, Source> parsedSources = inTests ? myParsedTestSources : myParsedRawSources;
+    List<ModulePath> toParse = new ArrayList<>();
+    for (ModulePath module : modules) {
+      if (!myLoadedModules.containsKey(module) && !parsedSources.containsKey(module)) {
+        toParse.add(module);
+      }
+    }
+    parsedSources.putAll(new ParallelSourceLoading(this, parallelism).parse(toParse, inTests, module -> !myLoadedModules.containsKey(module) && !parsedSources.containsKey(module)));
+  }
+
   /**
    * Loads raw sources that were preloaded.
+   * If the library manager loads libraries in several threads, steps of loading which can be executed concurrently
+   * are executed for independent modules on a thread pool.
    */
   public void loadRawSources() {
+    myParsedRawSources.clear();
+    myParsedTestSources.clear();
+
+    int parallelism = myLibraryManager.getLoadingParallelism();
+    if (parallelism > 1 && myLoadingRawModules.size() > 1) {
+      new ParallelSourceLoading(this, parallelism).load(myLoadingRawModules, myRawDependencies);
+    }
+
     while (!myLoadingRawModules.isEmpty()) {
       for (Iterator<Source> it = myLoadingRawModules.values().iterator(); it.hasNext(); ) {
         Source source = it.next();
@@ -204,6 +272,23 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * A binary is up to date if it is newer than the raw source or if it was compiled from the same content.
+   * The latter check is needed since timestamps are not preserved by version control systems and caches.
+   */
+  private static boolean isUpToDate(BinarySource binarySource, Source rawSource) {
+    if (binarySource.getTimeStamp() >= rawSource.getTimeStamp()) {
+      return true;
+    }
+
+    byte[] binaryHash = binarySource.getContentHash();
+    if (binaryHash == null) {
+      return false;
+    }
+    byte[] rawHash = rawSource.getContentHash();
+    return rawHash != null && Arrays.equals(binaryHash, rawHash);
+  }
+
   /**
    * Loads the structure of the source and its dependencies without filling in actual data.
    *
@@ -231,7 +316,7 @@ public final class SourceLoader {
 
     if (!myLibrary.isExternal() && myLibrary.hasRawSources()) {
       Source rawSource = myLibrary.getRawSource(modulePath);
-      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
+      if (rawSource != null && rawSource.isAvailable() && !isUpToDate(binarySource, rawSource)) {
         return false;
       }
     }
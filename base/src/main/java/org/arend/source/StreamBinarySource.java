@@ -11,28 +11,34 @@ import org.arend.library.error.PartialModuleError;
 import org.arend.module.ModuleLocation;
 import org.arend.module.error.DeserializationError;
 import org.arend.module.error.ExceptionError;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.ext.serialization.DeserializationException;
 import org.arend.module.serialization.ModuleDeserialization;
 import org.arend.module.serialization.ModuleProtos;
 import org.arend.module.serialization.ModuleSerialization;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.prelude.PreludeLibrary;
 import org.arend.source.error.LocationError;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.util.Profiler;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.Function;
 
 /**
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
  */
 public abstract class StreamBinarySource implements PersistableBinarySource {
   private ModuleDeserialization myModuleDeserialization;
+  private ModuleProtos.Module myModuleProto;
   private SerializableKeyRegistryImpl myKeyRegistry;
   private DefinitionListener myDefinitionListener;
 
@@ -66,19 +72,57 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
   @Nullable
   protected abstract OutputStream getOutputStream() throws IOException;
 
+  /**
+   * Parses the module from {@link #getInputStream}.
+   *
+   * @return the parsed module or null if the input stream is not available.
+   */
+  protected @Nullable ModuleProtos.Module parseModuleProto() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      if (inputStream == null) {
+        return null;
+      }
+
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      return ModuleProtos.Module.parseFrom(codedInputStream);
+    }
+  }
+
+  private @Nullable ModuleProtos.Module readModuleProto() throws IOException {
+    if (myModuleProto == null) {
+      Profiler.Event event = Profiler.start(Profiler.Phase.DESERIALIZATION, getModulePath());
+      try {
+        myModuleProto = parseModuleProto();
+      } finally {
+        Profiler.finish(event);
+      }
+    }
+    return myModuleProto;
+  }
+
+  @Override
+  public @Nullable byte[] getContentHash() {
+    try {
+      ModuleProtos.Module moduleProto = readModuleProto();
+      return moduleProto == null || moduleProto.getSourceHash().isEmpty() ? null : moduleProto.getSourceHash().toByteArray();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
+    try {
+      ModuleProtos.Module moduleProto = readModuleProto();
+      myModuleProto = null;
+      if (moduleProto == null) {
         return false;
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
@@ -89,6 +133,9 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         ModulePath module = new ModulePath(moduleCallTargets.getNameList());
         sourceLoader.markDependency(modulePath, module);
         if (library.containsModule(module) && !sourceLoader.preloadBinary(module, myKeyRegistry, myDefinitionListener)) {
+          if (isComplete && !moduleCallTargets.getInterfaceHash().isEmpty()) {
+            sourceLoader.markCutoffCandidate(modulePath);
+          }
           return false;
         }
       }
@@ -98,7 +145,12 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
 
       if (!sourceLoader.isInPreviewBinariesMode()) {
         if (referableConverter == null) {
-          group = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
+          Profiler.Event event = Profiler.start(Profiler.Phase.DESERIALIZATION, modulePath);
+          try {
+            group = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
+          } finally {
+            Profiler.finish(event);
+          }
           library.groupLoaded(modulePath, group, false, false);
         } else {
           group = library.getModuleGroup(modulePath, false);
@@ -107,7 +159,12 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
             library.groupLoaded(modulePath, null, false, false);
             return false;
           }
-          myModuleDeserialization.readDefinitions(group);
+          Profiler.Event event = Profiler.start(Profiler.Phase.DESERIALIZATION, modulePath);
+          try {
+            myModuleDeserialization.readDefinitions(group);
+          } finally {
+            Profiler.finish(event);
+          }
         }
       }
 
@@ -134,7 +191,12 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         }
       }
 
-      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener());
+      Profiler.Event event = Profiler.start(Profiler.Phase.DESERIALIZATION, modulePath);
+      try {
+        myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener(), sourceLoader.getLibraryErrorReporter());
+      } finally {
+        Profiler.finish(event);
+      }
       library.binaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
@@ -144,6 +206,67 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     }
   }
 
+  @Override
+  public boolean loadIfInterfacesMatch(SourceLibrary library, ChildGroup group, ModuleScopeProvider moduleScopeProvider, Function<ModulePath, byte[]> interfaceHashes, ErrorReporter errorReporter) {
+    ReferableConverter referableConverter = library.getReferableConverter();
+    if (referableConverter == null) {
+      return false;
+    }
+
+    try {
+      ModuleProtos.Module moduleProto = readModuleProto();
+      myModuleProto = null;
+      if (moduleProto == null || !moduleProto.getComplete()) {
+        return false;
+      }
+
+      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
+        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+        if (library.containsModule(module) && !Arrays.equals(interfaceHashes.apply(module), moduleCallTargets.getInterfaceHash().toByteArray())) {
+          return false;
+        }
+      }
+
+      // If dependencies refer to this module, it was typechecked together with them
+      if (hasTypecheckedDefinitions(group, referableConverter)) {
+        return false;
+      }
+
+      ModuleDeserialization moduleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener, false);
+      Profiler.Event event = Profiler.start(Profiler.Phase.DESERIALIZATION, getModulePath());
+      try {
+        moduleDeserialization.readDefinitions(group);
+        moduleDeserialization.readModule(moduleScopeProvider, library.getDependencyListener(), errorReporter);
+      } finally {
+        Profiler.finish(event);
+      }
+    } catch (IOException | DeserializationException e) {
+      library.resetGroup(group);
+      return false;
+    }
+
+    library.binaryLoaded(getModulePath(), true);
+    return true;
+  }
+
+  private static boolean hasTypecheckedDefinitions(Group group, ReferableConverter referableConverter) {
+    TCReferable referable = referableConverter.toDataLocatedReferable(group.getReferable());
+    if (referable != null && referable.isTypechecked()) {
+      return true;
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      if (hasTypecheckedDefinitions(subgroup, referableConverter)) {
+        return true;
+      }
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      if (hasTypecheckedDefinitions(subgroup, referableConverter)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void loadingFailed(SourceLoader sourceLoader, ModulePath modulePath, Group group, Exception e) {
     sourceLoader.getLibraryErrorReporter().report(new DeserializationError(modulePath, e));
     if (!sourceLoader.getLibrary().hasRawSources()) {
@@ -157,6 +280,7 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
   @Override
   public boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
     ModulePath currentModulePath = getModulePath();
+    myModuleProto = null;
     Group group = library.getModuleGroup(currentModulePath, false);
     if (group == null) {
       errorReporter.report(LocationError.module(currentModulePath));
@@ -169,13 +293,18 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         return false;
       }
 
-      ModuleProtos.Module module = new ModuleSerialization(errorReporter, library.getDependencyListener()).writeModule(group, currentModulePath, referableConverter);
-      if (module == null) {
-        return false;
-      }
+      Profiler.Event event = Profiler.start(Profiler.Phase.SERIALIZATION, currentModulePath);
+      try {
+        ModuleProtos.Module module = new ModuleSerialization(errorReporter, library.getDependencyListener()).writeModule(group, currentModulePath, referableConverter, library.getSourceHash(currentModulePath), dependency -> library.getInterfaceHash(dependency, referableConverter));
+        if (module == null) {
+          return false;
+        }
 
-      module.writeTo(outputStream);
-      return true;
+        module.writeTo(outputStream);
+        return true;
+      } finally {
+        Profiler.finish(event);
+      }
     } catch (Exception e) {
       errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
       return false;
@@ -0,0 +1,24 @@
+package org.arend.typechecking.computation;
+
+/**
+ * A cancellation indicator for tasks of a computation.
+ * It is canceled if either it or its parent is canceled; canceling it does not cancel the parent.
+ */
+public class ChildCancellationIndicator implements CancellationIndicator {
+  private final CancellationIndicator myParent;
+  private volatile boolean myCancelled = false;
+
+  public ChildCancellationIndicator(CancellationIndicator parent) {
+    myParent = parent;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return myCancelled || myParent.isCanceled();
+  }
+
+  @Override
+  public void cancel() {
+    myCancelled = true;
+  }
+}
@@ -7,15 +7,20 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 public class ComputationRunner<T> {
-  private static CancellationIndicator CANCELLATION_INDICATOR = UnstoppableCancellationIndicator.INSTANCE;
+  private static volatile CancellationIndicator CANCELLATION_INDICATOR = UnstoppableCancellationIndicator.INSTANCE;
+  private static final ThreadLocal<CancellationIndicator> TASK_CANCELLATION_INDICATOR = new ThreadLocal<>();
   private static final Lock lock = new ReentrantLock();
 
   public static void checkCanceled() throws ComputationInterruptedException {
-    CANCELLATION_INDICATOR.checkCanceled();
+    getCancellationIndicator().checkCanceled();
   }
 
+  /**
+   * @return the indicator of the task running in the current thread if there is one, or the indicator of the current computation otherwise.
+   */
   public static CancellationIndicator getCancellationIndicator() {
-    return CANCELLATION_INDICATOR;
+    CancellationIndicator indicator = TASK_CANCELLATION_INDICATOR.get();
+    return indicator != null ? indicator : CANCELLATION_INDICATOR;
   }
 
   public static void resetCancellationIndicator() {
@@ -42,6 +47,24 @@ public class ComputationRunner<T> {
     lock.unlock();
   }
 
+  /**
+   * Runs a part of the current computation in the current thread with its own cancellation indicator.
+   * This method does not take the global lock; it is intended for worker threads of a computation which already holds it.
+   */
+  public static void runTask(CancellationIndicator cancellationIndicator, Runnable runnable) {
+    CancellationIndicator prev = TASK_CANCELLATION_INDICATOR.get();
+    TASK_CANCELLATION_INDICATOR.set(cancellationIndicator);
+    try {
+      runnable.run();
+    } finally {
+      if (prev == null) {
+        TASK_CANCELLATION_INDICATOR.remove();
+      } else {
+        TASK_CANCELLATION_INDICATOR.set(prev);
+      }
+    }
+  }
+
   public T run(CancellationIndicator cancellationIndicator, Supplier<T> runnable) {
     lock(cancellationIndicator);
     try {
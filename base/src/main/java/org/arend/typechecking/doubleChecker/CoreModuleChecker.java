@@ -1,11 +1,22 @@
 package org.arend.typechecking.doubleChecker;
 
 import org.arend.core.definition.Definition;
+import org.arend.error.DummyErrorReporter;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.ListErrorReporter;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.term.group.Group;
 import org.arend.typechecking.error.local.LocalErrorReporter;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class CoreModuleChecker {
   private final ErrorReporter myErrorReporter;
@@ -40,4 +51,98 @@ public class CoreModuleChecker {
 
     return ok;
   }
+
+  private static void collectDefinitions(Group group, List<TCDefReferable> result) {
+    LocatedReferable ref = group.getReferable();
+    if (ref instanceof TCDefReferable && ((TCDefReferable) ref).getTypechecked() != null) {
+      result.add((TCDefReferable) ref);
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectDefinitions(subgroup, result);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectDefinitions(subgroup, result);
+    }
+  }
+
+  private static class Result {
+    final boolean ok;
+    final ListErrorReporter errors;
+
+    Result(boolean ok, ListErrorReporter errors) {
+      this.ok = ok;
+      this.errors = errors;
+    }
+  }
+
+  /**
+   * Checks definitions of the given groups on several threads.
+   * Definitions are checked independently, and every thread has its own {@link CoreDefinitionChecker}.
+   * Errors are reported in the same order as if {@link #checkGroup} was invoked on each group sequentially.
+   *
+   * @param parallelism  the number of threads; if it is at most 1, definitions are checked on the current thread.
+   */
+  public boolean checkGroups(Collection<? extends Group> groups, int parallelism) {
+    if (parallelism <= 1) {
+      boolean ok = true;
+      for (Group group : groups) {
+        if (!checkGroup(group)) {
+          ok = false;
+        }
+      }
+      return ok;
+    }
+
+    List<TCDefReferable> refs = new ArrayList<>();
+    for (Group group : groups) {
+      collectDefinitions(group, refs);
+    }
+    if (refs.isEmpty()) {
+      return true;
+    }
+
+    ThreadLocal<CoreDefinitionChecker> checkers = ThreadLocal.withInitial(() -> new CoreDefinitionChecker(DummyErrorReporter.INSTANCE));
+    List<Callable<Result>> tasks = new ArrayList<>(refs.size());
+    for (TCDefReferable ref : refs) {
+      tasks.add(() -> {
+        CoreDefinitionChecker checker = checkers.get();
+        ListErrorReporter errors = new ListErrorReporter();
+        checker.setErrorReporter(new LocalErrorReporter(ref, errors));
+        return new Result(checker.check(ref.getTypechecked()), errors);
+      });
+    }
+
+    List<Future<Result>> results;
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      results = pool.invokeAll(tasks);
+    } finally {
+      pool.shutdown();
+    }
+
+    boolean ok = true;
+    for (Future<Result> future : results) {
+      Result result;
+      try {
+        result = future.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ComputationInterruptedException();
+      }
+      result.errors.reportTo(myErrorReporter);
+      if (!result.ok) {
+        ok = false;
+      }
+    }
+    return ok;
+  }
 }
@@ -40,6 +40,11 @@ public class DummyEquations implements Equations {
 
   }
 
+  @Override
+  public void variableSolved(InferenceVariable var) {
+
+  }
+
   @Override
   public boolean addEquation(Level expr1, Level expr2, CMP cmp, Concrete.SourceNode sourceNode) {
     return false;
@@ -99,4 +104,9 @@ public class DummyEquations implements Equations {
   public void loadState(TypecheckerState state) {
 
   }
+
+  @Override
+  public void dropState(TypecheckerState state) {
+
+  }
 }
@@ -19,6 +19,7 @@ public interface Equations {
   boolean solve(Expression expr1, Expression expr2, Expression type, CMP cmp, Concrete.SourceNode sourceNode);
   boolean solve(InferenceVariable var, Expression expr);
   void solveLowerBounds(InferenceVariable var);
+  void variableSolved(InferenceVariable var);
   boolean addEquation(Level level1, Level level2, CMP cmp, Concrete.SourceNode sourceNode);
   boolean addVariable(InferenceLevelVariable var);
   void bindVariables(InferenceLevelVariable pVar, InferenceLevelVariable hVar);
@@ -31,4 +32,5 @@ public interface Equations {
   boolean supportsExpressions();
   void saveState(TypecheckerState state);
   void loadState(TypecheckerState state);
+  void dropState(TypecheckerState state);
 }
@@ -38,6 +38,11 @@ public class LevelEquationsWrapper implements Equations {
 
   }
 
+  @Override
+  public void variableSolved(InferenceVariable var) {
+
+  }
+
   @Override
   public boolean addEquation(Level level1, Level level2, CMP cmp, Concrete.SourceNode sourceNode) {
     return myEquations.addEquation(level1, level2, cmp, sourceNode);
@@ -97,4 +102,9 @@ public class LevelEquationsWrapper implements Equations {
   public void loadState(TypecheckerState state) {
     myEquations.loadState(state);
   }
+
+  @Override
+  public void dropState(TypecheckerState state) {
+    myEquations.dropState(state);
+  }
 }
@@ -34,6 +34,7 @@ import org.arend.typechecking.error.local.SolveEquationsError;
 import org.arend.typechecking.error.local.SolveLevelEquationsError;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.ext.util.Pair;
+import org.jetbrains.annotations.TestOnly;
 
 import java.util.*;
 
@@ -41,18 +42,246 @@ import static org.arend.core.expr.ExpressionFactory.Fin;
 import static org.arend.core.expr.ExpressionFactory.Nat;
 
 public class TwoStageEquations implements Equations {
-  private List<Equation> myEquations = new ArrayList<>();
+  private final List<Runnable> myTrail = new ArrayList<>();
+  private int mySavedStates;
+  private final EquationStore myEquations = new EquationStore();
   private final List<LevelEquation<LevelVariable>> myLevelEquations = new ArrayList<>();
   private final List<InferenceLevelVariable> myLevelVariables = new ArrayList<>();
   private final CheckTypeVisitor myVisitor;
   private final List<InferenceVariable> myProps = new ArrayList<>();
   private final List<Pair<InferenceLevelVariable, InferenceLevelVariable>> myBoundVariables = new ArrayList<>();
   private final Map<InferenceVariable, Expression> myNotSolvableFromEquationsVars = new HashMap<>();
+  private final List<Worklist> myWorklists = new ArrayList<>();
 
   public TwoStageEquations(CheckTypeVisitor visitor) {
     myVisitor = visitor;
   }
 
+  /**
+   * Equations ordered by the time they were added.
+   * Every equation has a key, so it can be removed without scanning the whole store.
+   * Keys are also indexed by inference variables which occur in equations, so equations can be found by a variable.
+   * While there are saved states, the store records how to undo its modifications.
+   */
+  private class EquationStore extends AbstractCollection<Equation> {
+    private final TreeMap<Long, Equation> myMap = new TreeMap<>();
+    private final Map<Equation, Long> myKeys = new IdentityHashMap<>();
+    private final Map<Long, List<InferenceVariable>> myVariables = new HashMap<>();
+    private final Map<InferenceVariable, Set<Long>> myVariableKeys = new HashMap<>();
+    private long myNextKey;
+
+    long getNextKey() {
+      return myNextKey;
+    }
+
+    Equation get(long key) {
+      return myMap.get(key);
+    }
+
+    /**
+     * @return keys of equations in which {@code variable} occurs (or occurred before it was solved) in the order they were added.
+     */
+    Set<Long> getKeys(InferenceVariable variable) {
+      return myVariableKeys.getOrDefault(variable, Collections.emptySet());
+    }
+
+    private void collectVariable(InferenceVariable variable, List<InferenceVariable> variables) {
+      if (variable != null && !variables.contains(variable)) {
+        variables.add(variable);
+      }
+    }
+
+    private void collectVariables(Equation equation, List<InferenceVariable> variables) {
+      collectVariable(equation.expr1.getInferenceVariable(), variables);
+      collectVariable(equation.expr2.getInferenceVariable(), variables);
+      collectVariable(equation.expr1.getStuckInferenceVariable(), variables);
+      collectVariable(equation.expr2.getStuckInferenceVariable(), variables);
+    }
+
+    private void addKey(InferenceVariable variable, long key) {
+      myVariableKeys.computeIfAbsent(variable, k -> new TreeSet<>()).add(key);
+    }
+
+    private void removeKey(InferenceVariable variable, long key) {
+      Set<Long> keys = myVariableKeys.get(variable);
+      if (keys != null) {
+        keys.remove(key);
+        if (keys.isEmpty()) {
+          myVariableKeys.remove(variable);
+        }
+      }
+    }
+
+    private void insert(long key, Equation equation, List<InferenceVariable> variables) {
+      myMap.put(key, equation);
+      myKeys.put(equation, key);
+      myVariables.put(key, variables);
+      for (InferenceVariable variable : variables) {
+        addKey(variable, key);
+      }
+    }
+
+    private void deleted(long key, Equation equation) {
+      myKeys.remove(equation);
+      List<InferenceVariable> variables = myVariables.remove(key);
+      for (InferenceVariable variable : variables) {
+        removeKey(variable, key);
+      }
+      if (mySavedStates > 0) {
+        myTrail.add(() -> insert(key, equation, variables));
+      }
+    }
+
+    private void delete(long key, Equation equation) {
+      myMap.remove(key);
+      myKeys.remove(equation);
+      for (InferenceVariable variable : myVariables.remove(key)) {
+        removeKey(variable, key);
+      }
+    }
+
+    /**
+     * Adds variables which occur in the equation with the given key now to its index.
+     * It should be invoked when the equation might have changed, for example, after one of its variables was solved.
+     * Variables are never removed from the index, so it remains valid if they are unsolved.
+     */
+    void updateVariables(long key) {
+      Equation equation = myMap.get(key);
+      if (equation == null) {
+        return;
+      }
+      List<InferenceVariable> variables = myVariables.get(key);
+      int size = variables.size();
+      collectVariables(equation, variables);
+      if (variables.size() == size) {
+        return;
+      }
+      for (int i = size; i < variables.size(); i++) {
+        addKey(variables.get(i), key);
+      }
+      if (mySavedStates > 0) {
+        myTrail.add(() -> {
+          for (int i = size; i < variables.size(); i++) {
+            removeKey(variables.get(i), key);
+          }
+          variables.subList(size, variables.size()).clear();
+        });
+      }
+    }
+
+    @Override
+    public int size() {
+      return myMap.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return myKeys.containsKey(o);
+    }
+
+    @Override
+    public boolean add(Equation equation) {
+      if (myKeys.containsKey(equation)) {
+        return false;
+      }
+      long key = myNextKey++;
+      List<InferenceVariable> variables = new ArrayList<>(2);
+      collectVariables(equation, variables);
+      insert(key, equation, variables);
+      if (mySavedStates > 0) {
+        myTrail.add(() -> delete(key, equation));
+      }
+      return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      Long key = myKeys.get(o);
+      if (key == null) {
+        return false;
+      }
+      myMap.remove(key);
+      deleted(key, (Equation) o);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      if (mySavedStates > 0) {
+        Map<Long, Equation> removed = new HashMap<>(myMap);
+        Map<Long, List<InferenceVariable>> removedVariables = new HashMap<>(myVariables);
+        myTrail.add(() -> removed.forEach((key, equation) -> insert(key, equation, removedVariables.get(key))));
+      }
+      myMap.clear();
+      myKeys.clear();
+      myVariables.clear();
+      myVariableKeys.clear();
+    }
+
+    @Override
+    public Iterator<Equation> iterator() {
+      Iterator<Map.Entry<Long, Equation>> iterator = myMap.entrySet().iterator();
+      return new Iterator<>() {
+        private long myKey;
+        private Equation myEquation;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Equation next() {
+          Map.Entry<Long, Equation> entry = iterator.next();
+          myKey = entry.getKey();
+          myEquation = entry.getValue();
+          return myEquation;
+        }
+
+        @Override
+        public void remove() {
+          iterator.remove();
+          deleted(myKey, myEquation);
+        }
+      };
+    }
+
+    /**
+     * @return the first entry with a key greater than {@code key}; the store may be modified between calls.
+     */
+    Map.Entry<Long, Equation> higherEntry(long key) {
+      return myMap.higherEntry(key);
+    }
+  }
+
+  /**
+   * Keys of equations which should be checked again: equations added after the previous call of {@link #next}
+   * and equations with variables solved since then.
+   */
+  private class Worklist {
+    private final TreeSet<Long> myWokenKeys = new TreeSet<>();
+    private long myFromKey;
+
+    SortedSet<Long> next() {
+      SortedSet<Long> keys = new TreeSet<>(myWokenKeys.headSet(myFromKey));
+      myWokenKeys.clear();
+      keys.addAll(myEquations.myMap.tailMap(myFromKey).keySet());
+      myFromKey = myEquations.getNextKey();
+      return keys;
+    }
+  }
+
+  @Override
+  public void variableSolved(InferenceVariable variable) {
+    Set<Long> keys = myEquations.getKeys(variable);
+    for (Long key : keys) {
+      myEquations.updateVariables(key);
+    }
+    for (Worklist worklist : myWorklists) {
+      worklist.myWokenKeys.addAll(keys);
+    }
+  }
+
   @Override
   public Boolean solveInstance(TypeClassInferenceVariable variable, FieldCallExpression fieldCall, Expression expr) {
     ClassDefinition classDef = variable.getClassDefinition();
@@ -241,7 +470,11 @@ public class TwoStageEquations implements Equations {
     }
 
     if (cmp == CMP.EQ && (inf1 != null && inf2 == null || inf2 != null && inf1 == null)) {
-      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(inf1 != null ? inf1 : inf2, inf1 != null ? expr2 : expr1);
+      InferenceVariable var = inf1 != null ? inf1 : inf2;
+      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(var, inf1 != null ? expr2 : expr1);
+      if (prev == null && mySavedStates > 0) {
+        myTrail.add(() -> myNotSolvableFromEquationsVars.remove(var));
+      }
       if (prev != null) {
         return CompareVisitor.compare(this, CMP.EQ, prev, inf1 != null ? expr2 : expr1, type, sourceNode);
       }
@@ -398,15 +631,18 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    for (Equation equation : myEquations) {
+    for (Map.Entry<Long, Equation> entry : myEquations.myMap.entrySet()) {
+      Equation equation = entry.getValue();
       equation.expr1 = equation.expr1.normalize(NormalizationMode.WHNF);
       equation.expr2 = equation.expr2.normalize(NormalizationMode.WHNF);
+      myEquations.updateVariables(entry.getKey());
     }
 
-    for (int i = 0; i < myEquations.size(); i++) {
-      Equation equation = myEquations.get(i);
+    // Comparison of arguments may add new equations, which are also checked by this loop
+    for (Map.Entry<Long, Equation> entry = myEquations.higherEntry(-1); entry != null; entry = myEquations.higherEntry(entry.getKey())) {
+      Equation equation = entry.getValue();
       if (equation.expr1 instanceof DataCallExpression && equation.expr2 instanceof DataCallExpression && ((DataCallExpression) equation.expr1).getDefinition() == Prelude.FIN && ((DataCallExpression) equation.expr2).getDefinition() == Prelude.FIN) {
-        myEquations.remove(i--);
+        myEquations.remove(equation);
         Expression arg1 = ((DataCallExpression) equation.expr1).getDefCallArguments().get(0);
         Expression arg2 = ((DataCallExpression) equation.expr2).getDefCallArguments().get(0);
         if (!CompareVisitor.compare(this, CMP.EQ, arg1, arg2, Nat(), equation.sourceNode)) {
@@ -415,16 +651,28 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    while (!myEquations.isEmpty()) {
-      if (!solveClassCallsEq()) {
-        break;
+    // Equations which are not solved by solveClassCalls(Eq) remain unsolvable by them until one of their variables is solved,
+    // so every pass checks only new equations and equations woken up by solved variables
+    Worklist eqWorklist = new Worklist();
+    Worklist leWorklist = new Worklist();
+    Worklist geWorklist = new Worklist();
+    myWorklists.add(eqWorklist);
+    myWorklists.add(leWorklist);
+    myWorklists.add(geWorklist);
+    try {
+      while (!myEquations.isEmpty()) {
+        if (!solveClassCallsEq(eqWorklist.next())) {
+          break;
+        }
       }
-    }
 
-    while (!myEquations.isEmpty()) {
-      if (!solveClassCalls(CMP.LE) && !solveClassCalls(CMP.GE)) {
-        break;
+      while (!myEquations.isEmpty()) {
+        if (!solveClassCalls(CMP.LE, leWorklist.next()) && !solveClassCalls(CMP.GE, geWorklist.next())) {
+          break;
+        }
       }
+    } finally {
+      myWorklists.clear();
     }
   }
 
@@ -440,17 +688,19 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void saveState(TypecheckerState state) {
-    state.equations = new ArrayList<>(myEquations);
+    mySavedStates++;
+    state.trailSize = myTrail.size();
     state.numberOfLevelVariables = myLevelVariables.size();
     state.numberOfLevelEquations = myLevelEquations.size();
     state.numberOfProps = myProps.size();
     state.numberOfBoundVars = myBoundVariables.size();
-    state.notSolvableFromEquationsVars = new HashSet<>(myNotSolvableFromEquationsVars.keySet());
   }
 
   @Override
   public void loadState(TypecheckerState state) {
-    myEquations = new ArrayList<>(state.equations);
+    for (int i = myTrail.size() - 1; i >= state.trailSize; i--) {
+      myTrail.remove(i).run();
+    }
     if (myLevelVariables.size() > state.numberOfLevelVariables) {
       myLevelVariables.subList(state.numberOfLevelVariables, myLevelVariables.size()).clear();
     }
@@ -463,18 +713,44 @@ public class TwoStageEquations implements Equations {
     if (myBoundVariables.size() > state.numberOfBoundVars) {
       myBoundVariables.subList(state.numberOfBoundVars, myBoundVariables.size()).clear();
     }
-    myNotSolvableFromEquationsVars.keySet().retainAll(state.notSolvableFromEquationsVars);
   }
 
-  private boolean solveClassCallsEq() {
+  @Override
+  public void dropState(TypecheckerState state) {
+    if (--mySavedStates == 0) {
+      myTrail.clear();
+    }
+  }
+
+  @TestOnly
+  public SortedMap<Long, Equation> getEquationMap() {
+    return Collections.unmodifiableSortedMap(myEquations.myMap);
+  }
+
+  @TestOnly
+  public Map<InferenceVariable, Expression> getNotSolvableFromEquationsVars() {
+    return Collections.unmodifiableMap(myNotSolvableFromEquationsVars);
+  }
+
+  @TestOnly
+  public int getTrailSize() {
+    return myTrail.size();
+  }
+
+  @TestOnly
+  public Set<Long> getEquationKeys(InferenceVariable variable) {
+    return Collections.unmodifiableSet(myEquations.getKeys(variable));
+  }
+
+  private boolean solveClassCallsEq(SortedSet<Long> keys) {
     List<Pair<InferenceVariable, Expression>> solved = null;
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
-      if (equation.cmp == CMP.EQ) {
+    for (Long key : keys) {
+      Equation equation = myEquations.get(key);
+      if (equation != null && equation.cmp == CMP.EQ) {
         InferenceVariable var1 = equation.expr1.getInferenceVariable();
         InferenceVariable var2 = equation.expr2.getInferenceVariable();
         if (var1 == null && var2 != null && var2.isSolvableFromEquations() || var2 == null && var1 != null && var1.isSolvableFromEquations()) {
-          iterator.remove();
+          myEquations.remove(equation);
           if (solved == null) {
             solved = new ArrayList<>();
           }
@@ -493,23 +769,46 @@ public class TwoStageEquations implements Equations {
     }
   }
 
+  // Bounds of a variable may depend on every equation connected to it through other variables, so all such equations are returned.
+  private SortedSet<Long> getConnectedKeys(SortedSet<Long> keys) {
+    SortedSet<Long> result = new TreeSet<>();
+    Set<InferenceVariable> visited = new HashSet<>();
+    Deque<Long> toVisit = new ArrayDeque<>(keys);
+    while (!toVisit.isEmpty()) {
+      Long key = toVisit.pop();
+      List<InferenceVariable> variables = myEquations.myVariables.get(key);
+      if (variables == null || !result.add(key)) {
+        continue;
+      }
+      for (InferenceVariable variable : variables) {
+        if (visited.add(variable)) {
+          toVisit.addAll(myEquations.getKeys(variable));
+        }
+      }
+    }
+    return result;
+  }
+
   // If cmp == LE, then solve lower bounds; if cmp == GE, solve upper bounds.
-  private boolean solveClassCalls(CMP cmp) {
+  private boolean solveClassCalls(CMP cmp, SortedSet<Long> keys) {
     boolean solved = false;
     boolean allOK = true;
 
     boolean hasBound = false;
     Map<InferenceVariable,Set<Wrapper>> bounds = new HashMap<>();
     List<Equation> classCallEquations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Long key : getConnectedKeys(keys)) {
+      Equation equation = myEquations.get(key);
+      if (equation == null) {
+        continue;
+      }
       Expression lower = equation.getLowerBound();
       Expression upper = equation.getUpperBound();
       ClassCallExpression lowerClassCall = lower.cast(ClassCallExpression.class);
       ClassCallExpression upperClassCall = upper.cast(ClassCallExpression.class);
       if (lowerClassCall != null && upperClassCall != null) {
         classCallEquations.add(new Equation(lowerClassCall, upperClassCall, Type.OMEGA, equation.cmp == CMP.EQ ? CMP.EQ : CMP.LE, equation.sourceNode));
-        iterator.remove();
+        myEquations.remove(equation);
         solved = true;
         continue;
       }
@@ -532,7 +831,7 @@ public class TwoStageEquations implements Equations {
           bounds.computeIfAbsent(var, k -> new LinkedHashSet<>()).add(new Wrapper(cmp == CMP.LE ? lower : upper));
           if (isClassCall) {
             hasBound = true;
-            iterator.remove();
+            myEquations.remove(equation);
           }
         }
       }
@@ -642,8 +941,8 @@ public class TwoStageEquations implements Equations {
   @Override
   public void solveLowerBounds(InferenceVariable var) {
     List<Equation> equations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Long key : new ArrayList<>(myEquations.getKeys(var))) {
+      Equation equation = myEquations.get(key);
       Expression varExpr = equation.cmp == CMP.LE ? equation.expr2 : equation.expr1;
       if (varExpr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) varExpr).getVariable() == var) {
         Expression other = (equation.cmp == CMP.LE ? equation.expr1 : equation.expr2).normalize(NormalizationMode.WHNF);
@@ -658,7 +957,7 @@ public class TwoStageEquations implements Equations {
           return;
         }
         equations.add(equation);
-        iterator.remove();
+        myEquations.remove(equation);
       }
     }
 
@@ -683,7 +982,8 @@ public class TwoStageEquations implements Equations {
     boolean needLength = false;
     boolean needAt = false;
     if (length != null || at != null) {
-      for (Equation equation : myEquations) {
+      for (Long key : myEquations.getKeys(var)) {
+        Equation equation = myEquations.get(key);
         Expression lower = equation.getLowerBound();
         ClassCallExpression upper = equation.getLowerBound().cast(ClassCallExpression.class);
         if (upper != null && lower.getInferenceVariable() == var) {
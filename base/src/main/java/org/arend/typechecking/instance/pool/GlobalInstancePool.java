@@ -12,13 +12,16 @@ import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.instance.InstanceSearchParameters;
+import org.arend.ext.instance.SubclassSearchParameters;
 import org.arend.naming.reference.CoreReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.instance.provider.ClassifyingHead;
 import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.ext.util.Pair;
+import org.arend.util.Profiler;
 
 import java.util.*;
 import java.util.function.Predicate;
@@ -26,17 +29,29 @@ import java.util.function.Predicate;
 public class GlobalInstancePool implements InstancePool {
   private final InstanceProvider myInstanceProvider;
   private final CheckTypeVisitor myCheckTypeVisitor;
+  private final InstanceSearchCache mySearchCache;
   private LocalInstancePool myInstancePool;
 
-  public GlobalInstancePool(InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+  private static final Object NO_CLASSIFYING_EXPRESSION = new Object();
+  private static final Object NO_HEAD = new Object();
+
+  public GlobalInstancePool(InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor, LocalInstancePool instancePool, InstanceSearchCache searchCache) {
     myInstanceProvider = instanceProvider;
     myCheckTypeVisitor = checkTypeVisitor;
+    myInstancePool = instancePool;
+    mySearchCache = searchCache;
+  }
+
+  public GlobalInstancePool(InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor, InstanceSearchCache searchCache) {
+    this(instanceProvider, checkTypeVisitor, null, searchCache);
+  }
+
+  public GlobalInstancePool(InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+    this(instanceProvider, checkTypeVisitor, null, null);
   }
 
   public GlobalInstancePool(InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor, LocalInstancePool instancePool) {
-    myInstanceProvider = instanceProvider;
-    myCheckTypeVisitor = checkTypeVisitor;
-    myInstancePool = instancePool;
+    this(instanceProvider, checkTypeVisitor, instancePool, null);
   }
 
   public void setInstancePool(LocalInstancePool instancePool) {
@@ -64,7 +79,7 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public GlobalInstancePool copy(CheckTypeVisitor typechecker) {
-    return new GlobalInstancePool(myInstanceProvider, typechecker, myInstancePool == null ? null : myInstancePool.copy(typechecker));
+    return new GlobalInstancePool(myInstanceProvider, typechecker, myInstancePool == null ? null : myInstancePool.copy(typechecker), mySearchCache);
   }
 
   @Override
@@ -172,6 +187,7 @@ public class GlobalInstancePool implements InstancePool {
       return null;
     }
 
+    Profiler.count(Profiler.Counter.INSTANCE_SEARCHES);
     Expression normClassifyingExpression = classifyingExpression;
     if (classifyingExpression != null) {
       normClassifyingExpression = normClassifyingExpression.normalize(NormalizationMode.WHNF);
@@ -183,16 +199,35 @@ public class GlobalInstancePool implements InstancePool {
       }
     }
 
+    // Only searches for subclasses of a given class are cached since other parameters may be arbitrary
+    ClassDefinition searchClass = mySearchCache != null && parameters.getClass() == SubclassSearchParameters.class && ((SubclassSearchParameters) parameters).classDefinition instanceof ClassDefinition ? (ClassDefinition) ((SubclassSearchParameters) parameters).classDefinition : null;
+    Object searchHead = null;
+    if (searchClass != null) {
+      searchHead = normClassifyingExpression == null ? NO_CLASSIFYING_EXPRESSION : ClassifyingHead.of(normClassifyingExpression);
+      if (searchHead == null) {
+        searchHead = NO_HEAD;
+      }
+      if (mySearchCache.isFailed(myInstanceProvider, searchClass, searchHead)) {
+        return null;
+      }
+    }
+
     Expression finalClassifyingExpression = normClassifyingExpression;
     class MyPredicate implements Predicate<TCDefReferable> {
       private FunctionDefinition instanceDef = null;
+      private boolean cacheable = true;
 
       @Override
       public boolean test(TCDefReferable instance) {
         instanceDef = (FunctionDefinition) instance.getTypechecked();
-        if (!(instanceDef != null && instanceDef.status().headerIsOK() && instanceDef.getResultType() instanceof ClassCallExpression && parameters.testClass(((ClassCallExpression) instanceDef.getResultType()).getDefinition()) && parameters.testGlobalInstance(instanceDef))) {
+        if (instanceDef == null || !instanceDef.status().headerIsOK()) {
+          cacheable = false;
+          return false;
+        }
+        if (!(instanceDef.getResultType() instanceof ClassCallExpression && parameters.testClass(((ClassCallExpression) instanceDef.getResultType()).getDefinition()) && parameters.testGlobalInstance(instanceDef))) {
           return false;
         }
+        cacheable = false;
 
         ClassCallExpression classCall = (ClassCallExpression) instanceDef.getResultType();
         if (finalClassifyingExpression == null || classCall.getDefinition().getClassifyingField() == null) {
@@ -211,8 +246,11 @@ public class GlobalInstancePool implements InstancePool {
     }
 
     MyPredicate predicate = new MyPredicate();
-    TCDefReferable instance = myInstanceProvider.findInstance(predicate);
+    TCDefReferable instance = myInstanceProvider.findInstance(finalClassifyingExpression, predicate);
     if (instance == null || predicate.instanceDef == null) {
+      if (instance == null && searchClass != null && predicate.cacheable) {
+        mySearchCache.addFailed(myInstanceProvider, searchClass, searchHead);
+      }
       return null;
     }
 
@@ -239,6 +277,6 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public GlobalInstancePool subst(ExprSubstitution substitution) {
-    return myInstancePool != null ? new GlobalInstancePool(myInstanceProvider, myCheckTypeVisitor, myInstancePool.subst(substitution)) : this;
+    return myInstancePool != null ? new GlobalInstancePool(myInstanceProvider, myCheckTypeVisitor, myInstancePool.subst(substitution), mySearchCache) : this;
   }
 }
@@ -0,0 +1,54 @@
+package org.arend.typechecking.instance.pool;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers searches of global instances which failed during a typechecking session.
+ * A search is remembered only if the provider does not have typechecked instances of an appropriate class
+ * whose classifying expressions have the same head, so the result does not depend on arguments of the classifying expression.
+ */
+public class InstanceSearchCache {
+  private final Set<Key> myFailedSearches = ConcurrentHashMap.newKeySet();
+
+  private static final class Key {
+    final InstanceProvider provider;
+    final ClassDefinition classDef;
+    final Object head;
+
+    Key(InstanceProvider provider, ClassDefinition classDef, Object head) {
+      this.provider = provider;
+      this.classDef = classDef;
+      this.head = head;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return provider == key.provider && classDef == key.classDef && head.equals(key.head);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(provider), classDef, head);
+    }
+  }
+
+  boolean isFailed(InstanceProvider provider, ClassDefinition classDef, Object head) {
+    return myFailedSearches.contains(new Key(provider, classDef, head));
+  }
+
+  void addFailed(InstanceProvider provider, ClassDefinition classDef, Object head) {
+    myFailedSearches.add(new Key(provider, classDef, head));
+  }
+
+  public void clear() {
+    myFailedSearches.clear();
+  }
+}
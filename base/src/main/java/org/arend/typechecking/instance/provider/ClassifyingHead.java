@@ -0,0 +1,86 @@
+package org.arend.typechecking.instance.provider;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.prelude.Prelude;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Heads of classifying expressions which are used to index instances.
+ * A head is either the definition of a definition call or one of {@link Kind}.
+ */
+public final class ClassifyingHead {
+  public enum Kind { PI, SIGMA, UNIVERSE, INTEGER, ANY }
+
+  private ClassifyingHead() {}
+
+  /**
+   * @param expr  an expression in WHNF.
+   * @return the head of the expression or null if instances cannot be found for expressions of this form.
+   */
+  public static @Nullable Object of(Expression expr) {
+    if (expr instanceof PiExpression) {
+      return Kind.PI;
+    }
+    if (expr instanceof SigmaExpression) {
+      return Kind.SIGMA;
+    }
+    if (expr instanceof UniverseExpression) {
+      return Kind.UNIVERSE;
+    }
+    if (expr instanceof IntegerExpression) {
+      return Kind.INTEGER;
+    }
+    if (expr instanceof DefCallExpression && !(expr instanceof FieldCallExpression)) {
+      return ((DefCallExpression) expr).getDefinition();
+    }
+    return null;
+  }
+
+  /**
+   * Computes the head of the classifying implementation of an instance.
+   *
+   * @return the head, {@link Kind#ANY} if the class of the instance does not have a classifying field,
+   *         or null if the instance does not match any classifying expression.
+   */
+  static @Nullable Object ofInstance(FunctionDefinition instance) {
+    if (!(instance.status().headerIsOK() && instance.getResultType() instanceof ClassCallExpression)) {
+      return null;
+    }
+
+    ClassCallExpression classCall = (ClassCallExpression) instance.getResultType();
+    if (classCall.getDefinition().getClassifyingField() == null) {
+      return Kind.ANY;
+    }
+
+    Expression expr = classCall.getAbsImplementationHere(classCall.getDefinition().getClassifyingField());
+    if (expr == null) {
+      return null;
+    }
+    expr = expr.normalize(NormalizationMode.WHNF);
+    while (expr instanceof LamExpression) {
+      expr = ((LamExpression) expr).getBody();
+    }
+    return of(expr);
+  }
+
+  /**
+   * Adds heads of instances which may match an expression to a list.
+   * It always contains {@link Kind#ANY}.
+   *
+   * @param expr  an expression in WHNF.
+   */
+  static void getMatchingHeads(Expression expr, List<Object> result) {
+    result.add(Kind.ANY);
+    Object head = of(expr);
+    if (head != null) {
+      result.add(head);
+    }
+    if (expr instanceof ConCallExpression && (((ConCallExpression) expr).getDefinition() == Prelude.ZERO || ((ConCallExpression) expr).getDefinition() == Prelude.SUC)) {
+      result.add(Kind.INTEGER);
+    }
+  }
+}
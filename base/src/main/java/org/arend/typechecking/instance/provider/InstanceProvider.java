@@ -1,9 +1,20 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.expr.Expression;
 import org.arend.naming.reference.TCDefReferable;
 
 import java.util.function.Predicate;
 
 public interface InstanceProvider {
   TCDefReferable findInstance(Predicate<TCDefReferable> pred);
+
+  /**
+   * Finds an instance which satisfies the predicate.
+   * The predicate is checked only for instances whose classifying expressions may match the given one.
+   *
+   * @param classifyingExpression the classifying expression in WHNF or null if every instance should be checked.
+   */
+  default TCDefReferable findInstance(Expression classifyingExpression, Predicate<TCDefReferable> pred) {
+    return findInstance(pred);
+  }
 }
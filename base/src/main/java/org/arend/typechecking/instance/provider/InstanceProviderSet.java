@@ -1,5 +1,6 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.Definition;
 import org.arend.naming.reference.*;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.CachingScope;
@@ -16,6 +17,7 @@ import java.util.function.Predicate;
 public class InstanceProviderSet {
   private final Map<TCDefReferable, InstanceProvider> myProviders = new HashMap<>();
   private final Set<Group> myCollected = new HashSet<>();
+  private final Map<Definition, Object> myInstanceHeads = SimpleInstanceProvider.newHeadCache();
 
   public void put(TCDefReferable referable, InstanceProvider provider) {
     myProviders.put(referable, provider);
@@ -36,7 +38,7 @@ public class InstanceProviderSet {
 
     private MyPredicate(ReferableConverter referableConverter) {
       this.referableConverter = referableConverter;
-      this.instanceProvider = new SimpleInstanceProvider();
+      this.instanceProvider = new SimpleInstanceProvider(myInstanceHeads);
     }
 
     public LocatedReferable recordInstances(LocatedReferable ref) {
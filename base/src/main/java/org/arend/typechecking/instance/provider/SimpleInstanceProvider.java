@@ -1,25 +1,65 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
 import org.arend.naming.reference.TCDefReferable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 public class SimpleInstanceProvider implements InstanceProvider {
+  private static final Object NO_HEAD = new Object();
+  private static final AtomicInteger ourInstancesVersion = new AtomicInteger();
+  private static final int[] EMPTY_POSITIONS = new int[0];
+
   private final List<TCDefReferable> myInstances;
+  private final Map<Definition, Object> myHeads;
+  private volatile Index myIndex;
 
-  public SimpleInstanceProvider() {
+  /**
+   * Positions of instances grouped by heads of their classifying expressions.
+   * Every array of positions is sorted.
+   */
+  private static class Index {
+    final int version;
+    final int size;
+    final Map<Object, int[]> positions;
+    final int[] pending;
+
+    Index(int version, int size, Map<Object, int[]> positions, int[] pending) {
+      this.version = version;
+      this.size = size;
+      this.positions = positions;
+      this.pending = pending;
+    }
+  }
+
+  /**
+   * @param heads a cache of heads of classifying expressions of instances which can be shared between providers.
+   */
+  public SimpleInstanceProvider(Map<Definition, Object> heads) {
     myInstances = new ArrayList<>();
+    myHeads = heads;
+  }
+
+  public SimpleInstanceProvider() {
+    this(newHeadCache());
   }
 
   public SimpleInstanceProvider(List<TCDefReferable> instances) {
     myInstances = instances;
+    myHeads = newHeadCache();
   }
 
   public SimpleInstanceProvider(SimpleInstanceProvider another) {
     myInstances = new ArrayList<>(another.myInstances);
+    myHeads = another.myHeads;
+  }
+
+  public static Map<Definition, Object> newHeadCache() {
+    return Collections.synchronizedMap(new WeakHashMap<>());
   }
 
   public void add(int index, TCDefReferable instance) {
@@ -28,6 +68,7 @@ public class SimpleInstanceProvider implements InstanceProvider {
     } else {
       myInstances.add(index, instance);
     }
+    myIndex = null;
   }
 
   public boolean isEmpty() {
@@ -35,6 +76,7 @@ public class SimpleInstanceProvider implements InstanceProvider {
   }
 
   public boolean remove(TCDefReferable instance) {
+    myIndex = null;
     return myInstances.remove(instance);
   }
 
@@ -45,6 +87,7 @@ public class SimpleInstanceProvider implements InstanceProvider {
   public void reverseFrom(int n) {
     if (myInstances.size() > n + 1) {
       Collections.reverse(myInstances.subList(n, myInstances.size()));
+      myIndex = null;
     }
   }
 
@@ -57,4 +100,116 @@ public class SimpleInstanceProvider implements InstanceProvider {
     }
     return null;
   }
+
+  private Object getHead(FunctionDefinition instance) {
+    Object head = myHeads.get(instance);
+    if (head == null) {
+      head = ClassifyingHead.ofInstance(instance);
+      if (head == null) {
+        head = NO_HEAD;
+      }
+      myHeads.put(instance, head);
+    }
+    return head;
+  }
+
+  /**
+   * Invalidates indices of all providers.
+   * It should be invoked when the typechecked definition of an instance changes or its header is typechecked.
+   */
+  public static void instanceUpdated() {
+    ourInstancesVersion.incrementAndGet();
+  }
+
+  /**
+   * Instances whose header is not typechecked yet are pending; they are checked on every search.
+   * The index is dropped when the provider changes or when an instance is updated (see {@link #instanceUpdated}).
+   */
+  private Index getIndex() {
+    Index index = myIndex;
+    if (index != null && isValid(index)) {
+      return index;
+    }
+
+    synchronized (this) {
+      index = myIndex;
+      if (index != null && isValid(index)) {
+        return index;
+      }
+
+      int version = ourInstancesVersion.get();
+      Map<Object, List<Integer>> positions = new HashMap<>();
+      List<Integer> pending = new ArrayList<>();
+      for (int i = 0; i < myInstances.size(); i++) {
+        Definition definition = myInstances.get(i).getTypechecked();
+        if (definition == null || !definition.status().headerIsOK()) {
+          pending.add(i);
+        } else if (definition instanceof FunctionDefinition) {
+          Object head = getHead((FunctionDefinition) definition);
+          if (head != NO_HEAD) {
+            positions.computeIfAbsent(head, k -> new ArrayList<>()).add(i);
+          }
+        }
+      }
+
+      Map<Object, int[]> positionArrays = new HashMap<>();
+      for (Map.Entry<Object, List<Integer>> entry : positions.entrySet()) {
+        positionArrays.put(entry.getKey(), toArray(entry.getValue()));
+      }
+      index = new Index(version, myInstances.size(), positionArrays, toArray(pending));
+      myIndex = index;
+      return index;
+    }
+  }
+
+  private boolean isValid(Index index) {
+    return index.version == ourInstancesVersion.get() && index.size == myInstances.size();
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] result = new int[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = list.get(i);
+    }
+    return result;
+  }
+
+  @Override
+  public TCDefReferable findInstance(Expression classifyingExpression, Predicate<TCDefReferable> pred) {
+    if (classifyingExpression == null) {
+      return findInstance(pred);
+    }
+
+    Index index = getIndex();
+    List<Object> heads = new ArrayList<>(3);
+    ClassifyingHead.getMatchingHeads(classifyingExpression, heads);
+    int[][] candidates = new int[heads.size() + 1][];
+    int[] next = new int[candidates.length];
+    candidates[0] = index.pending;
+    for (int i = 0; i < heads.size(); i++) {
+      int[] positions = index.positions.get(heads.get(i));
+      candidates[i + 1] = positions == null ? EMPTY_POSITIONS : positions;
+    }
+    for (int i = 0; i < candidates.length; i++) {
+      next[i] = candidates[i].length - 1;
+    }
+
+    // Arrays of candidates are disjoint and sorted, so they are merged starting from the last position
+    while (true) {
+      int max = -1;
+      for (int i = 0; i < candidates.length; i++) {
+        if (next[i] >= 0 && (max < 0 || candidates[i][next[i]] > candidates[max][next[max]])) {
+          max = i;
+        }
+      }
+      if (max < 0) {
+        return null;
+      }
+
+      TCDefReferable instance = myInstances.get(candidates[max][next[max]--]);
+      if (pred.test(instance)) {
+        return instance;
+      }
+    }
+  }
 }
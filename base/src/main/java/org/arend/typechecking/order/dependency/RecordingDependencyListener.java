@@ -0,0 +1,38 @@
+package org.arend.typechecking.order.dependency;
+
+import org.arend.naming.reference.TCReferable;
+
+import java.util.*;
+
+/**
+ * Records direct dependencies reported during ordering and forwards them to another listener.
+ */
+public class RecordingDependencyListener implements DependencyListener {
+  private final DependencyListener myDependencyListener;
+  private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+
+  public RecordingDependencyListener(DependencyListener dependencyListener) {
+    myDependencyListener = dependencyListener;
+  }
+
+  @Override
+  public void dependsOn(TCReferable def1, TCReferable def2) {
+    myDependencies.computeIfAbsent(def1, k -> new LinkedHashSet<>()).add(def2);
+    myDependencyListener.dependsOn(def1, def2);
+  }
+
+  @Override
+  public Set<? extends TCReferable> update(TCReferable definition) {
+    return myDependencyListener.update(definition);
+  }
+
+  @Override
+  public Set<? extends TCReferable> getDependencies(TCReferable definition) {
+    return myDependencyListener.getDependencies(definition);
+  }
+
+  public Set<TCReferable> getRecordedDependencies(TCReferable definition) {
+    Set<TCReferable> result = myDependencies.get(definition);
+    return result == null ? Collections.emptySet() : result;
+  }
+}
@@ -10,6 +10,17 @@ public class CollectingOrderingListener implements OrderingListener {
     void feedTo(OrderingListener listener);
     void getDefinitions(List<Concrete.ResolvableDefinition> result);
     Concrete.ResolvableDefinition getAnyDefinition();
+
+    /**
+     * @return true if this element is a header of a mutually recursive group; the group is closed by {@link #isBodies}.
+     */
+    default boolean isHeader() {
+      return false;
+    }
+
+    default boolean isBodies() {
+      return false;
+    }
   }
 
   private static class MyHeader implements Element {
@@ -33,6 +44,11 @@ public class CollectingOrderingListener implements OrderingListener {
     public Concrete.ResolvableDefinition getAnyDefinition() {
       return definition;
     }
+
+    @Override
+    public boolean isHeader() {
+      return true;
+    }
   }
 
   private static class MyUnit implements Element {
@@ -92,6 +108,11 @@ public class CollectingOrderingListener implements OrderingListener {
     public Concrete.ResolvableDefinition getAnyDefinition() {
       return definitions.get(0);
     }
+
+    @Override
+    public boolean isBodies() {
+      return kind == Kind.BODIES;
+    }
   }
 
   private final List<Element> myElements = new ArrayList<>();
@@ -0,0 +1,169 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ChildCancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.order.dependency.RecordingDependencyListener;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feeds elements collected by {@link CollectingOrderingListener} to a {@link TypecheckingOrderingListener} on a work-stealing pool.
+ * Elements are grouped into tasks (a header group together with its bodies forms a single task),
+ * and a task is dispatched as soon as every task it depends on is finished.
+ */
+class ParallelTypechecking {
+  private final TypecheckingOrderingListener myListener;
+  private final int myParallelism;
+
+  private static class Task {
+    final int index;
+    final List<CollectingOrderingListener.Element> elements = new ArrayList<>();
+    final Set<Task> dependents = new LinkedHashSet<>();
+    final AtomicInteger remaining = new AtomicInteger();
+
+    Task(int index) {
+      this.index = index;
+    }
+  }
+
+  ParallelTypechecking(TypecheckingOrderingListener listener, int parallelism) {
+    myListener = listener;
+    myParallelism = parallelism;
+  }
+
+  private static List<Task> makeTasks(CollectingOrderingListener collector, RecordingDependencyListener dependencies) {
+    List<Task> tasks = new ArrayList<>();
+    Task group = null;
+    for (CollectingOrderingListener.Element element : collector.getElements()) {
+      Task task = group != null ? group : new Task(tasks.size());
+      if (task != group) {
+        tasks.add(task);
+      }
+      task.elements.add(element);
+      if (element.isHeader()) {
+        group = task;
+      } else if (element.isBodies()) {
+        group = null;
+      }
+    }
+
+    Map<TCReferable, Task> owners = new HashMap<>();
+    List<Concrete.ResolvableDefinition> definitions = new ArrayList<>();
+    for (Task task : tasks) {
+      for (CollectingOrderingListener.Element element : task.elements) {
+        element.getDefinitions(definitions);
+      }
+      for (Concrete.ResolvableDefinition definition : definitions) {
+        owners.put(definition.getData(), task);
+      }
+      definitions.clear();
+    }
+
+    // Tasks which refer to each other in either direction are executed in the order in which they were found
+    for (Task task : tasks) {
+      for (CollectingOrderingListener.Element element : task.elements) {
+        element.getDefinitions(definitions);
+      }
+      for (Concrete.ResolvableDefinition definition : definitions) {
+        for (TCReferable dependency : dependencies.getRecordedDependencies(definition.getData())) {
+          Task owner = owners.get(dependency);
+          if (owner == null || owner == task) continue;
+          if (owner.index < task.index) {
+            owner.dependents.add(task);
+          } else {
+            task.dependents.add(owner);
+          }
+        }
+      }
+      definitions.clear();
+    }
+
+    for (Task task : tasks) {
+      for (Task dependent : task.dependents) {
+        dependent.remaining.incrementAndGet();
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Typechecks collected elements.
+   * Should be invoked inside a computation of {@link TypecheckingOrderingListener}.
+   */
+  void typecheck(CollectingOrderingListener collector, RecordingDependencyListener dependencies) {
+    List<Task> tasks = makeTasks(collector, dependencies);
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(myParallelism);
+    CancellationIndicator indicator = new ChildCancellationIndicator(ComputationRunner.getCancellationIndicator());
+    CountDownLatch latch = new CountDownLatch(tasks.size());
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    class Runner {
+      void submit(Task task) {
+        pool.execute(() -> run(task));
+      }
+
+      void run(Task task) {
+        try {
+          if (failure.get() == null) {
+            ComputationRunner.runTask(indicator, () -> {
+              try {
+                for (CollectingOrderingListener.Element element : task.elements) {
+                  element.feedTo(myListener);
+                }
+              } catch (ComputationInterruptedException e) {
+                myListener.taskInterrupted();
+                throw e;
+              }
+            });
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+          indicator.cancel();
+        } finally {
+          for (Task dependent : task.dependents) {
+            if (dependent.remaining.decrementAndGet() == 0) {
+              submit(dependent);
+            }
+          }
+          latch.countDown();
+        }
+      }
+    }
+
+    Runner runner = new Runner();
+    try {
+      for (Task task : tasks) {
+        if (task.remaining.get() == 0) {
+          runner.submit(task);
+        }
+      }
+      latch.await();
+    } catch (InterruptedException e) {
+      indicator.cancel();
+      Thread.currentThread().interrupt();
+      throw new ComputationInterruptedException();
+    } finally {
+      pool.shutdown();
+    }
+
+    Throwable error = failure.get();
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+  }
+}
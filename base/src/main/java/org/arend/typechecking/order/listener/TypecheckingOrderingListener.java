@@ -6,6 +6,7 @@ import org.arend.core.context.param.TypedSingleDependentLink;
 import org.arend.core.definition.*;
 import org.arend.core.elimtree.ElimClause;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.NormalizationCache;
 import org.arend.core.pattern.ExpressionPattern;
 import org.arend.core.sort.Sort;
 import org.arend.error.CountingErrorReporter;
@@ -16,6 +17,8 @@ import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.TypecheckingError;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.library.Library;
+import org.arend.prelude.PreludeLibrary;
+import org.arend.naming.reference.GlobalReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.ReferableConverter;
@@ -30,32 +33,49 @@ import org.arend.typechecking.error.TerminationCheckError;
 import org.arend.typechecking.error.local.LocalErrorReporter;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
+import org.arend.typechecking.instance.pool.InstanceSearchCache;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.instance.provider.SimpleInstanceProvider;
 import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.PartialComparator;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.order.dependency.RecordingDependencyListener;
 import org.arend.typechecking.patternmatching.ExtElimClause;
 import org.arend.typechecking.provider.ConcreteProvider;
 import org.arend.typechecking.termination.DefinitionCallGraph;
 import org.arend.typechecking.termination.RecursiveBehavior;
 import org.arend.typechecking.visitor.*;
 import org.arend.ext.util.Pair;
+import org.arend.util.Profiler;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class TypecheckingOrderingListener extends BooleanComputationRunner implements OrderingListener {
   private final DependencyListener myDependencyListener;
-  private final Map<TCDefReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new HashMap<>();
+  private final Map<TCDefReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new ConcurrentHashMap<>();
   private final ErrorReporter myErrorReporter;
   private final InstanceProviderSet myInstanceProviderSet;
   private final ConcreteProvider myConcreteProvider;
   private final ReferableConverter myReferableConverter;
   private final PartialComparator<TCDefReferable> myComparator;
   private final ArendExtensionProvider myExtensionProvider;
-  private List<TCDefReferable> myCurrentDefinitions = Collections.emptyList();
-  private boolean myHeadersAreOK = true;
+  private final ThreadLocal<State> myState = ThreadLocal.withInitial(State::new);
+  private final InstanceSearchCache myInstanceSearchCache = new InstanceSearchCache();
+  private int myParallelism = 1;
+  private int myNormalizationCacheSize;
+  private final LongAdder myNormalizationCacheHits = new LongAdder();
+  private final LongAdder myNormalizationCacheMisses = new LongAdder();
+
+  private static class State {
+    List<TCDefReferable> currentDefinitions = Collections.emptyList();
+    boolean headersAreOK = true;
+  }
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, ConcreteProvider concreteProvider, ReferableConverter referableConverter, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCDefReferable> comparator, ArendExtensionProvider extensionProvider) {
     myErrorReporter = errorReporter;
@@ -83,17 +103,103 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     return myReferableConverter;
   }
 
+  public int getParallelism() {
+    return myParallelism;
+  }
+
+  /**
+   * Sets the number of threads used to typecheck libraries, tests, and modules.
+   * If it is greater than 1, independent definitions are typechecked concurrently,
+   * so the error reporter and overridden callbacks of this listener must be thread-safe.
+   */
+  public void setParallelism(int parallelism) {
+    myParallelism = Math.max(parallelism, 1);
+  }
+
+  public int getNormalizationCacheSize() {
+    return myNormalizationCacheSize;
+  }
+
+  /**
+   * Sets the maximal number of normal forms remembered while a definition is typechecked.
+   * If it is 0, normal forms are not cached.
+   */
+  public void setNormalizationCacheSize(int size) {
+    myNormalizationCacheSize = Math.max(size, 0);
+  }
+
+  public long getNormalizationCacheHits() {
+    return myNormalizationCacheHits.sum();
+  }
+
+  public long getNormalizationCacheMisses() {
+    return myNormalizationCacheMisses.sum();
+  }
+
+  private <T> T withNormalizationCache(Supplier<T> supplier) {
+    if (myNormalizationCacheSize == 0) {
+      return supplier.get();
+    }
+
+    NormalizationCache cache = new NormalizationCache(myNormalizationCacheSize);
+    try {
+      return NormalizationCache.run(cache, supplier);
+    } finally {
+      myNormalizationCacheHits.add(cache.getHits());
+      myNormalizationCacheMisses.add(cache.getMisses());
+    }
+  }
+
+  /**
+   * Each computation is a separate typechecking session, so failed instance searches are forgotten before it starts.
+   */
   @Override
-  protected Boolean computationInterrupted() {
-    for (TCDefReferable currentDefinition : myCurrentDefinitions) {
+  public Boolean run(CancellationIndicator cancellationIndicator, Supplier<Boolean> runnable) {
+    return super.run(cancellationIndicator, () -> {
+      myInstanceSearchCache.clear();
+      return runnable.get();
+    });
+  }
+
+  void taskInterrupted() {
+    State state = myState.get();
+    for (TCDefReferable currentDefinition : state.currentDefinitions) {
       Definition typechecked = currentDefinition.getTypechecked();
       currentDefinition.setTypechecked(null);
       typecheckingInterrupted(currentDefinition, typechecked);
     }
-    myCurrentDefinitions = Collections.emptyList();
+    state.currentDefinitions = Collections.emptyList();
+  }
+
+  @Override
+  protected Boolean computationInterrupted() {
+    taskInterrupted();
     return false;
   }
 
+  private boolean order(Function<Ordering, Boolean> orderer) {
+    // Definitions are typechecked during sequential ordering, so the time of ordering itself is its self time
+    Profiler.Event event = Profiler.start(Profiler.Phase.ORDERING, "ordering");
+    if (myParallelism <= 1) {
+      try {
+        return orderer.apply(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator));
+      } finally {
+        Profiler.finish(event);
+      }
+    }
+
+    CollectingOrderingListener collector = new CollectingOrderingListener();
+    RecordingDependencyListener dependencyListener = new RecordingDependencyListener(myDependencyListener);
+    boolean result;
+    try {
+      result = orderer.apply(new Ordering(myInstanceProviderSet, myConcreteProvider, collector, dependencyListener, myReferableConverter, myComparator));
+    } finally {
+      Profiler.finish(event);
+    }
+    new ParallelTypechecking(this, myParallelism).typecheck(collector, dependencyListener);
+    return result;
+  }
+
   public boolean typecheckDefinitions(final Collection<? extends Concrete.Definition> definitions, CancellationIndicator cancellationIndicator, boolean withInstances) {
     return run(cancellationIndicator, () -> {
       Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator, withInstances);
@@ -109,14 +215,18 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   }
 
   public boolean typecheckModules(final Collection<? extends Group> modules, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> {
-      new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator).orderModules(modules);
+    return run(cancellationIndicator, () -> order(ordering -> {
+      ordering.orderModules(modules);
       return true;
-    });
+    }));
   }
 
   public boolean typecheckLibrary(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator)));
+    // The prelude is initialized during ordering, so it cannot be typechecked after ordering is finished
+    if (library instanceof PreludeLibrary) {
+      return run(cancellationIndicator, () -> library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator)));
+    }
+    return run(cancellationIndicator, () -> order(library::orderModules));
   }
 
   public boolean typecheckLibrary(Library library) {
@@ -124,7 +234,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   }
 
   public boolean typecheckTests(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderTestModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator)));
+    return run(cancellationIndicator, () -> order(library::orderTestModules));
   }
 
   public boolean typecheckCollected(CollectingOrderingListener collector, CancellationIndicator cancellationIndicator) {
@@ -200,7 +310,8 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void unitFound(Concrete.ResolvableDefinition resolvableDefinition, boolean recursive) {
-    myHeadersAreOK = true;
+    State state = myState.get();
+    state.headersAreOK = true;
 
     if (!(resolvableDefinition instanceof Concrete.Definition)) {
       return;
@@ -222,11 +333,16 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     List<ExtElimClause> clauses;
     ArendExtension extension = myExtensionProvider.getArendExtension(definition.getData());
     CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(new LocalErrorReporter(definition.getData(), myErrorReporter), null, extension);
-    checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), checkTypeVisitor));
+    checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), checkTypeVisitor, myInstanceSearchCache));
     DesugarVisitor.desugar(definition, checkTypeVisitor.getErrorReporter());
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    state.currentDefinitions = Collections.singletonList(definition.getData());
     typecheckingUnitStarted(definition.getData());
-    clauses = definition.accept(new DefinitionTypechecker(checkTypeVisitor), null);
+    Profiler.Event event = Profiler.start(Profiler.Phase.DEFINITION, definition.getData());
+    try {
+      clauses = withNormalizationCache(() -> definition.accept(new DefinitionTypechecker(checkTypeVisitor), null));
+    } finally {
+      Profiler.finish(event);
+    }
     Definition typechecked = definition.getData().getTypechecked();
     if (typechecked == null) {
       typechecked = newDefinition(definition);
@@ -245,7 +361,14 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     if (definition.isRecursive() && typechecked instanceof FunctionDefinition) {
       checkRecursiveFunctions(Collections.singletonMap((FunctionDefinition) typechecked, definition), clauses == null ? Collections.emptyMap() : Collections.singletonMap((FunctionDefinition) typechecked, clauses));
     }
+    if (typechecked instanceof FunctionDefinition) {
+      // Compute the height while the body is still in memory
+      ((FunctionDefinition) typechecked).getHeight();
+    }
 
+    if (definition.getData().getKind() == GlobalReferable.Kind.INSTANCE) {
+      SimpleInstanceProvider.instanceUpdated();
+    }
     typecheckingUnitFinished(definition.getData(), typechecked);
 
     if (extension != null) {
@@ -255,7 +378,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       }
     }
 
-    myCurrentDefinitions = Collections.emptyList();
+    state.currentDefinitions = Collections.emptyList();
   }
 
   @Override
@@ -283,7 +406,8 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void headerFound(Concrete.Definition definition) {
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    State state = myState.get();
+    state.currentDefinitions = Collections.singletonList(definition.getData());
     typecheckingHeaderStarted(definition.getData());
 
     CountingErrorReporter countingErrorReporter = new CountingErrorReporter(myErrorReporter);
@@ -292,16 +416,25 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     DesugarVisitor.desugar(definition, visitor.getErrorReporter());
     Definition oldTypechecked = definition.getData().getTypechecked();
     boolean isNew = oldTypechecked == null || oldTypechecked.status().needsTypeChecking();
-    Definition typechecked = new DefinitionTypechecker(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), visitor), definition);
+    Profiler.Event event = Profiler.start(Profiler.Phase.HEADER, definition.getData());
+    Definition typechecked;
+    try {
+      typechecked = withNormalizationCache(() -> new DefinitionTypechecker(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), visitor, myInstanceSearchCache), definition));
+    } finally {
+      Profiler.finish(event);
+    }
     typechecked.setUniverseKind(UniverseKind.WITH_UNIVERSES);
     if (typechecked.status() == Definition.TypeCheckingStatus.TYPE_CHECKING) {
       mySuspensions.put(definition.getData(), new Pair<>(visitor, isNew));
     }
 
+    if (definition.getData().getKind() == GlobalReferable.Kind.INSTANCE) {
+      SimpleInstanceProvider.instanceUpdated();
+    }
     typecheckingHeaderFinished(definition.getData(), typechecked);
-    myCurrentDefinitions = Collections.emptyList();
+    state.currentDefinitions = Collections.emptyList();
     if (!typechecked.status().headerIsOK()) {
-      myHeadersAreOK = false;
+      state.headersAreOK = false;
     }
   }
 
@@ -324,9 +457,10 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     orderedDefinitions.addAll(otherDefs);
 
     DefinitionTypechecker typechecking = new DefinitionTypechecker(null);
-    myCurrentDefinitions = new ArrayList<>();
+    State state = myState.get();
+    state.currentDefinitions = new ArrayList<>();
     for (Concrete.Definition definition : orderedDefinitions) {
-      myCurrentDefinitions.add(definition.getData());
+      state.currentDefinitions.add(definition.getData());
     }
 
     List<Pair<Definition, DefinitionListener>> listeners = new ArrayList<>();
@@ -335,10 +469,16 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
       Definition def = definition.getData().getTypechecked();
       Pair<CheckTypeVisitor, Boolean> pair = mySuspensions.remove(definition.getData());
-      if (myHeadersAreOK && pair != null) {
+      if (state.headersAreOK && pair != null) {
         typechecking.setTypechecker(pair.proj1);
         typechecking.updateState(pair.proj2);
-        List<? extends ElimClause<ExpressionPattern>> clauses = typechecking.typecheckBody(def, definition, dataDefinitions);
+        Profiler.Event event = Profiler.start(Profiler.Phase.BODY, definition.getData());
+        List<? extends ElimClause<ExpressionPattern>> clauses;
+        try {
+          clauses = withNormalizationCache(() -> typechecking.typecheckBody(def, definition, dataDefinitions));
+        } finally {
+          Profiler.finish(event);
+        }
         if (def instanceof FunctionDefinition) {
           functionDefinitions.put((FunctionDefinition) def, definition);
           if (clauses != null) {
@@ -357,9 +497,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
       typecheckingBodyFinished(definition.getData(), def);
     }
-    myCurrentDefinitions = Collections.emptyList();
+    state.currentDefinitions = Collections.emptyList();
 
-    myHeadersAreOK = true;
+    state.headersAreOK = true;
 
     boolean fixLevels = true;
     Set<Definition> allDefinitions = new LinkedHashSet<>();
@@ -418,6 +558,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     }
 
     for (Definition definition : allDefinitions) {
+      if (definition instanceof FunctionDefinition) {
+        ((FunctionDefinition) definition).getHeight();
+      }
       typecheckingBodyFinished(definition.getReferable(), definition);
     }
 
@@ -428,13 +571,14 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void useFound(List<Concrete.UseDefinition> definitions) {
-    myCurrentDefinitions = new ArrayList<>();
+    State state = myState.get();
+    state.currentDefinitions = new ArrayList<>();
     for (Concrete.UseDefinition definition : definitions) {
-      myCurrentDefinitions.add(definition.getData());
-      myCurrentDefinitions.add(definition.getUseParent());
+      state.currentDefinitions.add(definition.getData());
+      state.currentDefinitions.add(definition.getUseParent());
     }
     UseTypechecking.typecheck(definitions, myErrorReporter);
-    myCurrentDefinitions = Collections.emptyList();
+    state.currentDefinitions = Collections.emptyList();
   }
 
   private void checkRecursiveFunctions(Map<FunctionDefinition,Concrete.Definition> definitions, Map<FunctionDefinition, ? extends List<? extends ElimClause<ExpressionPattern>>> clauses) {
@@ -456,7 +600,14 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       }
     }
 
-    if (!definitionCallGraph.checkTermination()) {
+    Profiler.Event event = Profiler.start(Profiler.Phase.TERMINATION, definitions.keySet().iterator().next().getReferable());
+    boolean terminates;
+    try {
+      terminates = definitionCallGraph.checkTermination();
+    } finally {
+      Profiler.finish(event);
+    }
+    if (!terminates) {
       for (Map.Entry<Definition, Set<RecursiveBehavior<Definition>>> entry : definitionCallGraph.myErrorInfo.entrySet()) {
         myErrorReporter.report(new TerminationCheckError(entry.getKey(), entry.getValue()));
       }
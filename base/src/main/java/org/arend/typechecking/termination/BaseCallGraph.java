@@ -107,47 +107,85 @@ public abstract class BaseCallGraph<T> {
     }
   }
 
+  private static <T> boolean contains(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
+    HashMap<T, HashSet<BaseCallMatrix<T>>> map = graph.get(cm.getDomain());
+    HashSet<BaseCallMatrix<T>> set = map == null ? null : map.get(cm.getCodomain());
+    return set != null && set.contains(cm);
+  }
+
   public boolean checkTermination() {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = myGraph;
-    int myNewEdges;
-    boolean result = true;
-
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
-
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundArrows = oldGraph.get(vDom);
-        for (T vCodom : outboundArrows.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundArrows.get(vCodom)) {
-            append(edge, newGraph);
-          }
+    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph = new HashMap<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundArrows : myGraph.values()) {
+      for (HashSet<BaseCallMatrix<T>> homSet : outboundArrows.values()) {
+        for (BaseCallMatrix<T> edge : homSet) {
+          append(edge, graph);
         }
       }
+    }
+
+    // The closure is computed semi-naively: every round composes only pairs of edges in which at least one edge was added in the previous round
+    Set<BaseCallMatrix<T>> newEdges = new HashSet<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundArrows : graph.values()) {
+      for (HashSet<BaseCallMatrix<T>> homSet : outboundArrows.values()) {
+        newEdges.addAll(homSet);
+      }
+    }
+    Set<T> toCheck = new HashSet<>(graph.keySet());
+
+    while (true) {
+      Map<T, List<BaseCallMatrix<T>>> newOutbound = new HashMap<>();
+      for (BaseCallMatrix<T> edge : newEdges) {
+        newOutbound.computeIfAbsent(edge.getDomain(), k -> new ArrayList<>()).add(edge);
+      }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> arrow : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(arrow.getCodomain());
-            if (outboundEdges2 != null) {
+      List<BaseCallMatrix<T>> composites = new ArrayList<>();
+      for (BaseCallMatrix<T> arrow : newEdges) {
+        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = graph.get(arrow.getCodomain());
+        if (outboundEdges != null) {
+          ComputationRunner.checkCanceled();
+          for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges.values()) {
+            for (BaseCallMatrix<T> arrow2 : homSet) {
+              composites.add(new CompositeCallMatrix<>(arrow, arrow2));
+            }
+          }
+        }
+      }
+      for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : graph.values()) {
+        for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges.values()) {
+          for (BaseCallMatrix<T> arrow : homSet) {
+            List<BaseCallMatrix<T>> newOutboundEdges = newOutbound.get(arrow.getCodomain());
+            if (newOutboundEdges != null && !newEdges.contains(arrow)) {
               ComputationRunner.checkCanceled();
-              for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> arrow2 : homSet) {
-                  if (append(new CompositeCallMatrix<>(arrow, arrow2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
+              for (BaseCallMatrix<T> arrow2 : newOutboundEdges) {
+                composites.add(new CompositeCallMatrix<>(arrow, arrow2));
               }
             }
           }
         }
       }
-      oldGraph = newGraph;
 
-      for (T v : newGraph.keySet()) {
-        RecursiveBehaviors<T> rbs = new RecursiveBehaviors<>(newGraph, v);
+      List<BaseCallMatrix<T>> added = new ArrayList<>();
+      for (BaseCallMatrix<T> composite : composites) {
+        if (append(composite, graph)) {
+          added.add(composite);
+        }
+      }
+
+      // An edge added in this round might be replaced with a smaller one later in the same round
+      newEdges = new HashSet<>();
+      for (BaseCallMatrix<T> edge : added) {
+        if (contains(edge, graph)) {
+          newEdges.add(edge);
+          if (edge.getDomain().equals(edge.getCodomain())) {
+            toCheck.add(edge.getDomain());
+          }
+        }
+      }
+
+      // Recursive behaviors of a vertex can change only if new loops were added to it
+      boolean result = true;
+      for (T v : toCheck) {
+        RecursiveBehaviors<T> rbs = new RecursiveBehaviors<>(graph, v);
         List<String> order = rbs.findTerminationOrderAnnotated();
         if (order == null) {
           HashSet<RecursiveBehavior<T>> rbs2 = new HashSet<>();
@@ -158,9 +196,12 @@ public abstract class BaseCallGraph<T> {
           result = false;
         }
       }
-    } while (myNewEdges > 0 && result);
 
-    return result;
+      if (!result || newEdges.isEmpty()) {
+        return result;
+      }
+      toCheck.clear();
+    }
   }
 
   private static class RecursiveBehaviors<T> {
@@ -5,8 +5,8 @@ import org.arend.ext.prettyprinting.doc.Doc;
 import org.arend.ext.prettyprinting.doc.DocFactory;
 import org.arend.ext.prettyprinting.doc.DocStringBuilder;
 import org.arend.util.StringFormat;
-import java.util.HashMap;
-import java.util.Map;
+
+import java.util.Arrays;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -15,36 +15,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -56,7 +26,10 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private final HashMap<Integer, HashMap<Integer, BaseCallMatrix.R>> matrixMap = new HashMap<>();
+  // Every row is stored as two disjoint bitsets of myRowLength words: entries equal to LessThan and entries equal to Equal
+  private final long[] myLessThan;
+  private final long[] myEqual;
+  private final int myRowLength;
 
   private final int myWidth;
   private final int myHeight;
@@ -64,30 +37,45 @@ public abstract class BaseCallMatrix<T> {
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myRowLength = (width + 63) >>> 6;
+    myLessThan = new long[height * myRowLength];
+    myEqual = new long[height * myRowLength];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     // multiplication constructor
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
-
-    for (Integer i : m1.matrixMap.keySet()) {
-      HashMap<Integer, BaseCallMatrix.R> m1map = m1.matrixMap.get(i);
-      for (Integer j : m1map.keySet()) {
-        HashMap<Integer, BaseCallMatrix.R> m2map = m2.matrixMap.get(j);
-        if (m2map != null) for (Map.Entry<Integer, R> e : m2map.entrySet()) {
-          int k = e.getKey();
-          BaseCallMatrix.R ik_value = getValue(i, k);
-          if (ik_value != R.LessThan) {
-            BaseCallMatrix.R ik_summand = rmul(m1map.get(j), e.getValue());
-            BaseCallMatrix.R new_ik_value = radd(ik_value, ik_summand);
-            if (new_ik_value != ik_value) set(i, k, new_ik_value);
+
+    // i < k if i < j <= k or i <= j < k for some j; i = k if i = j = k for some j
+    for (int i = 0; i < myHeight; i++) {
+      int row = i * m1.myRowLength;
+      for (int w = 0; w < m1.myRowLength; w++) {
+        long lessThan = m1.myLessThan[row + w];
+        long known = lessThan | m1.myEqual[row + w];
+        while (known != 0) {
+          int j = (w << 6) + Long.numberOfTrailingZeros(known);
+          long bit = Long.lowestOneBit(known);
+          known ^= bit;
+          int dst = i * myRowLength;
+          int src = j * myRowLength;
+          if ((lessThan & bit) != 0) {
+            for (int k = 0; k < myRowLength; k++) {
+              myLessThan[dst + k] |= m2.myLessThan[src + k] | m2.myEqual[src + k];
+            }
+          } else {
+            for (int k = 0; k < myRowLength; k++) {
+              myLessThan[dst + k] |= m2.myLessThan[src + k];
+              myEqual[dst + k] |= m2.myEqual[src + k];
+            }
           }
         }
       }
+      for (int k = i * myRowLength; k < (i + 1) * myRowLength; k++) {
+        myEqual[k] &= ~myLessThan[k];
+      }
     }
   }
 
@@ -106,23 +94,28 @@ public abstract class BaseCallMatrix<T> {
   public abstract int getCompositeLength();
 
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (v != R.Unknown) {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.computeIfAbsent(i, k -> new HashMap<>());
-      map.put(j, v);
-    } else {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
-      if (map != null) {
-        map.remove(j);
-      }
+    if (i < 0 || i >= myHeight || j < 0 || j >= myWidth) {
+      if (v == R.Unknown) return;
+      throw new IndexOutOfBoundsException();
+    }
+    int index = i * myRowLength + (j >>> 6);
+    long bit = 1L << j;
+    myLessThan[index] &= ~bit;
+    myEqual[index] &= ~bit;
+    if (v == R.LessThan) {
+      myLessThan[index] |= bit;
+    } else if (v == R.Equal) {
+      myEqual[index] |= bit;
     }
   }
 
   public BaseCallMatrix.R getValue(int i, int j) {
-    HashMap<Integer, BaseCallMatrix.R> result = matrixMap.get(i);
-    if (result == null) return R.Unknown; else {
-      BaseCallMatrix.R result2 = result.get(j);
-      if (result2 == null) return R.Unknown; else return result2;
+    if (i < 0 || i >= myHeight || j < 0 || j >= myWidth) {
+      return R.Unknown;
     }
+    int index = i * myRowLength + (j >>> 6);
+    long bit = 1L << j;
+    return (myLessThan[index] & bit) != 0 ? R.LessThan : (myEqual[index] & bit) != 0 ? R.Equal : R.Unknown;
   }
 
   @Override
@@ -130,7 +123,7 @@ public abstract class BaseCallMatrix<T> {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      return cm.matrixMap.equals(this.matrixMap);
+      return Arrays.equals(myLessThan, cm.myLessThan) && Arrays.equals(myEqual, cm.myEqual);
     }
     return false;
   }
@@ -139,13 +132,10 @@ public abstract class BaseCallMatrix<T> {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (this.equals(cm)) return R.Equal;
-      if (this.getDomain() != cm.getDomain() || this.getCodomain() != cm.getCodomain()) throw new IllegalArgumentException();
-      for (Integer i : matrixMap.keySet()) {
-        HashMap<Integer, R> map = matrixMap.get(i);
-        for (Integer j : map.keySet()) {
-          R my = map.get(j);
-          R theirs = cm.getValue(i, j);
-          if (!rleq(my, theirs)) return R.Unknown;
+      if (this.getDomain() != cm.getDomain() || this.getCodomain() != cm.getCodomain() || myLessThan.length != cm.myLessThan.length) throw new IllegalArgumentException();
+      for (int k = 0; k < myLessThan.length; k++) {
+        if ((myLessThan[k] & ~cm.myLessThan[k]) != 0 || (myEqual[k] & ~(cm.myLessThan[k] | cm.myEqual[k])) != 0) {
+          return R.Unknown;
         }
       }
       return R.LessThan;
@@ -156,7 +146,8 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + matrixMap.hashCode();
+    result = result * 31 + Arrays.hashCode(myLessThan);
+    return result * 31 + Arrays.hashCode(myEqual);
   }
 
   protected String[] getColumnLabels() {
@@ -74,6 +74,7 @@ import org.arend.typechecking.result.DefCallResult;
 import org.arend.typechecking.result.TResult;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.ext.util.Pair;
+import org.arend.util.Profiler;
 import org.arend.util.SingletonList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -1022,7 +1023,23 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
     deferredMetas.clear();
     if (!afterLevels) {
-      myEquations.solveEquations();
+      Profiler.Event event = Profiler.start(Profiler.Phase.EQUATIONS, null);
+      try {
+        myEquations.solveEquations();
+      } finally {
+        Profiler.finish(event);
+      }
+    }
+  }
+
+  private LevelSubstitution solveLevels(LevelEquationsSolver levelSolver, Concrete.SourceNode sourceNode) {
+    Profiler.Event event = Profiler.start(Profiler.Phase.EQUATIONS, null);
+    try {
+      LevelSubstitution levelSubstitution = levelSolver.solveLevels();
+      myEquations.finalizeEquations(levelSubstitution, sourceNode);
+      return levelSubstitution;
+    } finally {
+      Profiler.finish(event);
     }
   }
 
@@ -1039,8 +1056,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
         levelSolver.addPropEquationIfPossible(sort.getHLevel());
       }
     }
-    LevelSubstitution levelSubstitution = levelSolver.solveLevels();
-    myEquations.finalizeEquations(levelSubstitution, sourceNode);
+    LevelSubstitution levelSubstitution = solveLevels(levelSolver, sourceNode);
     InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
     if (!substVisitor.isEmpty()) {
       if (result.expression != null) {
@@ -1122,8 +1138,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
         levelSolver.addPropEquationIfPossible(sort.getHLevel());
       }
     }
-    LevelSubstitution levelSubstitution = levelSolver.solveLevels();
-    myEquations.finalizeEquations(levelSubstitution, expr);
+    LevelSubstitution levelSubstitution = solveLevels(levelSolver, expr);
     InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
     if (!substVisitor.isEmpty()) {
       result.subst(substVisitor);
@@ -3387,6 +3402,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     if (mySavedState != null) {
       mySavedState.solvedVariables.add(variable);
     }
+    myEquations.variableSolved(variable);
   }
 
   private void saveState() {
@@ -3398,6 +3414,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   }
 
   private void restoreState() {
+    myEquations.dropState(mySavedState);
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     errorReporter = mySavedState.errorReporter;
     if (mySavedState.previousState != null) {
@@ -3428,6 +3445,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
       mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
     }
     TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter);
+    myEquations.dropState(mySavedState);
     myEquations.saveState(state);
     mySavedState = state;
   }
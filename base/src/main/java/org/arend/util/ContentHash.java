@@ -0,0 +1,35 @@
+package org.arend.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes hashes of module contents which are stored in binaries and used to decide whether they are up to date.
+ */
+public class ContentHash {
+  public static final String ALGORITHM = "SHA-256";
+
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static byte[] compute(byte[] bytes) {
+    return newDigest().digest(bytes);
+  }
+
+  public static byte[] compute(InputStream stream) throws IOException {
+    MessageDigest digest = newDigest();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = stream.read(buffer)) != -1) {
+      digest.update(buffer, 0, read);
+    }
+    return digest.digest();
+  }
+}
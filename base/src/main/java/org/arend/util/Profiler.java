@@ -0,0 +1,264 @@
+package org.arend.util;
+
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.LocatedReferable;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the time spent in phases of loading and typechecking, and counts expensive operations.
+ * The profiler is disabled by default; in this case, {@link #start} returns null and the other methods do nothing.
+ * Events are written in the trace event format which can be opened in chrome://tracing or Perfetto.
+ * The totals per phase and per subject are written to the same file, so it can be compared across runs.
+ */
+public class Profiler {
+  public enum Phase { PARSING, NAME_RESOLUTION, ORDERING, HEADER, BODY, DEFINITION, EQUATIONS, TERMINATION, SERIALIZATION, DESERIALIZATION }
+
+  public enum Counter { NORMALIZATIONS, COMPARISONS, INSTANCE_SEARCHES }
+
+  private static volatile Profiler INSTANCE;
+
+  private final long myStartTime = System.nanoTime();
+  private final Queue<Event> myEvents = new ConcurrentLinkedQueue<>();
+  private final LongAdder[] myCounters = new LongAdder[Counter.values().length];
+  private final ThreadLocal<Event> myCurrentEvent = new ThreadLocal<>();
+
+  public static class Event {
+    private final Phase myPhase;
+    private final String mySubject;
+    private final long myThread;
+    private final long myStart;
+    private final Event myParent;
+    private long myDuration;
+    private long myChildrenDuration;
+    private final long[] myCounters = new long[Counter.values().length];
+
+    private Event(Phase phase, String subject, long start, Event parent) {
+      myPhase = phase;
+      mySubject = subject;
+      myThread = Thread.currentThread().getId();
+      myStart = start;
+      myParent = parent;
+    }
+
+    private long getSelfDuration() {
+      return myDuration - myChildrenDuration;
+    }
+  }
+
+  private Profiler() {
+    for (int i = 0; i < myCounters.length; i++) {
+      myCounters[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Enables profiling and discards events recorded before.
+   */
+  public static void enable() {
+    INSTANCE = new Profiler();
+  }
+
+  public static void disable() {
+    INSTANCE = null;
+  }
+
+  public static @Nullable Profiler getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts an event in the current thread.
+   * Events started in the same thread before this one is finished are nested in it.
+   *
+   * @param subject  the definition or the module which is processed; it is converted to a string only if profiling is enabled.
+   *                 If it is null, the subject of the enclosing event is used.
+   * @return the event which should be passed to {@link #finish}, or null if profiling is disabled.
+   */
+  public static @Nullable Event start(Phase phase, @Nullable Object subject) {
+    Profiler profiler = INSTANCE;
+    if (profiler == null) {
+      return null;
+    }
+
+    Event parent = profiler.myCurrentEvent.get();
+    Event event = new Event(phase, subject == null && parent != null ? parent.mySubject : getSubjectName(subject), System.nanoTime(), parent);
+    profiler.myCurrentEvent.set(event);
+    return event;
+  }
+
+  private static String getSubjectName(Object subject) {
+    if (!(subject instanceof LocatedReferable)) {
+      return String.valueOf(subject);
+    }
+
+    List<String> longName = new ArrayList<>();
+    ModuleLocation location = LocatedReferable.Helper.getLocation((LocatedReferable) subject, longName);
+    return (location == null ? "" : location.getModulePath() + ":") + String.join(".", longName);
+  }
+
+  public static void finish(@Nullable Event event) {
+    Profiler profiler = INSTANCE;
+    if (event == null || profiler == null) {
+      return;
+    }
+
+    event.myDuration = System.nanoTime() - event.myStart;
+    if (event.myParent != null) {
+      event.myParent.myChildrenDuration += event.myDuration;
+    }
+    if (profiler.myCurrentEvent.get() == event) {
+      if (event.myParent == null) {
+        profiler.myCurrentEvent.remove();
+      } else {
+        profiler.myCurrentEvent.set(event.myParent);
+      }
+    }
+    if (event.myStart >= profiler.myStartTime) {
+      profiler.myEvents.add(event);
+    }
+  }
+
+  /**
+   * Counts an operation in the current event and in total.
+   */
+  public static void count(Counter counter) {
+    Profiler profiler = INSTANCE;
+    if (profiler == null) {
+      return;
+    }
+
+    profiler.myCounters[counter.ordinal()].increment();
+    Event event = profiler.myCurrentEvent.get();
+    if (event != null) {
+      event.myCounters[counter.ordinal()]++;
+    }
+  }
+
+  public long getCount(Counter counter) {
+    return myCounters[counter.ordinal()].sum();
+  }
+
+  private static class Totals {
+    final long[] durations = new long[Phase.values().length];
+    final long[] counters = new long[Counter.values().length];
+
+    void add(Event event) {
+      durations[event.myPhase.ordinal()] += event.getSelfDuration();
+      for (int i = 0; i < counters.length; i++) {
+        counters[i] += event.myCounters[i];
+      }
+    }
+  }
+
+  /**
+   * Writes recorded events to a file in the trace event format.
+   * Besides events, the file contains the self time of each phase and the values of counters
+   * in total and for each subject in the {@code otherData} field.
+   */
+  public void write(Path file) throws IOException {
+    List<Event> events = new ArrayList<>(myEvents);
+    events.sort(Comparator.comparingLong(event -> event.myStart));
+
+    Totals totals = new Totals();
+    Map<String, Totals> subjects = new TreeMap<>();
+    for (Event event : events) {
+      totals.add(event);
+      subjects.computeIfAbsent(event.mySubject, k -> new Totals()).add(event);
+    }
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+      boolean first = true;
+      for (Event event : events) {
+        if (!first) {
+          writer.write(',');
+        }
+        first = false;
+        writer.write("\n{\"name\":");
+        writeString(writer, event.mySubject);
+        writer.write(",\"cat\":");
+        writeString(writer, event.myPhase.name());
+        writer.write(",\"ph\":\"X\",\"pid\":1,\"tid\":" + event.myThread + ",\"ts\":" + (event.myStart - myStartTime) / 1000 + ",\"dur\":" + event.myDuration / 1000 + ",\"args\":{\"phase\":");
+        writeString(writer, event.myPhase.name());
+        for (Counter counter : Counter.values()) {
+          long count = event.myCounters[counter.ordinal()];
+          if (count != 0) {
+            writer.write(",");
+            writeString(writer, counter.name());
+            writer.write(":" + count);
+          }
+        }
+        writer.write("}}");
+      }
+
+      writer.write("\n],\"otherData\":{\"total\":");
+      writeTotals(writer, totals, true);
+      writer.write(",\"subjects\":{");
+      first = true;
+      for (Map.Entry<String, Totals> entry : subjects.entrySet()) {
+        if (!first) {
+          writer.write(',');
+        }
+        first = false;
+        writer.write('\n');
+        writeString(writer, entry.getKey());
+        writer.write(':');
+        writeTotals(writer, entry.getValue(), false);
+      }
+      writer.write("\n}}}\n");
+    }
+  }
+
+  private void writeTotals(Writer writer, Totals totals, boolean global) throws IOException {
+    writer.write('{');
+    boolean first = true;
+    for (Phase phase : Phase.values()) {
+      long duration = totals.durations[phase.ordinal()];
+      if (duration != 0 || global) {
+        if (!first) {
+          writer.write(',');
+        }
+        first = false;
+        writeString(writer, phase.name());
+        writer.write(":" + String.format(Locale.ROOT, "%.3f", duration / 1e6));
+      }
+    }
+    for (Counter counter : Counter.values()) {
+      long count = global ? getCount(counter) : totals.counters[counter.ordinal()];
+      if (count != 0 || global) {
+        if (!first) {
+          writer.write(',');
+        }
+        first = false;
+        writeString(writer, counter.name());
+        writer.write(":" + count);
+      }
+    }
+    writer.write('}');
+  }
+
+  private static void writeString(Writer writer, String string) throws IOException {
+    writer.write('"');
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      } else if (c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+      } else {
+        writer.write(c);
+      }
+    }
+    writer.write('"');
+  }
+}
@@ -0,0 +1,24 @@
+plugins {
+    id("me.champeau.gradle.jmh") version "0.5.3"
+}
+
+dependencies {
+    val protobufVersion: String by rootProject.ext
+    val antlrVersion: String by rootProject.ext
+    jmh("com.google.protobuf:protobuf-java:$protobufVersion")
+    jmh("org.antlr:antlr4-runtime:$antlrVersion")
+    jmh(project(":proto"))
+    jmh(project(":parser"))
+    jmh(project(":base"))
+    jmh(project(":cli"))
+}
+
+// Run a subset of benchmarks with ./gradlew :benchmarks:jmh -Pbenchmarks=<regexp>
+jmh {
+    jmhVersion = "1.35"
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+    (project.findProperty("benchmarks") as String?)?.let { include = listOf(it) }
+}
@@ -0,0 +1,206 @@
+package org.arend.benchmarks;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.library.LibraryHeader;
+import org.arend.library.LibraryManager;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.module.serialization.ModuleSerialization;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.FileUtils;
+import org.arend.util.Range;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A library of generated modules which is stored in a temporary directory.
+ * Benchmarks create it in their setup and check that it is typechecked without errors,
+ * so that they do not measure error reporting by accident.
+ */
+public class BenchmarkLibrary {
+  private final Path myDirectory;
+  private final Path mySourceDirectory;
+  private final Path myBinaryDirectory;
+  private final List<ModulePath> myModules = new ArrayList<>();
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter(myErrors);
+  private LibraryManager myLibraryManager;
+  private FileSourceLibrary myLibrary;
+
+  public BenchmarkLibrary() throws IOException {
+    myDirectory = Files.createTempDirectory("arend-benchmark");
+    mySourceDirectory = Files.createDirectory(myDirectory.resolve(FileUtils.DEFAULT_SOURCES_DIR));
+    myBinaryDirectory = Files.createDirectory(myDirectory.resolve(FileUtils.DEFAULT_BINARIES_DIR));
+  }
+
+  public void addModule(String name, String text) throws IOException {
+    ModulePath modulePath = new ModulePath(name);
+    Files.writeString(FileUtils.sourceFile(mySourceDirectory, modulePath), text);
+    myModules.add(modulePath);
+  }
+
+  /**
+   * Generates the text of module {@code Mi} which depends on the previous one.
+   * Every module contains functions defined by pattern matching, implementations of a record, and lemmas which are proved by computation.
+   */
+  public static String generateModule(int i, int definitions) {
+    StringBuilder builder = new StringBuilder();
+    if (i > 0) {
+      builder.append("\\import M").append(i - 1).append("\n");
+    }
+    builder.append("\\record R").append(i).append(" (x y : Nat) (p : x = y)\n");
+    for (int j = 0; j < definitions; j++) {
+      String f = "f" + i + "_" + j;
+      builder.append("\\func ").append(f).append(" (n : Nat) : Nat\n")
+        .append("  | 0 => ").append(j).append("\n")
+        .append("  | suc n => suc (suc (").append(f).append(" n))\n");
+      builder.append("\\func ").append(f).append("-lemma : ").append(f).append(" 5 = ").append(j + 10).append(" => idp\n");
+      builder.append("\\func ").append(f).append("-rec : R").append(i).append(" \\cowith\n")
+        .append("  | x => ").append(f).append(" 3\n")
+        .append("  | y => ").append(j + 6).append("\n")
+        .append("  | p => idp\n");
+      if (i > 0) {
+        String g = "f" + (i - 1) + "_" + j;
+        builder.append("\\func ").append(f).append("-prev (n : Nat) : ").append(g).append(" (suc n) = suc (suc (").append(g).append(" n)) => idp\n");
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Adds modules {@code M0}, ..., {@code M(n-1)} generated by {@link #generateModule}.
+   */
+  public void addGeneratedModules(int modules, int definitionsPerModule) throws IOException {
+    for (int i = 0; i < modules; i++) {
+      addModule("M" + i, generateModule(i, definitionsPerModule));
+    }
+  }
+
+  public TypecheckingOrderingListener newTypechecking() {
+    return new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, PositionComparator.INSTANCE, ref -> null);
+  }
+
+  private void checkErrors() {
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Benchmark library has errors: " + myErrors);
+    }
+  }
+
+  /**
+   * Loads the library from sources or binaries in a new library manager.
+   *
+   * @param fromSources  if false, the library is loaded only from binaries which were persisted before.
+   */
+  public void load(boolean fromSources) {
+    myLibraryManager = new LibraryManager((lib, name) -> null, new InstanceProviderSet(), myErrorReporter, myErrorReporter, DefinitionRequester.INSTANCE, null);
+    if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(), null)) {
+      throw new IllegalStateException("Cannot load prelude: " + myErrors);
+    }
+
+    LibraryHeader header = new LibraryHeader(myModules, Collections.emptyList(), null, Range.unbound(), null, null);
+    myLibrary = new FileSourceLibrary("benchmark", fromSources ? mySourceDirectory : null, myBinaryDirectory, header, DummyDependencyListener.INSTANCE);
+    if (!myLibraryManager.loadLibrary(myLibrary, null)) {
+      throw new IllegalStateException("Cannot load benchmark library: " + myErrors);
+    }
+    checkErrors();
+  }
+
+  public void typecheck(TypecheckingOrderingListener typechecking) {
+    if (!typechecking.typecheckLibrary(myLibrary)) {
+      throw new IllegalStateException("Typechecking of the benchmark library is interrupted");
+    }
+    checkErrors();
+  }
+
+  public void typecheck() {
+    typecheck(newTypechecking());
+  }
+
+  public void persist() {
+    myLibrary.persistUpdatedModules(myErrorReporter);
+    checkErrors();
+  }
+
+  /**
+   * Writes binaries of all modules in the same format as {@link #persist()}.
+   *
+   * @param shareExpressions  if false, expressions are not shared between definitions.
+   */
+  public void persist(boolean shareExpressions) throws IOException {
+    for (ModulePath module : myModules) {
+      ChildGroup group = myLibrary.getModuleGroup(module, false);
+      ModuleProtos.Module proto = group == null ? null : new ModuleSerialization(myErrorReporter, DummyDependencyListener.INSTANCE, shareExpressions).writeModule(group, module, IdReferableConverter.INSTANCE);
+      if (proto == null) {
+        throw new IllegalStateException("Cannot persist module " + module + ": " + myErrors);
+      }
+      try (OutputStream stream = new GZIPOutputStream(Files.newOutputStream(FileUtils.binaryFile(myBinaryDirectory, module)))) {
+        proto.writeTo(stream);
+      }
+    }
+  }
+
+  /**
+   * @return the total size of binaries of modules in bytes.
+   */
+  public long getBinarySize() throws IOException {
+    long size = 0;
+    for (ModulePath module : myModules) {
+      size += Files.size(FileUtils.binaryFile(myBinaryDirectory, module));
+    }
+    return size;
+  }
+
+  public void unload() {
+    if (myLibraryManager != null) {
+      myLibraryManager.unloadLibrary(myLibrary);
+      myLibraryManager = null;
+      myLibrary = null;
+    }
+  }
+
+  public LibraryManager getLibraryManager() {
+    return myLibraryManager;
+  }
+
+  public Definition getDefinition(String module, String name) {
+    ChildGroup group = myLibrary.getModuleGroup(new ModulePath(module), false);
+    Referable ref = group == null ? null : Scope.resolveName(group.getGroupScope(), Arrays.asList(name.split("\\.")));
+    Definition definition = ref instanceof TCDefReferable ? ((TCDefReferable) ref).getTypechecked() : null;
+    if (definition == null) {
+      throw new IllegalArgumentException("Cannot find definition " + module + "." + name);
+    }
+    return definition;
+  }
+
+  public void delete() throws IOException {
+    unload();
+    try (Stream<Path> files = Files.walk(myDirectory)) {
+      List<Path> list = new ArrayList<>();
+      files.forEach(list::add);
+      Collections.reverse(list);
+      for (Path file : list) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package org.arend.benchmarks;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.type.Type;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion checking of class calls and instances of a record with many fields.
+ * The implementations of the compared expressions are equal only up to normalization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConversionBenchmark {
+  @Param({"10", "100"})
+  public int fields;
+
+  private BenchmarkLibrary myLibrary;
+  private Expression myClassCall1;
+  private Expression myClassCall2;
+  private Expression myNew1;
+  private Expression myNew2;
+
+  private Expression getBody(String name) {
+    return (Expression) ((FunctionDefinition) myLibrary.getDefinition("Classes", name)).getBody();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\open Nat\n");
+    builder.append("\\func double (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (double n))\n");
+    builder.append("\\record Big");
+    for (int i = 0; i < fields; i++) {
+      builder.append(" (f").append(i).append(" : Nat)");
+    }
+    builder.append("\n");
+
+    StringBuilder args1 = new StringBuilder();
+    StringBuilder args2 = new StringBuilder();
+    for (int i = 0; i < fields; i++) {
+      args1.append(" (double ").append(i).append(")");
+      args2.append(" (").append(i).append(" + ").append(i).append(")");
+    }
+    builder.append("\\func classCall1 => Big").append(args1).append("\n");
+    builder.append("\\func classCall2 => Big").append(args2).append("\n");
+    builder.append("\\func new1 => \\new Big").append(args1).append("\n");
+    builder.append("\\func new2 => \\new Big").append(args2).append("\n");
+
+    myLibrary = new BenchmarkLibrary();
+    myLibrary.addModule("Classes", builder.toString());
+    myLibrary.load(true);
+    myLibrary.typecheck();
+
+    myClassCall1 = getBody("classCall1");
+    myClassCall2 = getBody("classCall2");
+    myNew1 = getBody("new1");
+    myNew2 = getBody("new2");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Benchmark
+  public boolean classCalls() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myClassCall1, myClassCall2, Type.OMEGA, null);
+  }
+
+  @Benchmark
+  public boolean subclassCalls() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.LE, myClassCall1, myClassCall2, Type.OMEGA, null);
+  }
+
+  @Benchmark
+  public boolean newExpressions() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myNew1, myNew2, myNew1.getType(), null);
+  }
+}
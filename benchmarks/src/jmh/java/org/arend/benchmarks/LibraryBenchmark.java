@@ -0,0 +1,93 @@
+package org.arend.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end loading and typechecking of generated libraries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class LibraryBenchmark {
+  @Param({"5", "20"})
+  public int modules;
+
+  @Param({"10", "50"})
+  public int definitions;
+
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myLibrary = new BenchmarkLibrary();
+    myLibrary.addGeneratedModules(modules, definitions);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @TearDown(Level.Iteration)
+  public void unload() {
+    myLibrary.unload();
+  }
+
+  /**
+   * Parses, resolves, and typechecks the library.
+   */
+  @Benchmark
+  public void typecheck() {
+    myLibrary.load(true);
+    myLibrary.typecheck();
+  }
+
+  /**
+   * Typechecks the library in parallel.
+   */
+  @Benchmark
+  public void typecheckParallel() {
+    myLibrary.load(true);
+    var typechecking = myLibrary.newTypechecking();
+    typechecking.setParallelism(Runtime.getRuntime().availableProcessors());
+    myLibrary.typecheck(typechecking);
+  }
+
+  @State(Scope.Benchmark)
+  public static class Persisted {
+    BenchmarkLibrary library;
+
+    @Setup(Level.Trial)
+    public void setup(LibraryBenchmark benchmark) throws IOException {
+      library = new BenchmarkLibrary();
+      library.addGeneratedModules(benchmark.modules, benchmark.definitions);
+      library.load(true);
+      library.typecheck();
+      library.persist();
+      library.unload();
+    }
+
+    @TearDown(Level.Iteration)
+    public void unload() {
+      library.unload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      library.delete();
+    }
+  }
+
+  /**
+   * Loads the library from binaries.
+   */
+  @Benchmark
+  public void loadBinaries(Persisted persisted) {
+    persisted.library.load(false);
+  }
+}
@@ -0,0 +1,82 @@
+package org.arend.benchmarks;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.FunCallExpression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization of functions which are defined in terms of prelude arithmetic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NormalizationBenchmark {
+  @Param({"100", "1000"})
+  public int size;
+
+  private BenchmarkLibrary myLibrary;
+  private Expression mySum;
+  private Expression myFactorial;
+  private Expression myDouble;
+  private Expression myMinus;
+
+  private Expression makeCall(String name, int argument) {
+    FunctionDefinition function = (FunctionDefinition) myLibrary.getDefinition("Arith", name);
+    return FunCallExpression.make(function, function.makeIdLevels(), Collections.singletonList(new SmallIntegerExpression(argument)));
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    myLibrary = new BenchmarkLibrary();
+    myLibrary.addModule("Arith",
+      "\\open Nat\n" +
+      "\\func sum (n : Nat) : Nat | 0 => 0 | suc n => suc n + sum n\n" +
+      "\\func factorial (n : Nat) : Nat | 0 => 1 | suc n => suc n * factorial n\n" +
+      "\\func double (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (double n))\n" +
+      "\\func minus (n : Nat) : Int => double n - sum n");
+    myLibrary.load(true);
+    myLibrary.typecheck();
+
+    mySum = makeCall("sum", size);
+    myFactorial = makeCall("factorial", size);
+    myDouble = makeCall("double", size);
+    myMinus = makeCall("minus", size);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Benchmark
+  public Expression sum() {
+    return mySum.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression factorial() {
+    return myFactorial.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression sucChain() {
+    return myDouble.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression minus() {
+    return myMinus.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression sumWHNF() {
+    return mySum.normalize(NormalizationMode.WHNF);
+  }
+}
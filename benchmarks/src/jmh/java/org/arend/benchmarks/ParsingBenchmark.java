@@ -0,0 +1,84 @@
+package org.arend.benchmarks;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.parser.ArendLexer;
+import org.arend.frontend.parser.ArendParser;
+import org.arend.frontend.parser.ParsingMode;
+import org.arend.frontend.parser.ReporterErrorListener;
+import org.arend.prelude.Prelude;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing and parsing of the source of prelude and of a large generated module.
+ * The number of parsed bytes per second is reported by the {@code bytes} counter; divide it by 10^6 to get MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParsingBenchmark {
+  @Param({"prelude", "generated"})
+  public String input;
+
+  @Param({"LL", "SLL_THEN_LL"})
+  public ParsingMode mode;
+
+  private String myText;
+  private int myBytes;
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private final ReporterErrorListener myErrorListener = new ReporterErrorListener(new ListErrorReporter(myErrors), new ModulePath("Benchmark"));
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long bytes;
+  }
+
+  private static String readPrelude() throws IOException {
+    try (InputStream stream = Prelude.class.getResourceAsStream("/lib/Prelude.ard")) {
+      if (stream != null) {
+        return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+      }
+    }
+    return Files.readString(Paths.get("lib", "Prelude.ard"));
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    myText = input.equals("prelude") ? readPrelude() : BenchmarkLibrary.generateModule(1, 5000);
+    myBytes = myText.getBytes(StandardCharsets.UTF_8).length;
+    parse();
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Benchmark source has errors: " + myErrors);
+    }
+  }
+
+  private ArendParser.StatementsContext parse() {
+    ArendLexer lexer = new ArendLexer(CharStreams.fromString(myText));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(myErrorListener);
+
+    ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(myErrorListener);
+    return mode.parse(parser, ArendParser::statements);
+  }
+
+  @Benchmark
+  public ArendParser.StatementsContext parse(Counters counters) {
+    counters.bytes += myBytes;
+    return parse();
+  }
+}
@@ -0,0 +1,43 @@
+package org.arend.benchmarks;
+
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.prelude.PreludeResourceSource;
+import org.arend.source.GZIPStreamBinarySource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading of the binary of prelude.
+ * Prelude can be deserialized only once per process since its definitions are global,
+ * so deserialization of binaries is measured by {@link LibraryBenchmark#loadBinaries}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreludeBenchmark {
+  private static class PreludeBinarySource extends GZIPStreamBinarySource {
+    PreludeBinarySource() {
+      super(new PreludeResourceSource());
+    }
+
+    ModuleProtos.Module parse() throws IOException {
+      return parseModuleProto();
+    }
+  }
+
+  private final PreludeBinarySource mySource = new PreludeBinarySource();
+
+  @Setup
+  public void setup() throws IOException {
+    if (mySource.parse() == null) {
+      throw new IllegalStateException("Cannot find the binary of prelude");
+    }
+  }
+
+  @Benchmark
+  public ModuleProtos.Module parse() throws IOException {
+    return mySource.parse();
+  }
+}
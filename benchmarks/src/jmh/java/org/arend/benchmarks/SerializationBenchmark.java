@@ -0,0 +1,57 @@
+package org.arend.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of generated libraries from binaries written with and without shared expressions.
+ * The total size of the binaries is printed when they are written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SerializationBenchmark {
+  @Param({"5", "20"})
+  public int modules;
+
+  @Param({"10", "50"})
+  public int definitions;
+
+  @Param({"true", "false"})
+  public boolean shareExpressions;
+
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myLibrary = new BenchmarkLibrary();
+    myLibrary.addGeneratedModules(modules, definitions);
+    myLibrary.load(true);
+    myLibrary.typecheck();
+    myLibrary.persist(shareExpressions);
+    myLibrary.unload();
+    System.out.println("Binary size (modules = " + modules + ", definitions = " + definitions + ", shared = " + shareExpressions + "): " + myLibrary.getBinarySize() + " bytes");
+  }
+
+  @TearDown(Level.Iteration)
+  public void unload() {
+    myLibrary.unload();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  /**
+   * Loads the library from binaries.
+   */
+  @Benchmark
+  public void loadBinaries() {
+    myLibrary.load(false);
+  }
+}
@@ -0,0 +1,61 @@
+package org.arend.benchmarks;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.subst.ExprSubstitution;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substitution of an argument into nested lambdas which refer to it at every level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubstitutionBenchmark {
+  @Param({"50", "500"})
+  public int depth;
+
+  private BenchmarkLibrary myLibrary;
+  private FunctionDefinition myFunction;
+  private Expression myBody;
+  private Expression myArgument;
+
+  @Setup
+  public void setup() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\open Nat\n");
+    builder.append("\\func deep (y : Nat) =>");
+    for (int i = 0; i < depth; i++) {
+      builder.append(" \\lam (x").append(i).append(" : Nat) => \\let z").append(i).append(" => y + x").append(i).append(" \\in");
+    }
+    builder.append(" y\n");
+
+    myLibrary = new BenchmarkLibrary();
+    myLibrary.addModule("Lambdas", builder.toString());
+    myLibrary.load(true);
+    myLibrary.typecheck();
+
+    myFunction = (FunctionDefinition) myLibrary.getDefinition("Lambdas", "deep");
+    myBody = (Expression) myFunction.getBody();
+    myArgument = new SmallIntegerExpression(7);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Benchmark
+  public Expression substitute() {
+    return myBody.subst(new ExprSubstitution(myFunction.getParameters(), myArgument));
+  }
+
+  @Benchmark
+  public Expression copy() {
+    return myBody.copy();
+  }
+}
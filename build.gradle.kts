@@ -49,7 +49,6 @@ allprojects {
 
 subprojects {
     apply {
-        plugin("maven-publish")
         plugin("java-library")
     }
 
@@ -59,6 +58,13 @@ subprojects {
         // withJavadocJar()
     }
 
+    // Benchmarks are not a library
+    if (name == "benchmarks") return@subprojects
+
+    apply {
+        plugin("maven-publish")
+    }
+
     publishing {
         publications {
             create<MavenPublication>("maven") {
@@ -91,6 +97,7 @@ dependencies {
     testImplementation(project(":base"))
     testImplementation(project(":parser"))
     testImplementation(project(":cli"))
+    testImplementation("com.fasterxml.jackson.core:jackson-databind:2.11.2")
 
     testImplementation("junit:junit:4.13.1")
     testImplementation("org.hamcrest:hamcrest-library:1.3")
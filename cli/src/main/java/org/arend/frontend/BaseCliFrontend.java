@@ -14,6 +14,7 @@ import org.arend.ext.module.ModulePath;
 import org.arend.ext.prettyprinting.PrettyPrinterConfig;
 import org.arend.ext.prettyprinting.PrettyPrinterFlag;
 import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.daemon.CliDaemon;
 import org.arend.frontend.library.FileSourceLibrary;
 import org.arend.frontend.library.PreludeFileLibrary;
 import org.arend.frontend.library.TimedLibraryManager;
@@ -41,6 +42,7 @@ import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.MetaDependencyCollector;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
+import org.arend.util.Profiler;
 import org.arend.ext.util.Pair;
 import org.arend.util.Range;
 import org.jetbrains.annotations.NotNull;
@@ -48,6 +50,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -58,6 +61,11 @@ import static org.arend.frontend.library.TimedLibraryManager.timeToString;
 public abstract class BaseCliFrontend {
   // Typechecking
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final ErrorReporter mySynchronizedErrorReporter = error -> {
+    synchronized (myErrorReporter) {
+      myErrorReporter.report(error);
+    }
+  };
   private final Map<ModulePath, GeneralError.Level> myModuleResults = new LinkedHashMap<>();
   private final DependencyListener myDependencyCollector = new MetaDependencyCollector();
   private Map<TCDefReferable, Pair<Long,Long>> myTimes = null;
@@ -124,16 +132,16 @@ public abstract class BaseCliFrontend {
     private int failed;
 
     MyTypechecking() {
-      super(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
+      super(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, mySynchronizedErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
     }
 
-    private void startTimer(TCDefReferable ref) {
+    private synchronized void startTimer(TCDefReferable ref) {
       if (myTimes != null) {
         myTimes.compute(ref, (r,pair) -> new Pair<>(System.currentTimeMillis(), pair == null ? 0 : pair.proj2));
       }
     }
 
-    private void stopTimer(TCDefReferable ref) {
+    private synchronized void stopTimer(TCDefReferable ref) {
       if (myTimes != null) {
         myTimes.compute(ref, (r,pair) -> pair == null ? new Pair<>(0L, 0L) : new Pair<>(pair.proj1, pair.proj2 + (System.currentTimeMillis() - pair.proj1)));
       }
@@ -179,7 +187,7 @@ public abstract class BaseCliFrontend {
       stopTimer(definition);
     }
 
-    private void handleDef(Definition definition) {
+    private synchronized void handleDef(Definition definition) {
       flushErrors();
 
       LocatedReferable parent = definition.getRef().getLocatedReferableParent();
@@ -221,10 +229,16 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("m").longOpt("extension-main").hasArg().argName("class").desc("main extension class").build());
       cmdOptions.addOption(Option.builder("r").longOpt("recompile").hasArg().optionalArg(true).argName("target").desc("recompile files").build());
       cmdOptions.addOption(Option.builder("c").longOpt("double-check").desc("double check correctness of the result").build());
+      cmdOptions.addOption(Option.builder().longOpt("double-check-updated").desc("double check only modules which were typechecked rather than loaded from binaries").build());
+      cmdOptions.addOption(Option.builder("j").longOpt("threads").hasArg().argName("n").desc("number of threads used for loading, typechecking, and double checking (default 1)").build());
       cmdOptions.addOption(Option.builder("i").longOpt("interactive").hasArg().optionalArg(true).argName("type").desc("start an interactive REPL, type can be plain or jline (default)").build());
+      cmdOptions.addOption(Option.builder().longOpt("daemon").desc("keep libraries loaded and process requests in the JSON format from the standard input").build());
       cmdOptions.addOption(Option.builder("p").longOpt("print").hasArg().argName("target").desc("print a definition or a module").build());
       cmdOptions.addOption("t", "test", false, "run tests");
       cmdOptions.addOption("v", "version", false, "print language version");
+      cmdOptions.addOption(Option.builder().longOpt("normalization-cache").hasArg().argName("size").desc("number of normal forms cached while a definition is typechecked (default 0)").build());
+      cmdOptions.addOption(Option.builder().longOpt("pack").desc("bundle binaries of the project into a single file which is faster to load").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile").hasArg().argName("file").desc("write times of loading and typechecking phases to a file in the trace event format").build());
       cmdOptions.addOption(Option.builder().longOpt("show-times").build());
       cmdOptions.addOption(Option.builder().longOpt("show-sizes").build());
       addCommandOptions(cmdOptions);
@@ -250,6 +264,20 @@ public abstract class BaseCliFrontend {
 
   protected void addCommandOptions(Options cmdOptions) {}
 
+  private int parseThreads(CommandLine cmdLine) {
+    String threadsString = cmdLine.getOptionValue("j");
+    if (threadsString == null) {
+      return 1;
+    }
+    try {
+      return Integer.parseInt(threadsString);
+    } catch (NumberFormatException e) {
+      myExitWithError = true;
+      System.err.println("[ERROR] Illegal number of threads: " + threadsString);
+      return 1;
+    }
+  }
+
   private Pair<ModulePath, LongName> parseFullName(String fullName) {
     ModulePath modulePath;
     LongName longName = null;
@@ -302,6 +330,11 @@ public abstract class BaseCliFrontend {
       mySizes = new HashMap<>();
     }
 
+    String profileString = cmdLine.getOptionValue("profile");
+    if (profileString != null) {
+      Profiler.enable();
+    }
+
     String printString = cmdLine.getOptionValue("p");
     if (printString != null) {
       Pair<ModulePath, LongName> pair = parseFullName(printString);
@@ -334,6 +367,15 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
+    if (cmdLine.hasOption("daemon")) {
+      List<String> argFiles = cmdLine.getArgList();
+      Path libraryPath = argFiles.isEmpty() ? FileUtils.getCurrentDirectory() : Paths.get(argFiles.get(0));
+      if (!CliDaemon.launch(libDirs, libraryPath, recompile, parseThreads(cmdLine))) {
+        myExitWithError = true;
+      }
+      return cmdLine;
+    }
+
     // Dtw: load prelude (either from binary or raw text format)
     // todo: changed this to PreludeFileLibrary for now (since I don't want to think about serialization yet)
     //      (use the -r flag active for now too)
@@ -437,7 +479,20 @@ public abstract class BaseCliFrontend {
 
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
-    boolean doubleCheck = cmdLine.hasOption("c");
+    int threads = parseThreads(cmdLine);
+    typechecking.setParallelism(threads);
+    myLibraryManager.setLoadingParallelism(threads);
+    String normalizationCacheString = cmdLine.getOptionValue("normalization-cache");
+    if (normalizationCacheString != null) {
+      try {
+        typechecking.setNormalizationCacheSize(Integer.parseInt(normalizationCacheString));
+      } catch (NumberFormatException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Illegal size of the normalization cache: " + normalizationCacheString);
+      }
+    }
+    boolean doubleCheckUpdated = cmdLine.hasOption("double-check-updated");
+    boolean doubleCheck = doubleCheckUpdated || cmdLine.hasOption("c");
     for (SourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
       if (recompile) {
@@ -505,6 +560,7 @@ public abstract class BaseCliFrontend {
       }
 
       Collection<? extends ModulePath> modules = library.getUpdatedModules();
+      List<ModulePath> modulesToCheck = doubleCheckUpdated ? new ArrayList<>(modules) : null;
       int numWithErrors = 0;
       if (!modules.isEmpty() || forcedDefs != null) {
         System.out.println();
@@ -539,6 +595,9 @@ public abstract class BaseCliFrontend {
           if (numWithGoals > 0) {
             System.out.println("Number of modules with goals: " + numWithGoals);
           }
+          if (typechecking.getNormalizationCacheSize() > 0) {
+            System.out.println("Normalization cache: " + typechecking.getNormalizationCacheHits() + " hits, " + typechecking.getNormalizationCacheMisses() + " misses");
+          }
           System.out.println("--- Done (" + timeToString(time) + ") ---");
         }
 
@@ -548,6 +607,10 @@ public abstract class BaseCliFrontend {
         }
       }
 
+      if (cmdLine.hasOption("pack") && library instanceof FileSourceLibrary && library.supportsPersisting()) {
+        ((FileSourceLibrary) library).writeBinaryPack(mySystemErrErrorReporter);
+      }
+
       if (myTimes != null && !myTimes.isEmpty()) {
         System.out.println();
         List<Pair<TCDefReferable,Long>> list = new ArrayList<>(myTimes.size());
@@ -585,13 +648,14 @@ public abstract class BaseCliFrontend {
         long time = System.currentTimeMillis();
 
         try {
-          CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
-          for (ModulePath module : library.getLoadedModules()) {
+          List<Group> groups = new ArrayList<>();
+          for (ModulePath module : modulesToCheck != null ? modulesToCheck : library.getLoadedModules()) {
             Group group = library.getModuleGroup(module, false);
             if (group != null) {
-              checker.checkGroup(group);
+              groups.add(group);
             }
           }
+          new CoreModuleChecker(myErrorReporter).checkGroups(groups, threads);
         } finally {
           time = System.currentTimeMillis() - time;
           flushErrors();
@@ -634,13 +698,14 @@ public abstract class BaseCliFrontend {
               }
             }
             if (doCheck) {
-              CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
+              List<Group> groups = new ArrayList<>();
               for (ModulePath module : modules) {
                 Group group = library.getModuleGroup(module, true);
                 if (group != null) {
-                  checker.checkGroup(group);
+                  groups.add(group);
                 }
               }
+              new CoreModuleChecker(myErrorReporter).checkGroups(groups, threads);
             }
           }
         } finally {
@@ -652,10 +717,28 @@ public abstract class BaseCliFrontend {
       }
     }
 
+    Profiler profiler = Profiler.getInstance();
+    if (profileString != null && profiler != null) {
+      try {
+        profiler.write(Paths.get(profileString));
+        System.out.println("[INFO] Profile is written to " + profileString);
+      } catch (IOException | InvalidPathException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Cannot write profile to " + profileString + ": " + e.getMessage());
+      }
+      Profiler.disable();
+    }
+
     return cmdLine;
   }
 
   private void flushErrors() {
+    synchronized (myErrorReporter) {
+      doFlushErrors();
+    }
+  }
+
+  private void doFlushErrors() {
     for (GeneralError error : myErrorReporter.getErrorList()) {
       error.forAffectedDefinitions((referable, err) -> {
         if (referable instanceof LocatedReferable) {
@@ -0,0 +1,424 @@
+package org.arend.frontend.daemon;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.LongName;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.prettyprinting.PrettyPrinterConfig;
+import org.arend.ext.prettyprinting.PrettyPrinterFlag;
+import org.arend.ext.util.Pair;
+import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.FileLibraryResolver;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.frontend.library.PreludeFileLibrary;
+import org.arend.library.LibraryManager;
+import org.arend.library.SourceLibrary;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.Scope;
+import org.arend.source.Source;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.group.Group;
+import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
+import org.arend.term.prettyprint.ToAbstractVisitor;
+import org.arend.typechecking.LibraryArendExtensionProvider;
+import org.arend.typechecking.error.local.GoalError;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.MetaDependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.FileUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A long-running process which keeps the prelude, the dependencies of a library and its typechecked definitions in memory.
+ * Requests (see {@link DaemonRequest}) are read from the standard input, one JSON object per line,
+ * and every request is answered with one JSON object per line on the standard output.
+ * Before a request is processed, the library is reloaded if some of its source files were modified since the previous request.
+ * Modules whose binaries are up to date are loaded from binaries, so only modified modules are typechecked again.
+ */
+public class CliDaemon {
+  private final ObjectMapper myMapper = new ObjectMapper();
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final ErrorReporter mySynchronizedErrorReporter = error -> {
+    synchronized (myErrorReporter) {
+      myErrorReporter.report(error);
+    }
+  };
+  private final DependencyListener myDependencyCollector = new MetaDependencyCollector();
+  private final FileLibraryResolver myLibraryResolver;
+  private final LibraryManager myLibraryManager;
+  private final TypecheckingOrderingListener myTypechecking;
+  private SourceLibrary myLibrary;
+  private Map<ModulePath, Long> myTimeStamps;
+
+  public CliDaemon(@NotNull Collection<? extends Path> libDirs, int threads) {
+    myLibraryResolver = new FileLibraryResolver(new ArrayList<>(libDirs), mySynchronizedErrorReporter, myDependencyCollector);
+    myLibraryManager = new LibraryManager(myLibraryResolver, new InstanceProviderSet(), mySynchronizedErrorReporter, mySynchronizedErrorReporter, DefinitionRequester.INSTANCE, null);
+    myLibraryManager.setLoadingParallelism(threads);
+    myTypechecking = new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, mySynchronizedErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
+    myTypechecking.setParallelism(threads);
+  }
+
+  /**
+   * Loads the prelude and registers the library.
+   *
+   * @param libraryPath a path to the library directory or to its header file.
+   * @param recompile   if true, binaries of the library are ignored when it is loaded for the first time.
+   *
+   * @return true if the daemon is ready to process requests, false otherwise.
+   */
+  public boolean initialize(@NotNull Path libraryPath, boolean recompile) {
+    return initialize(myLibraryResolver.registerLibrary(libraryPath.toAbsolutePath().normalize()), recompile);
+  }
+
+  /**
+   * Loads the prelude and sets the library which is checked by requests.
+   * The library is loaded when the first request is processed.
+   *
+   * @return true if the daemon is ready to process requests, false otherwise.
+   */
+  public boolean initialize(@Nullable SourceLibrary library, boolean recompile) {
+    myLibrary = library;
+    boolean ok = library != null && myLibraryManager.loadLibrary(new PreludeFileLibrary(null), null);
+    if (ok && recompile) {
+      myLibrary.addFlag(SourceLibrary.Flag.RECOMPILE);
+    }
+
+    synchronized (myErrorReporter) {
+      for (GeneralError error : myErrorReporter.getErrorList()) {
+        System.err.println(error);
+      }
+      myErrorReporter.getErrorList().clear();
+    }
+    System.err.flush();
+    return ok;
+  }
+
+  public void run(@NotNull BufferedReader reader, @NotNull PrintStream out) throws IOException {
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+
+      ObjectNode response = myMapper.createObjectNode();
+      boolean stop = false;
+      try {
+        DaemonRequest request = myMapper.readValue(line, DaemonRequest.class);
+        if (request.id != null) {
+          response.set("id", request.id);
+        }
+        stop = handle(request, response);
+      } catch (JsonProcessingException e) {
+        mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Cannot parse request: " + e.getOriginalMessage()));
+      } catch (Exception e) {
+        mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Cannot process request: " + e));
+      }
+
+      flushErrors(response);
+      out.println(myMapper.writeValueAsString(response));
+      out.flush();
+      if (stop) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * @return true if the daemon should stop after this request.
+   */
+  private boolean handle(DaemonRequest request, ObjectNode response) {
+    if (request.command == null) {
+      mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Request does not specify a command"));
+      return false;
+    }
+
+    switch (request.command) {
+      case "check":
+        check(request.target, response);
+        return false;
+      case "print":
+        print(request.target, response);
+        return false;
+      case "reload":
+        update(true, response);
+        return false;
+      case "shutdown":
+        return true;
+      default:
+        mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Unknown command: " + request.command));
+        return false;
+    }
+  }
+
+  private void check(@Nullable String target, ObjectNode response) {
+    Pair<ModulePath, LongName> name = null;
+    if (target != null) {
+      name = parseTarget(target);
+      if (name == null) return;
+    }
+    if (!update(false, response) || name == null) {
+      return;
+    }
+
+    List<TCDefReferable> refs = resolveTarget(name.proj1, name.proj2);
+    if (refs == null) {
+      return;
+    }
+
+    List<Concrete.Definition> definitions = new ArrayList<>();
+    for (TCDefReferable ref : refs) {
+      if (ref.getTypechecked() == null) {
+        var def = ConcreteReferableProvider.INSTANCE.getConcrete(ref);
+        if (def instanceof Concrete.Definition) {
+          definitions.add((Concrete.Definition) def);
+        }
+      }
+    }
+    if (!definitions.isEmpty()) {
+      myTypechecking.typecheckDefinitions(definitions, null);
+    }
+
+    boolean hasErrors = false;
+    ArrayNode array = response.putArray("definitions");
+    for (TCDefReferable ref : refs) {
+      Definition def = ref.getTypechecked();
+      ObjectNode node = array.addObject();
+      node.put("name", getFullName(ref));
+      node.put("status", def == null ? null : def.status().toString());
+      if (def == null || def.status().hasErrors()) {
+        hasErrors = true;
+      }
+    }
+    if (hasErrors) {
+      response.put("status", "error");
+    }
+  }
+
+  private void print(@Nullable String target, ObjectNode response) {
+    if (target == null) {
+      mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Request does not specify a target"));
+      return;
+    }
+    Pair<ModulePath, LongName> name = parseTarget(target);
+    if (name == null || !update(false, response)) {
+      return;
+    }
+
+    List<TCDefReferable> refs = resolveTarget(name.proj1, name.proj2);
+    if (refs == null) {
+      return;
+    }
+
+    StringBuilder builder = new StringBuilder();
+    for (TCDefReferable ref : refs) {
+      Definition def = ref.getTypechecked();
+      if (def instanceof FunctionDefinition || def instanceof DataDefinition || def instanceof ClassDefinition) {
+        if (builder.length() > 0) {
+          builder.append("\n\n");
+        }
+        ToAbstractVisitor.convert(def, PrettyPrinterConfig.DEFAULT).prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+      }
+    }
+    response.put("output", builder.toString());
+  }
+
+  /**
+   * Loads the library if it was not loaded yet or if its sources were modified since the last time it was loaded.
+   * Only the library itself is reloaded; its dependencies and the prelude are kept.
+   *
+   * @param force if true, the library is reloaded even if its sources were not modified.
+   *
+   * @return true if the library is loaded, false otherwise.
+   */
+  private boolean update(boolean force, ObjectNode response) {
+    Map<ModulePath, Long> timeStamps = new HashMap<>();
+    for (ModulePath module : collectModules()) {
+      timeStamps.put(module, getTimeStamp(module));
+    }
+
+    if (myTimeStamps != null) {
+      if (!force && timeStamps.equals(myTimeStamps)) {
+        response.put("reloaded", false);
+        if (!myLibraryManager.isRegistered(myLibrary)) {
+          mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Library '" + myLibrary.getName() + "' is not loaded"));
+          return false;
+        }
+        return true;
+      }
+      myLibraryManager.unloadLibrary(myLibrary);
+    }
+
+    myTimeStamps = timeStamps;
+    response.put("reloaded", true);
+    boolean loaded = myLibraryManager.loadLibrary(myLibrary, myTypechecking);
+    myLibrary.removeFlag(SourceLibrary.Flag.RECOMPILE);
+
+    // The source directory is known only after the header of the library is loaded
+    for (ModulePath module : collectModules()) {
+      myTimeStamps.computeIfAbsent(module, this::getTimeStamp);
+    }
+    if (!loaded) {
+      return false;
+    }
+
+    Collection<? extends ModulePath> modules = myLibrary.getUpdatedModules();
+    ArrayNode array = response.putArray("typecheckedModules");
+    for (ModulePath module : modules) {
+      array.add(module.toString());
+    }
+    if (!modules.isEmpty()) {
+      myTypechecking.typecheckLibrary(myLibrary);
+      if (myLibrary.supportsPersisting()) {
+        myLibrary.persistUpdatedModules(mySynchronizedErrorReporter);
+      }
+    }
+    return true;
+  }
+
+  private Set<ModulePath> collectModules() {
+    Set<ModulePath> modules = new LinkedHashSet<>(myLibrary.getLoadedModules());
+    if (myLibrary instanceof FileSourceLibrary) {
+      Path sourceDir = ((FileSourceLibrary) myLibrary).getSourceBasePath();
+      if (sourceDir != null && Files.isDirectory(sourceDir)) {
+        FileUtils.getModules(sourceDir, FileUtils.EXTENSION, modules, mySynchronizedErrorReporter);
+      }
+    }
+    return modules;
+  }
+
+  private long getTimeStamp(ModulePath module) {
+    Source source = myLibrary.getRawSource(module);
+    return source == null ? 0 : source.getTimeStamp();
+  }
+
+  private @Nullable Pair<ModulePath, LongName> parseTarget(String target) {
+    LongName longName = null;
+    int index = target.indexOf(':');
+    if (index >= 0) {
+      longName = LongName.fromString(target.substring(index + 1));
+      if (!FileUtils.isCorrectDefinitionName(longName)) {
+        mySynchronizedErrorReporter.report(FileUtils.illegalDefinitionName(longName.toString()));
+        return null;
+      }
+      target = target.substring(0, index);
+    }
+    ModulePath modulePath = ModulePath.fromString(target);
+    if (!FileUtils.isCorrectModulePath(modulePath)) {
+      mySynchronizedErrorReporter.report(FileUtils.illegalModuleName(modulePath.toString()));
+      return null;
+    }
+    return new Pair<>(modulePath, longName);
+  }
+
+  private @Nullable List<TCDefReferable> resolveTarget(ModulePath module, @Nullable LongName longName) {
+    if (longName != null) {
+      Scope scope = myLibrary.getModuleScopeProvider().forModule(module);
+      if (scope == null) {
+        mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Cannot find module '" + module + "' in library '" + myLibrary.getName() + "'"));
+        return null;
+      }
+      Referable ref = Scope.resolveName(scope, longName.toList());
+      if (!(ref instanceof TCDefReferable)) {
+        mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Cannot find definition '" + longName + "' in module '" + module + "' in library '" + myLibrary.getName() + "'"));
+        return null;
+      }
+      return Collections.singletonList((TCDefReferable) ref);
+    }
+
+    Group group = myLibrary.getModuleGroup(module, false);
+    if (group == null) {
+      mySynchronizedErrorReporter.report(new GeneralError(GeneralError.Level.ERROR, "Cannot find module '" + module + "' in library '" + myLibrary.getName() + "'"));
+      return null;
+    }
+    List<TCDefReferable> refs = new ArrayList<>();
+    group.traverseGroup(g -> {
+      LocatedReferable ref = g.getReferable();
+      if (ref instanceof TCDefReferable) {
+        refs.add((TCDefReferable) ref);
+      }
+    });
+    return refs;
+  }
+
+  private static String getFullName(LocatedReferable ref) {
+    ModuleLocation location = ref.getLocation();
+    return location == null ? ref.getRefLongName().toString() : location.getModulePath() + ":" + ref.getRefLongName();
+  }
+
+  private void flushErrors(ObjectNode response) {
+    boolean hasErrors = false;
+    ArrayNode array = response.putArray("errors");
+    synchronized (myErrorReporter) {
+      for (GeneralError error : myErrorReporter.getErrorList()) {
+        PrettyPrinterConfigWithRenamer ppConfig = new PrettyPrinterConfigWithRenamer(EmptyScope.INSTANCE);
+        if (error instanceof GoalError) {
+          ppConfig.expressionFlags = EnumSet.of(PrettyPrinterFlag.SHOW_LOCAL_FIELD_INSTANCE);
+        }
+        if (error.level == GeneralError.Level.ERROR) {
+          hasErrors = true;
+        }
+
+        ObjectNode node = array.addObject();
+        node.put("level", error.level.toString());
+        ArrayNode definitions = node.putArray("definitions");
+        error.forAffectedDefinitions((ref, err) -> {
+          if (ref instanceof LocatedReferable) {
+            definitions.add(getFullName((LocatedReferable) ref));
+          }
+        });
+        node.put("message", error.getDoc(ppConfig).toString());
+      }
+      myErrorReporter.getErrorList().clear();
+    }
+
+    if (!response.has("status")) {
+      response.put("status", hasErrors ? "error" : "ok");
+    }
+  }
+
+  /**
+   * Runs a daemon which reads requests from the standard input.
+   * Responses are written to the standard output; everything else that is printed to it while the daemon runs is redirected to the standard error.
+   */
+  public static boolean launch(@NotNull Collection<? extends Path> libDirs, @NotNull Path libraryPath, boolean recompile, int threads) {
+    PrintStream out = System.out;
+    System.setOut(System.err);
+    try {
+      CliDaemon daemon = new CliDaemon(libDirs, threads);
+      if (!daemon.initialize(libraryPath, recompile)) {
+        return false;
+      }
+      daemon.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), out);
+      return true;
+    } catch (IOException e) {
+      System.err.println("[ERROR] " + e.getLocalizedMessage());
+      return false;
+    } finally {
+      System.setOut(out);
+    }
+  }
+}
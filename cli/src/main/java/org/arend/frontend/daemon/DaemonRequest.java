@@ -0,0 +1,23 @@
+package org.arend.frontend.daemon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A request sent to {@link CliDaemon} as a single line of JSON.
+ */
+public class DaemonRequest {
+  /**
+   * An arbitrary value which is copied to the response.
+   */
+  public JsonNode id;
+
+  /**
+   * One of {@code check}, {@code print}, {@code reload}, and {@code shutdown}.
+   */
+  public String command;
+
+  /**
+   * A module or a definition in the format {@code Module.Path:Definition.Name}.
+   */
+  public String target;
+}
@@ -7,14 +7,21 @@ import org.arend.frontend.source.FileRawSource;
 import org.arend.frontend.ui.ArendCliUI;
 import org.arend.library.LibraryDependency;
 import org.arend.library.LibraryHeader;
+import org.arend.library.LibraryManager;
 import org.arend.library.PersistableSourceLibrary;
+import org.arend.module.error.ExceptionError;
+import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.*;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.Version;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -26,6 +33,9 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   protected LibraryHeader myLibraryHeader;
   protected List<ModulePath> myTestModules = Collections.emptyList();
   private final DependencyListener myDependencyListener;
+  private BinaryPack myBinaryPack;
+  private boolean myBinaryPackOpened;
+  private int myLoadingParallelism = 1;
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -71,6 +81,98 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
     return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
   }
 
+  private Path getBinaryPackFile() {
+    return myBinaryBasePath == null ? null : myBinaryBasePath.resolve(BinaryPack.FILE_NAME);
+  }
+
+  /**
+   * The pack is only a cache, so it is ignored if it cannot be read.
+   * Its modules are parsed in advance only if the library manager loads modules in parallel.
+   */
+  private BinaryPack getBinaryPack() {
+    if (!myBinaryPackOpened) {
+      myBinaryPackOpened = true;
+      Path file = getBinaryPackFile();
+      if (file != null && Files.exists(file)) {
+        try {
+          myBinaryPack = BinaryPack.open(file);
+          if (myBinaryPack != null && myLoadingParallelism > 1) {
+            myBinaryPack.parseAll(myLoadingParallelism);
+          }
+        } catch (IOException e) {
+          myBinaryPack = null;
+        }
+      }
+    }
+    return myBinaryPack;
+  }
+
+  @Override
+  public @Nullable BinarySource getBinarySource(ModulePath modulePath) {
+    BinaryPack pack = getBinaryPack();
+    return pack != null && pack.contains(modulePath) ? new PackBinarySource(pack, modulePath) : super.getBinarySource(modulePath);
+  }
+
+  /**
+   * Bundles binaries of all loaded modules into a single file which is loaded instead of them.
+   */
+  public boolean writeBinaryPack(ErrorReporter errorReporter) {
+    Path file = getBinaryPackFile();
+    if (file == null) {
+      return false;
+    }
+
+    List<StreamBinarySource> sources = new ArrayList<>();
+    for (ModulePath module : getLoadedModules()) {
+      PersistableBinarySource source = getPersistableBinarySource(module);
+      if (source instanceof StreamBinarySource) {
+        sources.add((StreamBinarySource) source);
+      }
+    }
+
+    try {
+      BinaryPack.write(file, sources);
+      return true;
+    } catch (IOException e) {
+      errorReporter.report(new ExceptionError(e, "writing binary pack of library " + getName()));
+      return false;
+    }
+  }
+
+  @Override
+  public boolean persistModule(ModulePath modulePath, ReferableConverter referableConverter, ErrorReporter errorReporter) {
+    // The pack would shadow the new binary
+    myBinaryPack = null;
+    Path file = getBinaryPackFile();
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        errorReporter.report(new ExceptionError(e, "deleting binary pack of library " + getName()));
+      }
+    }
+    return super.persistModule(modulePath, referableConverter, errorReporter);
+  }
+
+  @Override
+  public boolean load(LibraryManager libraryManager, TypecheckingOrderingListener typechecking) {
+    myLoadingParallelism = libraryManager.getLoadingParallelism();
+    try {
+      return super.load(libraryManager, typechecking);
+    } finally {
+      if (myBinaryPack != null) {
+        myBinaryPack.releaseParsedModules();
+      }
+    }
+  }
+
+  @Override
+  public boolean unload() {
+    myBinaryPack = null;
+    myBinaryPackOpened = false;
+    return super.unload();
+  }
+
   @Override
   public @NotNull Collection<? extends ModulePath> getTestModules() {
     return myTestModules;
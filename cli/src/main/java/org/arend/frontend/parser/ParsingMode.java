@@ -0,0 +1,69 @@
+package org.arend.frontend.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Strategies of prediction used by {@link ArendParser}.
+ * DFA caches of the parser are static, so they are shared by all parsers in the process regardless of the mode.
+ */
+public enum ParsingMode {
+  /**
+   * Full-context LL prediction.
+   */
+  LL {
+    @Override
+    public <T extends ParserRuleContext> T parse(ArendParser parser, Function<ArendParser, T> rule) {
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      return rule.apply(parser);
+    }
+  },
+
+  /**
+   * SLL prediction which bails out on the first syntax error, followed by LL prediction if it fails.
+   * SLL prediction is much faster and succeeds on almost all syntactically correct inputs,
+   * so errors are reported only by the second stage.
+   */
+  SLL_THEN_LL {
+    @Override
+    public <T extends ParserRuleContext> T parse(ArendParser parser, Function<ArendParser, T> rule) {
+      ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+      List<? extends ANTLRErrorListener> errorListeners = new ArrayList<>(parser.getErrorListeners());
+      parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+      parser.setErrorHandler(new BailErrorStrategy());
+      parser.removeErrorListeners();
+      T result;
+      try {
+        result = rule.apply(parser);
+      } catch (ParseCancellationException e) {
+        result = null;
+      }
+
+      parser.setErrorHandler(errorHandler);
+      for (ANTLRErrorListener errorListener : errorListeners) {
+        parser.addErrorListener(errorListener);
+      }
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      if (result != null) {
+        return result;
+      }
+
+      parser.reset();
+      return rule.apply(parser);
+    }
+  };
+
+  public static final ParsingMode DEFAULT = SLL_THEN_LL;
+
+  /**
+   * Parses the input of the parser starting from the given rule.
+   *
+   * @param rule  a method of the parser which corresponds to a rule of the grammar, for example {@code ArendParser::statements}.
+   */
+  public abstract <T extends ParserRuleContext> T parse(ArendParser parser, Function<ArendParser, T> rule);
+}
@@ -19,6 +19,7 @@ import org.arend.frontend.library.TimedLibraryManager;
 import org.arend.frontend.parser.ArendLexer;
 import org.arend.frontend.parser.ArendParser;
 import org.arend.frontend.parser.BuildVisitor;
+import org.arend.frontend.parser.ParsingMode;
 import org.arend.frontend.parser.ReporterErrorListener;
 import org.arend.frontend.repl.action.*;
 import org.arend.library.Library;
@@ -251,7 +252,7 @@ public abstract class CommonCliRepl extends Repl {
 
   @Override
   protected final @Nullable FileGroup parseStatements(@NotNull String line) {
-    var fileGroup = buildVisitor().visitStatements(parse(line).statements());
+    var fileGroup = buildVisitor().visitStatements(ParsingMode.DEFAULT.parse(parse(line), ArendParser::statements));
     if (fileGroup != null)
       fileGroup.setModuleScopeProvider(getAvailableModuleScopeProvider());
     if (checkErrors()) return null;
@@ -260,7 +261,7 @@ public abstract class CommonCliRepl extends Repl {
 
   @Override
   protected final @Nullable Concrete.Expression parseExpr(@NotNull String text) {
-    return buildVisitor().visitExpr(parse(text).expr());
+    return buildVisitor().visitExpr(ParsingMode.DEFAULT.parse(parse(text), ArendParser::expr));
   }
 
   public CommonCliRepl() {
@@ -1,8 +1,9 @@
 package org.arend.frontend.source;
 
 import org.antlr.v4.runtime.*;
-import org.arend.error.CountingErrorReporter;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.frontend.ConcreteReferableProvider;
 import org.arend.frontend.parser.*;
@@ -18,10 +19,18 @@ import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.FileGroup;
+import org.arend.util.ContentHash;
+import org.arend.util.Profiler;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a source that loads a raw module from an {@link InputStream}.
@@ -31,6 +40,10 @@ public abstract class StreamRawSource implements Source {
   private final boolean myInTests;
   private FileGroup myGroup;
   private byte myPass = 0;
+  private boolean myParsed;
+  private byte[] myContentHash;
+  private List<GeneralError> myParsingErrors;
+  private IOException myParsingException;
 
   protected StreamRawSource(ModulePath modulePath, boolean inTests) {
     myModulePath = modulePath;
@@ -52,48 +65,114 @@ public abstract class StreamRawSource implements Source {
   protected abstract InputStream getInputStream() throws IOException;
 
   @Override
-  public boolean preload(SourceLoader sourceLoader) {
-    SourceLibrary library = sourceLoader.getLibrary();
+  public @Nullable byte[] getContentHash() {
+    try (InputStream inputStream = getInputStream()) {
+      return ContentHash.compute(inputStream);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads and parses the content of the source.
+   * Errors are collected in {@link #myParsingErrors} and reported in {@link #preload}.
+   */
+  private void doParse(SourceLibrary library) {
+    myParsed = true;
+    myGroup = null;
+    myParsingException = null;
+    myParsingErrors = new ArrayList<>();
+    ListErrorReporter errorReporter = new ListErrorReporter(myParsingErrors);
     ModulePath modulePath = getModulePath();
-    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
-    CountingErrorReporter countingErrorReporter = new CountingErrorReporter(errorReporter);
 
     try {
-      var errorListener = new ReporterErrorListener(countingErrorReporter, modulePath);
+      var errorListener = new ReporterErrorListener(errorReporter, modulePath);
 
-      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
-      lexer.removeErrorListeners();
-      lexer.addErrorListener(errorListener);
+      byte[] content;
+      try (InputStream inputStream = getInputStream()) {
+        content = inputStream.readAllBytes();
+      }
+      myContentHash = ContentHash.compute(content);
 
-      ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
-      parser.removeErrorListeners();
-      parser.addErrorListener(errorListener);
+      Profiler.Event event = Profiler.start(Profiler.Phase.PARSING, modulePath);
+      try {
+        ArendLexer lexer = new ArendLexer(CharStreams.fromStream(new ByteArrayInputStream(content)));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
 
-      ArendParser.StatementsContext tree = parser.statements();
-      if (countingErrorReporter.getErrorsNumber() > 0) {
-        return false;
-      }
+        ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
 
-      myGroup = new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
-      library.groupLoaded(modulePath, myGroup, true, myInTests);
-
-      for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
-        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
-          ModulePath module = new ModulePath(command.getPath());
-          if (library.containsModule(module) && !sourceLoader.preloadRaw(module, myInTests)) {
-            library.groupLoaded(modulePath, null, true, myInTests);
-            myGroup = null;
-            return false;
-          }
+        ArendParser.StatementsContext tree = ParsingMode.DEFAULT.parse(parser, ArendParser::statements);
+        if (!myParsingErrors.isEmpty()) {
+          return;
         }
-      }
 
-      return true;
+        myGroup = new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
+      } finally {
+        Profiler.finish(event);
+      }
     } catch (IOException e) {
-      errorReporter.report(new ExceptionError(e, "loading", modulePath));
+      myParsingException = e;
+    }
+  }
+
+  private static List<ModulePath> getImports(FileGroup group) {
+    List<ModulePath> result = new ArrayList<>();
+    for (NamespaceCommand command : group.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        result.add(new ModulePath(command.getPath()));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public @Nullable Collection<ModulePath> parse(SourceLoader sourceLoader) {
+    doParse(sourceLoader.getLibrary());
+    return myGroup == null ? Collections.emptyList() : getImports(myGroup);
+  }
+
+  @Override
+  public boolean preload(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
+
+    if (!myParsed) {
+      doParse(library);
+    }
+    for (GeneralError error : myParsingErrors) {
+      errorReporter.report(error);
+    }
+    myParsed = false;
+    myParsingErrors = null;
+
+    if (myParsingException != null) {
+      errorReporter.report(new ExceptionError(myParsingException, "loading", modulePath));
       library.groupLoaded(modulePath, null, true, myInTests);
       return false;
     }
+
+    library.sourceHashComputed(modulePath, myContentHash);
+    if (myGroup == null) {
+      return false;
+    }
+    library.groupLoaded(modulePath, myGroup, true, myInTests);
+
+    for (ModulePath module : getImports(myGroup)) {
+      if (library.containsModule(module)) {
+        sourceLoader.markRawDependency(modulePath, module);
+        if (!sourceLoader.preloadRaw(module, myInTests)) {
+          library.groupLoaded(modulePath, null, true, myInTests);
+          myGroup = null;
+          return false;
+        }
+      }
+    }
+
+    return true;
   }
 
   @Override
@@ -108,15 +187,30 @@ public abstract class StreamRawSource implements Source {
       return LoadResult.CONTINUE;
     }
 
-    new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, null, myPass == 1, sourceLoader.getTypecheckingErrorReporter(), null).resolveGroup(myGroup, myGroup.getGroupScope());
-    if (myPass == 1) {
-      myPass = 2;
+    if (myPass <= 2) {
+      Profiler.Event event = Profiler.start(Profiler.Phase.NAME_RESOLUTION, myModulePath);
+      try {
+        new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, null, myPass == 1, sourceLoader.getTypecheckingErrorReporter(), null).resolveGroup(myGroup, myGroup.getGroupScope());
+      } finally {
+        Profiler.finish(event);
+      }
+      myPass++;
       return LoadResult.CONTINUE;
     }
+
     Scope parentScope = ScopeFactory.parentScopeForGroup(myGroup,
             sourceLoader.getModuleScopeProvider(myInTests), true);
     sourceLoader.getInstanceProviderSet().collectInstances(myGroup,
             CachingScope.make(parentScope), IdReferableConverter.INSTANCE);
     return LoadResult.SUCCESS;
   }
+
+  /**
+   * Name resolution passes only modify this module, so they can run concurrently for modules which do not depend on each other.
+   * Instances are collected sequentially.
+   */
+  @Override
+  public boolean canLoadConcurrently() {
+    return myPass == 1 || myPass == 2;
+  }
 }
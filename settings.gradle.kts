@@ -7,5 +7,6 @@ include(
     "base",
     "cli",
     "proto",
-    "parser"
+    "parser",
+    "benchmarks"
 )
\ No newline at end of file
@@ -0,0 +1,80 @@
+package org.arend.classes;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.FieldIndexedMap;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ClassHierarchyTest extends TypeCheckingTestCase {
+  @Test
+  public void ancestors() {
+    typeCheckModule(
+      "\\class A (a : Nat)\n" +
+      "\\class B \\extends A | b : Nat\n" +
+      "\\class C \\extends A | c : Nat\n" +
+      "\\class D \\extends B, C | d : Nat");
+    ClassDefinition a = (ClassDefinition) getDefinition("A");
+    ClassDefinition b = (ClassDefinition) getDefinition("B");
+    ClassDefinition c = (ClassDefinition) getDefinition("C");
+    ClassDefinition d = (ClassDefinition) getDefinition("D");
+    assertEquals(new HashSet<>(Arrays.asList(a, b, c)), d.getAncestors());
+    assertTrue(d.isSubClassOf(a));
+    assertTrue(d.isSubClassOf(d));
+    assertFalse(b.isSubClassOf(c));
+    assertFalse(a.isSubClassOf(d));
+  }
+
+  @Test
+  public void fieldIndexedMap() {
+    typeCheckModule(
+      "\\class A (x y z : Nat)\n" +
+      "\\class B (w : Nat)");
+    ClassDefinition a = (ClassDefinition) getDefinition("A");
+    List<ClassField> fields = new ArrayList<>(a.getFields());
+    ClassField w = ((ClassDefinition) getDefinition("B")).getPersonalFields().get(0);
+    for (int i = 0; i < fields.size(); i++) {
+      assertEquals(i, a.getFieldIndex(fields.get(i)));
+    }
+    assertEquals(-1, a.getFieldIndex(w));
+
+    Map<ClassField, Integer> map = new FieldIndexedMap<>(a);
+    map.put(w, -1);
+    for (int i = fields.size() - 1; i >= 0; i--) {
+      map.put(fields.get(i), i);
+    }
+    assertEquals(fields.size() + 1, map.size());
+    List<ClassField> expected = new ArrayList<>(fields);
+    expected.add(w);
+    assertEquals(expected, new ArrayList<>(map.keySet()));
+    assertEquals(Integer.valueOf(1), map.get(fields.get(1)));
+    assertEquals(Integer.valueOf(-1), map.get(w));
+
+    map.remove(fields.get(0));
+    map.entrySet().removeIf(entry -> entry.getKey() == w);
+    assertEquals(fields.size() - 1, map.size());
+    assertFalse(map.containsKey(fields.get(0)));
+    assertFalse(map.containsKey(w));
+    assertEquals(new LinkedHashMap<>(map), map);
+  }
+
+  @Test
+  public void substClassCall() {
+    typeCheckModule(
+      "\\record R (x y z : Nat) (p : x = y)\n" +
+      "\\func f (n : Nat) => R n n 0 idp");
+    Expression body = (Expression) ((FunctionDefinition) getDefinition("f")).getBody();
+    ClassCallExpression classCall = (ClassCallExpression) body;
+    ClassCallExpression copy = (ClassCallExpression) classCall.copy();
+    assertTrue(copy.getImplementedHere() instanceof FieldIndexedMap);
+    assertEquals(new ArrayList<>(classCall.getImplementedHere().keySet()), new ArrayList<>(copy.getImplementedHere().keySet()));
+    assertEquals(classCall, copy);
+  }
+}
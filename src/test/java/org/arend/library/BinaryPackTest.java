@@ -0,0 +1,49 @@
+package org.arend.library;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.source.BinaryPack;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BinaryPackTest extends LibraryTestCase {
+  @Test
+  public void loadFromPack() throws IOException {
+    library.addModule(new ModulePath("A"), "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))");
+    library.addModule(new ModulePath("B"), "\\import A \\func g : f 2 = 4 => idp");
+    library.addModule(new ModulePath("C"), "\\import A \\func h => f 3");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    Path file = Files.createTempFile("test", BinaryPack.FILE_NAME);
+    try {
+      assertThat(BinaryPack.write(file, library.getPersistableBinarySources()), is(3));
+      BinaryPack pack = BinaryPack.open(file);
+      assertThat(pack, is(notNullValue()));
+      assertThat(pack.getModules(), containsInAnyOrder(new ModulePath("A"), new ModulePath("B"), new ModulePath("C")));
+      pack.parseAll(2);
+
+      library.setBinaryPack(pack);
+      for (MemoryBinarySource source : library.getPersistableBinarySources()) {
+        source.delete(library);
+      }
+      libraryManager.loadLibrary(library, null);
+      pack.releaseParsedModules();
+      assertThat(errorList, is(empty()));
+      assertThat(library.getUpdatedModules(), is(empty()));
+      assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("B")), "g").getTypechecked(), is(notNullValue()));
+      assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("C")), "h").getTypechecked(), is(notNullValue()));
+    } finally {
+      library.setBinaryPack(null);
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
 import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
@@ -147,6 +149,21 @@ public class CachingTest extends LibraryTestCase {
     assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f").getTypechecked(), is(notNullValue()));
   }
 
+  @Test
+  public void sourceTouched() {
+    library.addModule(new ModulePath("A"), "\\func f => 0");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\func f => 0", true);
+    libraryManager.loadLibrary(library, null);
+    assertThat(errorList, is(empty()));
+    assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f").getTypechecked(), is(notNullValue()));
+    assertThat(library.getUpdatedModules(), is(empty()));
+  }
+
   @Test
   public void dependencySourceChanged() {
     library.addModule(new ModulePath("A"), "\\data D\n");
@@ -165,6 +182,107 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void dependencyInterfaceNotChanged() {
+    library.addModule(new ModulePath("A"), "\\func f => 0\n\\lemma p : f = 0 => idp");
+    library.addModule(new ModulePath("B"), "\\import A \\func g => f");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\func f => 0\n\\lemma p : f = 0 => path (\\lam _ => f)", true);
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(new ModulePath("A")));
+    assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("B")), "g").getTypechecked(), is(notNullValue()));
+  }
+
+  @Test
+  public void dependencyInterfaceChanged() {
+    library.addModule(new ModulePath("A"), "\\func f => 0");
+    library.addModule(new ModulePath("B"), "\\import A \\func g => f");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\func f => 1", true);
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(new ModulePath("A"), new ModulePath("B")));
+  }
+
+  @Test
+  public void sharedExpressions() {
+    library.addModule(new ModulePath("A"),
+      "\\record R (A : \\Set0) (a : A)\n" +
+      "\\func f (x : R Nat) : R Nat => x\n" +
+      "\\func g (x : R Nat) : R Nat => x");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    libraryManager.loadLibrary(library, null);
+    assertThat(errorList, is(empty()));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    FunctionDefinition f = (FunctionDefinition) getDef(scope, "f").getTypechecked();
+    FunctionDefinition g = (FunctionDefinition) getDef(scope, "g").getTypechecked();
+    assertThat(f, is(notNullValue()));
+    assertThat(g, is(notNullValue()));
+    assertThat(f.getParameters().getTypeExpr(), is(sameInstance(f.getResultType())));
+    assertThat(f.getParameters().getTypeExpr(), is(sameInstance(g.getParameters().getTypeExpr())));
+  }
+
+  @Test
+  public void lazyBodies() {
+    library.addModule(new ModulePath("A"), "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))");
+    library.addModule(new ModulePath("B"), "\\import A \\func g : f 2 = 4 => idp");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("B"), "\\import A \\func g : f 3 = 6 => idp", true);
+    libraryManager.loadLibrary(library, null);
+    FunctionDefinition f = (FunctionDefinition) getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f").getTypechecked();
+    assertThat(f, is(notNullValue()));
+    assertFalse(f.isBodyLoaded());
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertTrue(f.isBodyLoaded());
+    assertThat(f.getBody(), is(notNullValue()));
+  }
+
+  @Test
+  public void heightsWithLazyBodies() {
+    library.addModule(new ModulePath("A"),
+      "\\sfunc s (n : Nat) => n\n" +
+      "\\func f (n : Nat) => suc n\n" +
+      "\\func g (n : Nat) => f (s n)");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    libraryManager.loadLibrary(library, null);
+    assertThat(errorList, is(empty()));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    FunctionDefinition s = (FunctionDefinition) getDef(scope, "s").getTypechecked();
+    FunctionDefinition f = (FunctionDefinition) getDef(scope, "f").getTypechecked();
+    FunctionDefinition g = (FunctionDefinition) getDef(scope, "g").getTypechecked();
+    assertThat(s.getHeight(), is(0));
+    assertThat(f.getHeight(), is(1));
+    assertThat(g.getHeight(), is(2));
+    assertFalse(s.isBodyLoaded());
+    assertFalse(f.isBodyLoaded());
+    assertFalse(g.isBodyLoaded());
+  }
+
   /* These tests does not make sense with the current implementation of libraries.
   @Test
   public void removeRawSource() {
@@ -0,0 +1,113 @@
+package org.arend.library;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.daemon.CliDaemon;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertTrue;
+
+public class CliDaemonTest extends LibraryTestCase {
+  private final ObjectMapper myMapper = new ObjectMapper();
+  private CliDaemon myDaemon;
+
+  @Before
+  public void initializeDaemon() {
+    library.addModule(new ModulePath("A"), "\\func f => 0");
+    library.addModule(new ModulePath("B"), "\\import A \\func g => f");
+    myDaemon = new CliDaemon(Collections.emptyList(), 1);
+    assertTrue(myDaemon.initialize(library, false));
+  }
+
+  private List<JsonNode> run(String... requests) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    myDaemon.run(new BufferedReader(new StringReader(String.join("\n", requests))), new PrintStream(out, true, StandardCharsets.UTF_8));
+    List<JsonNode> responses = new ArrayList<>();
+    for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+      responses.add(myMapper.readTree(line));
+    }
+    return responses;
+  }
+
+  private static List<String> getStrings(JsonNode array) {
+    List<String> result = new ArrayList<>();
+    for (JsonNode node : array) {
+      result.add(node.asText());
+    }
+    return result;
+  }
+
+  @Test
+  public void checkAndPrint() throws IOException {
+    List<JsonNode> responses = run(
+      "{\"id\": 1, \"command\": \"check\", \"target\": \"B\"}",
+      "{\"id\": 2, \"command\": \"print\", \"target\": \"A:f\"}",
+      "{\"id\": 3, \"command\": \"check\", \"target\": \"B:g\"}");
+    assertThat(responses, hasSize(3));
+
+    JsonNode check = responses.get(0);
+    assertThat(check.get("id").asInt(), is(1));
+    assertThat(check.get("status").asText(), is("ok"));
+    assertThat(check.get("reloaded").asBoolean(), is(true));
+    assertThat(getStrings(check.get("typecheckedModules")), containsInAnyOrder("A", "B"));
+    assertThat(check.get("definitions").get(0).get("name").asText(), is("B:g"));
+    assertThat(check.get("errors").size(), is(0));
+
+    JsonNode print = responses.get(1);
+    assertThat(print.get("status").asText(), is("ok"));
+    assertThat(print.get("reloaded").asBoolean(), is(false));
+    assertThat(print.get("output").asText(), containsString("f"));
+
+    JsonNode check2 = responses.get(2);
+    assertThat(check2.get("status").asText(), is("ok"));
+    assertThat(check2.get("reloaded").asBoolean(), is(false));
+    assertThat(check2.has("typecheckedModules"), is(false));
+  }
+
+  @Test
+  public void reloadModifiedModules() throws IOException {
+    run("{\"command\": \"check\"}");
+    library.updateModule(new ModulePath("A"), "\\func f => 1", true);
+    List<JsonNode> responses = run(
+      "{\"command\": \"check\", \"target\": \"B\"}",
+      "{\"command\": \"reload\"}");
+    assertThat(responses, hasSize(2));
+
+    JsonNode check = responses.get(0);
+    assertThat(check.get("status").asText(), is("ok"));
+    assertThat(check.get("reloaded").asBoolean(), is(true));
+    assertThat(getStrings(check.get("typecheckedModules")), hasItem("A"));
+
+    JsonNode reload = responses.get(1);
+    assertThat(reload.get("status").asText(), is("ok"));
+    assertThat(reload.get("reloaded").asBoolean(), is(true));
+    assertThat(reload.get("typecheckedModules").size(), is(0));
+  }
+
+  @Test
+  public void errorsAndShutdown() throws IOException {
+    List<JsonNode> responses = run(
+      "{\"command\": \"check\", \"target\": \"C\"}",
+      "{\"command\": \"compile\"}",
+      "not a request",
+      "{\"id\": \"last\", \"command\": \"shutdown\"}",
+      "{\"command\": \"check\"}");
+    assertThat(responses, hasSize(4));
+    for (int i = 0; i < 3; i++) {
+      assertThat(responses.get(i).get("status").asText(), is("error"));
+      assertThat(responses.get(i).get("errors").size(), is(greaterThan(0)));
+    }
+    assertThat(responses.get(3).get("id").asText(), is("last"));
+    assertThat(responses.get(3).get("status").asText(), is("ok"));
+  }
+}
@@ -2,6 +2,9 @@ package org.arend.library;
 
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
+import org.arend.source.BinaryPack;
+import org.arend.source.BinarySource;
+import org.arend.source.PackBinarySource;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.util.Range;
@@ -14,6 +17,7 @@ import java.util.*;
 public class MemoryLibrary extends PersistableSourceLibrary {
   private final Map<ModulePath, MemoryRawSource> myRawSources = new LinkedHashMap<>();
   private final Map<ModulePath, MemoryBinarySource> myBinarySources = new LinkedHashMap<>();
+  private BinaryPack myBinaryPack;
 
   protected MemoryLibrary() {
     super("test_library");
@@ -35,6 +39,19 @@ public class MemoryLibrary extends PersistableSourceLibrary {
     return myBinarySources.get(modulePath);
   }
 
+  @Override
+  public @Nullable BinarySource getBinarySource(ModulePath modulePath) {
+    return myBinaryPack != null && myBinaryPack.contains(modulePath) ? new PackBinarySource(myBinaryPack, modulePath) : super.getBinarySource(modulePath);
+  }
+
+  public Collection<MemoryBinarySource> getPersistableBinarySources() {
+    return myBinarySources.values();
+  }
+
+  public void setBinaryPack(BinaryPack pack) {
+    myBinaryPack = pack;
+  }
+
   @Nullable
   @Override
   protected LibraryHeader loadHeader(ErrorReporter errorReporter) {
@@ -0,0 +1,69 @@
+package org.arend.library;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.error.NotInScopeError;
+import org.arend.naming.reference.ConcreteLocatedReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelLoadingTest extends LibraryTestCase {
+  @Before
+  public void setParallelism() {
+    libraryManager.setLoadingParallelism(4);
+  }
+
+  private Concrete.Expression getTerm(Scope scope, String name) {
+    return ((Concrete.TermFunctionBody) ((Concrete.FunctionDefinition) ((ConcreteLocatedReferable) get(scope, name)).getDefinition()).getBody()).getTerm();
+  }
+
+  @Test
+  public void resolution() {
+    library.addModule(new ModulePath("A"), "\\import B \\import C \\func a => b Nat.+ c");
+    library.addModule(new ModulePath("B"), "\\import D \\func b => d");
+    library.addModule(new ModulePath("C"), "\\import D \\func c => d");
+    library.addModule(new ModulePath("D"), "\\func d => 0");
+    library.addModule(new ModulePath("X"), "\\import Y() \\func f => Y.f");
+    library.addModule(new ModulePath("Y"), "\\import X() \\func f => X.f");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+
+    Scope moduleB = library.getModuleScopeProvider().forModule(new ModulePath("B"));
+    Scope moduleD = library.getModuleScopeProvider().forModule(new ModulePath("D"));
+    assertThat(((Concrete.ReferenceExpression) getTerm(moduleB, "b")).getReferent(), is(get(moduleD, "d")));
+
+    Scope moduleX = library.getModuleScopeProvider().forModule(new ModulePath("X"));
+    Scope moduleY = library.getModuleScopeProvider().forModule(new ModulePath("Y"));
+    assertThat(((Concrete.ReferenceExpression) getTerm(moduleX, "f")).getReferent(), is(get(moduleY, "f")));
+    assertThat(((Concrete.ReferenceExpression) getTerm(moduleY, "f")).getReferent(), is(get(moduleX, "f")));
+  }
+
+  @Test
+  public void errorsAreReported() {
+    library.addModule(new ModulePath("A"), "\\func a => b");
+    library.addModule(new ModulePath("B"), "\\func b => c");
+    library.addModule(new ModulePath("C"), "\\func c => (");
+    libraryManager.loadLibrary(library, null);
+    assertThat(errorList.size(), is(greaterThanOrEqualTo(3)));
+    assertThat(errorList.stream().filter(error -> error instanceof NotInScopeError).count(), is(2L));
+  }
+
+  @Test
+  public void typecheckAfterLoading() {
+    library.addModule(new ModulePath("A"), "\\class C (X : \\Type) | x : X");
+    library.addModule(new ModulePath("B"), "\\import A \\instance natC : C Nat | x => 7");
+    library.addModule(new ModulePath("D"), "\\import A \\import B \\func f : x = 7 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null).typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+  }
+}
@@ -0,0 +1,90 @@
+package org.arend.library;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelTypecheckingTest extends LibraryTestCase {
+  private TypecheckingOrderingListener parallelTypechecking() {
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, error -> {
+      synchronized (errorList) {
+        errorReporter.report(error);
+      }
+    }, PositionComparator.INSTANCE, ref -> null);
+    typechecking.setParallelism(4);
+    return typechecking;
+  }
+
+  private void assertTypechecked(ChildGroup group, String name, Definition.TypeCheckingStatus status) {
+    TCDefReferable ref = getDef(group.getGroupScope(), name);
+    assertThat(ref, is(notNullValue()));
+    assertThat(ref.getTypechecked(), is(notNullValue()));
+    assertThat(ref.getTypechecked().status(), is(status));
+  }
+
+  @Test
+  public void independentModules() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      builder.append("\\func f").append(i).append(" (n : Nat) : Nat | 0 => ").append(i).append(" | suc n => suc (f").append(i).append(" n)\n");
+    }
+    library.addModule(new ModulePath("A"), builder.toString());
+    library.addModule(new ModulePath("B"), builder.toString().replace("\\func f", "\\func g").replace("(f", "(g"));
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking().typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+
+    ChildGroup groupA = library.getModuleGroup(new ModulePath("A"));
+    ChildGroup groupB = library.getModuleGroup(new ModulePath("B"));
+    for (int i = 0; i < 20; i++) {
+      assertTypechecked(groupA, "f" + i, Definition.TypeCheckingStatus.NO_ERRORS);
+      assertTypechecked(groupB, "g" + i, Definition.TypeCheckingStatus.NO_ERRORS);
+    }
+  }
+
+  @Test
+  public void dependentDefinitions() {
+    library.addModule(new ModulePath("A"),
+      "\\data D | con Nat\n" +
+      "\\func even (n : Nat) : D | 0 => con 0 | suc n => odd n\n" +
+      "\\func odd (n : Nat) : D | 0 => con 1 | suc n => even n");
+    library.addModule(new ModulePath("B"),
+      "\\import A\n" +
+      "\\func h : D => even 10\n" +
+      "\\func k : h = con 0 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking().typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+
+    ChildGroup groupA = library.getModuleGroup(new ModulePath("A"));
+    ChildGroup groupB = library.getModuleGroup(new ModulePath("B"));
+    assertTypechecked(groupA, "even", Definition.TypeCheckingStatus.NO_ERRORS);
+    assertTypechecked(groupA, "odd", Definition.TypeCheckingStatus.NO_ERRORS);
+    assertTypechecked(groupB, "k", Definition.TypeCheckingStatus.NO_ERRORS);
+  }
+
+  @Test
+  public void errorsAreReported() {
+    library.addModule(new ModulePath("A"),
+      "\\func a : Nat => b\n" +
+      "\\func b : Nat => {?}\n" +
+      "\\func c : Nat => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    parallelTypechecking().typecheckLibrary(library);
+    assertThat(errorList, hasSize(1));
+
+    ChildGroup group = library.getModuleGroup(new ModulePath("A"));
+    assertTypechecked(group, "c", Definition.TypeCheckingStatus.NO_ERRORS);
+  }
+}
@@ -414,6 +414,39 @@ public class NameResolverTest extends NameResolverTestCase {
         "\\func g => f");
   }
 
+  private Referable getTermReferent(String name) {
+    return ((Concrete.ReferenceExpression) ((Concrete.TermFunctionBody) ((Concrete.FunctionDefinition) getConcrete(name)).getBody()).getTerm()).getReferent();
+  }
+
+  @Test
+  public void openRenamingAndHiding() {
+    resolveNamesModule(
+        "\\class X \\where { \\func f => \\Type0 \\func g => \\Type0 }\n" +
+        "\\class Y \\where { \\func f => \\Type0 \\func h => \\Type0 }\n" +
+        "\\open Y \\hiding (f)\n" +
+        "\\open X \\using (g \\as g') \\hiding (g)\n" +
+        "\\open X(f \\as f')\n" +
+        "\\func a => f'\n" +
+        "\\func b => g'\n" +
+        "\\func c => h\n" +
+        "\\func d => f");
+    assertEquals(get("X.f"), getTermReferent("a"));
+    assertEquals(get("X.g"), getTermReferent("b"));
+    assertEquals(get("Y.h"), getTermReferent("c"));
+    assertEquals(get("X.f"), getTermReferent("d"));
+  }
+
+  @Test
+  public void manyDefinitions() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      builder.append("\\func f").append(i).append(" => ").append(i == 0 ? "0" : "f" + (i - 1)).append("\n");
+    }
+    builder.append("\\func g => f499");
+    resolveNamesModule(builder.toString());
+    assertEquals(get("f499"), getTermReferent("g"));
+  }
+
   @Test
   public void openUsingDuplicate() {
     resolveNamesModule(
@@ -1,5 +1,8 @@
 package org.arend.naming;
 
+import org.arend.frontend.parser.ArendParser;
+import org.arend.frontend.parser.ParsingMode;
+import org.arend.frontend.repl.CommonCliRepl;
 import org.arend.naming.reference.ConcreteLocatedReferable;
 import org.arend.naming.reference.GlobalReferable;
 import org.arend.naming.reference.LocalReferable;
@@ -489,4 +492,25 @@ public class ParserTest extends NameResolverTestCase {
   public void parseImplicitTyped() {
     parseExpr("f {1 : Nat}");
   }
+
+  @Test
+  public void twoStageParsing() {
+    String text = "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n Nat.+ 2\n\\data D | con1 | con2 (d : D)";
+    ArendParser parser1 = CommonCliRepl.createParser(text, MODULE_PATH, errorReporter);
+    ArendParser parser2 = CommonCliRepl.createParser(text, MODULE_PATH, errorReporter);
+    String tree1 = ParsingMode.LL.parse(parser1, ArendParser::statements).toStringTree(parser1);
+    String tree2 = ParsingMode.SLL_THEN_LL.parse(parser2, ArendParser::statements).toStringTree(parser2);
+    assertEquals(tree1, tree2);
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void twoStageParsingError() {
+    ParsingMode.SLL_THEN_LL.parse(CommonCliRepl.createParser("\\func f => (0", MODULE_PATH, errorReporter), ArendParser::statements);
+    int errors = errorList.size();
+    errorList.clear();
+    ParsingMode.LL.parse(CommonCliRepl.createParser("\\func f => (0", MODULE_PATH, errorReporter), ArendParser::statements);
+    assertTrue(errors > 0);
+    assertEquals(errors, errorList.size());
+  }
 }
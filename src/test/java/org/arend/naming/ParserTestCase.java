@@ -29,7 +29,7 @@ public abstract class ParserTestCase extends ArendTestCase {
 
 
   Concrete.Expression parseExpr(String text, int errors) {
-    ArendParser.ExprContext ctx = _parse(text).expr();
+    ArendParser.ExprContext ctx = ParsingMode.DEFAULT.parse(_parse(text), ArendParser::expr);
     Concrete.Expression expr = errorList.isEmpty() ? new BuildVisitor(MODULE_PATH, errorReporter).visitExpr(ctx) : null;
     assertThat(errorList, containsErrors(errors));
     return expr;
@@ -40,7 +40,7 @@ public abstract class ParserTestCase extends ArendTestCase {
   }
 
   ChildGroup parseDef(String text, int errors) {
-    ArendParser.DefinitionContext ctx = _parse(text).definition();
+    ArendParser.DefinitionContext ctx = ParsingMode.DEFAULT.parse(_parse(text), ArendParser::definition);
     List<Group> subgroups = new ArrayList<>(1);
     FileGroup fileGroup = new FileGroup(new FullModuleReferable(MODULE_PATH), subgroups, Collections.emptyList());
     ChildGroup definition = errorList.isEmpty() ? new BuildVisitor(MODULE_PATH, errorReporter).visitDefinition(ctx, fileGroup, null) : null;
@@ -56,7 +56,7 @@ public abstract class ParserTestCase extends ArendTestCase {
   }
 
   protected ChildGroup parseModule(String text, int errors) {
-    ArendParser.StatementsContext tree = _parse(text).statements();
+    ArendParser.StatementsContext tree = ParsingMode.DEFAULT.parse(_parse(text), ArendParser::statements);
     FileGroup group = errorList.isEmpty() ? new BuildVisitor(MODULE_PATH, errorReporter).visitStatements(tree) : null;
     if (group != null) {
       group.setModuleScopeProvider(moduleScopeProvider);
@@ -10,6 +10,7 @@ import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.PiExpression;
 import org.arend.core.expr.let.LetClause;
+import org.arend.core.expr.visitor.AlphaEquivalenceVisitor;
 import org.arend.core.sort.Level;
 import org.arend.core.subst.LevelPair;
 import org.arend.ext.core.ops.CMP;
@@ -220,4 +221,86 @@ public class ComparisonTest extends TypeCheckingTestCase {
     assertEquals(result2.expression, result1.expression);
     assertEquals(result1.expression, result2.expression);
   }
+
+  @Test
+  public void alphaEquivalence() {
+    SingleDependentLink x = singleParam("x", Nat());
+    SingleDependentLink y = singleParam("y", Nat());
+    Binding f = new TypedBinding("f", Pi(Nat(), Nat()));
+    Expression expr1 = Lam(x, Apps(Ref(f), Ref(x)));
+    Expression expr2 = Lam(y, Apps(Ref(f), Ref(y)));
+    Expression expr3 = Lam(y, Apps(Ref(f), Zero()));
+    assertNotEquals(0, expr1.getFingerprint());
+    assertEquals(expr1.getFingerprint(), expr2.getFingerprint());
+    assertTrue(new AlphaEquivalenceVisitor(Collections.emptyMap()).compare(expr1, expr2));
+    assertFalse(new AlphaEquivalenceVisitor(Collections.emptyMap()).compare(expr1, expr3));
+    assertEquals(expr1, expr2);
+    assertNotEquals(expr1, expr3);
+  }
+
+  @Test
+  public void alphaEquivalenceFreeVariables() {
+    Binding a = new TypedBinding("a", Nat());
+    Binding b = new TypedBinding("b", Nat());
+    Expression expr1 = Apps(Ref(new TypedBinding("f", Pi(Nat(), Nat()))), Ref(a));
+    Expression expr2 = expr1.subst(a, Ref(b));
+    assertEquals(expr1.getFingerprint(), expr2.getFingerprint());
+    assertFalse(new AlphaEquivalenceVisitor(Collections.emptyMap()).compare(expr1, expr2));
+    assertTrue(new AlphaEquivalenceVisitor(Collections.singletonMap(b, a)).compare(expr1, expr2));
+    assertNotEquals(expr1, expr2);
+  }
+
+  @Test
+  public void rigidTypes() {
+    assertFalse(compare(Nat(), Interval(), null, CMP.EQ));
+    assertFalse(compare(Nat(), Pi(Nat(), Nat()), null, CMP.LE));
+    assertTrue(compare(Fin(3), Nat(), null, CMP.LE));
+    assertFalse(compare(Nat(), Fin(3), null, CMP.LE));
+  }
+
+  @Test
+  public void functionHeights() {
+    typeCheckModule(
+      "\\func f (n : Nat) => suc n\n" +
+      "\\func g (n : Nat) => f n\n" +
+      "\\func h (n : Nat) => g (f n)\n" +
+      "\\sfunc s (n : Nat) => f n\n" +
+      "\\func t (n : Nat) => s n\n" +
+      "\\func r (n : Nat) : Nat | 0 => 0 | suc n => r n\n" +
+      "\\func u (n : Nat) : Nat | 0 => h 0 | suc n => v n\n" +
+      "\\func v (n : Nat) : Nat | 0 => 0 | suc n => u n");
+    assertEquals(1, ((FunctionDefinition) getDefinition("f")).getHeight());
+    assertEquals(2, ((FunctionDefinition) getDefinition("g")).getHeight());
+    assertEquals(3, ((FunctionDefinition) getDefinition("h")).getHeight());
+    assertEquals(0, ((FunctionDefinition) getDefinition("s")).getHeight());
+    assertEquals(1, ((FunctionDefinition) getDefinition("t")).getHeight());
+    assertEquals(1, ((FunctionDefinition) getDefinition("r")).getHeight());
+    assertEquals(4, ((FunctionDefinition) getDefinition("u")).getHeight());
+  }
+
+  @Test
+  public void unfoldHigherFunction() {
+    typeCheckModule(
+      "\\func f (n : Nat) => suc n\n" +
+      "\\func g (n : Nat) => f n\n" +
+      "\\func h (n : Nat) => g n\n" +
+      "\\sfunc s (n : Nat) => n");
+    FunctionDefinition f = (FunctionDefinition) getDefinition("f");
+    FunctionDefinition h = (FunctionDefinition) getDefinition("h");
+    FunctionDefinition s = (FunctionDefinition) getDefinition("s");
+    Binding x = new TypedBinding("x", Nat());
+    assertTrue(compare(FunCall(h, LevelPair.STD, FunCall(s, LevelPair.STD, Ref(x))), FunCall(f, LevelPair.STD, FunCall(s, LevelPair.STD, Ref(x))), Nat(), CMP.EQ));
+    assertTrue(compare(FunCall(f, LevelPair.STD, Ref(x)), FunCall(h, LevelPair.STD, Ref(x)), Nat(), CMP.EQ));
+    assertTrue(compare(FunCall(h, LevelPair.STD, Ref(x)), Suc(Ref(x)), Nat(), CMP.EQ));
+    assertFalse(compare(FunCall(h, LevelPair.STD, Ref(x)), FunCall(f, LevelPair.STD, FunCall(s, LevelPair.STD, Ref(x))), Nat(), CMP.EQ));
+  }
+
+  @Test
+  public void unfoldHigherFunctionTypecheck() {
+    typeCheckModule(
+      "\\func f (n : Nat) => suc n\n" +
+      "\\func g (n : Nat) => f n\n" +
+      "\\func h (n : Nat) => g n\n" +
+      "\\func test (n : Nat) : h n = f n => idp");
+  }
 }
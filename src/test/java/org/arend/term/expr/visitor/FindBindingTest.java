@@ -0,0 +1,70 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.FreeVariablesMaskVisitor;
+import org.arend.core.subst.Levels;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class FindBindingTest extends TypeCheckingTestCase {
+  @Test
+  public void freeVariablesMask() {
+    Binding f = new TypedBinding("f", Pi(Nat(), Nat()));
+    SingleDependentLink x = singleParam("x", Nat());
+    Expression expr = Lam(x, Apps(Ref(f), Ref(x)));
+    assertNotEquals(0L, expr.getFreeVariablesMask() & FreeVariablesMaskVisitor.getMask(f));
+    assertNotEquals(0L, expr.getFreeVariablesMask() & FreeVariablesMaskVisitor.getMask(x));
+    assertEquals(0L, Suc(Zero()).getFreeVariablesMask() & FreeVariablesMaskVisitor.getMask(f));
+    assertTrue(expr.findBinding(f));
+    assertFalse(expr.findBinding(x));
+  }
+
+  @Test
+  public void manyBindings() {
+    List<Binding> bindings = new ArrayList<>();
+    Expression expr = Zero();
+    for (int i = 0; i < 200; i++) {
+      Binding binding = new TypedBinding("x" + i, Nat());
+      bindings.add(binding);
+      if (i % 3 == 0) {
+        expr = Suc(Apps(Ref(new TypedBinding("f", Pi(Nat(), Pi(Nat(), Nat())))), expr, Ref(binding)));
+      }
+    }
+
+    Set<Binding> others = new HashSet<>();
+    for (int i = 0; i < bindings.size(); i++) {
+      assertEquals(i % 3 == 0, expr.findBinding(bindings.get(i)));
+      if (i % 3 != 0) {
+        others.add(bindings.get(i));
+      }
+    }
+    assertNull(expr.findBinding(others));
+    others.add(bindings.get(99));
+    assertSame(bindings.get(99), expr.findBinding(others));
+  }
+
+  @Test
+  public void classCallImplementedLater() {
+    typeCheckModule("\\record R (x y : Nat)");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("R");
+    List<ClassField> fields = new ArrayList<>(classDef.getFields());
+    ClassCallExpression classCall = new ClassCallExpression(classDef, Levels.EMPTY, new LinkedHashMap<>(), classDef.getSort(), classDef.getUniverseKind());
+    classCall.getImplementedHere().put(fields.get(0), Zero());
+    Binding binding = new TypedBinding("b", Nat());
+    assertFalse(classCall.findBinding(binding));
+    classCall.getImplementedHere().put(fields.get(1), Ref(binding));
+    assertTrue(classCall.findBinding(binding));
+  }
+}
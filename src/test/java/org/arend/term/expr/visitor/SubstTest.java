@@ -5,12 +5,13 @@ import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.expr.Expression;
+import org.arend.core.subst.ExprSubstitution;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +119,41 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  @Test
+  public void substManyBindings() {
+    // f x0 ... x19 [x0 := zero, ..., x19 := suc^19 zero] = f zero ... (suc^19 zero)
+    Binding f = new TypedBinding("f", Nat());
+    Expression expr = Ref(f);
+    Expression expected = Ref(f);
+    ExprSubstitution substitution = new ExprSubstitution();
+    Expression number = Zero();
+    for (int i = 0; i < 20; i++) {
+      Binding x = new TypedBinding("x" + i, Nat());
+      expr = Apps(expr, Ref(x));
+      expected = Apps(expected, number);
+      substitution.add(x, number);
+      number = Suc(number);
+    }
+    assertEquals(20, substitution.size());
+    assertEquals(expected, expr.subst(substitution));
+  }
+
+  @Test
+  public void substitutionCopy() {
+    Binding x = new TypedBinding("x", Nat());
+    Binding y = new TypedBinding("y", Nat());
+    ExprSubstitution substitution = new ExprSubstitution(x, Zero());
+    ExprSubstitution copy = new ExprSubstitution(substitution);
+    copy.add(y, Zero());
+    copy.add(x, Suc(Zero()));
+    assertEquals(1, substitution.size());
+    assertEquals(Zero(), substitution.get(x));
+    assertNull(substitution.get(y));
+    assertEquals(Suc(Zero()), copy.get(x));
+
+    substitution.remove(x);
+    assertTrue(substitution.isEmpty());
+    assertEquals(2, copy.size());
+  }
 }
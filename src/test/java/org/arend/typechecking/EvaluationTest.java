@@ -1,17 +1,19 @@
 package org.arend.typechecking;
 
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.definition.FunctionDefinition;
-import org.arend.core.expr.BigIntegerExpression;
-import org.arend.core.expr.Expression;
-import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.*;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.ext.core.level.LevelSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.prelude.Prelude;
 import org.junit.Test;
 
 import java.math.BigInteger;
 
-import static org.arend.core.expr.ExpressionFactory.Neg;
-import static org.arend.core.expr.ExpressionFactory.Pos;
-import static org.junit.Assert.assertEquals;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
 
 public class EvaluationTest extends TypeCheckingTestCase {
   @Test
@@ -63,4 +65,50 @@ public class EvaluationTest extends TypeCheckingTestCase {
     assertEquals(Neg(new SmallIntegerExpression(22)), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).normalize(NormalizationMode.WHNF));
     assertEquals(Pos(new SmallIntegerExpression(0)),  ((Expression) ((FunctionDefinition) getDefinition("f7")).getBody()).normalize(NormalizationMode.WHNF));
   }
+
+  @Test
+  public void evalManyConstructors() {
+    typeCheckModule(
+      "\\data D | d0 | d1 | d2 | d3 | d4 | d5 (n : Nat) | d6 D | d7\n" +
+      "\\func next (d : D) : D\n" +
+      "  | d0 => d1 | d1 => d2 | d2 => d3 | d3 => d4 | d4 => d5 0\n" +
+      "  | d5 n => d6 (d5 (suc n)) | d6 d => d | d7 => d0\n" +
+      "\\func isD4 (d : D) : Nat | d4 => 1 | _ => 0\n" +
+      "\\func iter (n : Nat) (d : D) : D \\elim n | 0 => d | suc n => iter n (next d)\n" +
+      "\\func test1 : iter 7 d7 = d6 (d5 1) => idp\n" +
+      "\\func test2 : isD4 (iter 5 d0) Nat.+ isD4 (iter 4 d0) = 1 => idp");
+  }
+
+  @Test
+  public void evalPlusLargeNumber() {
+    typeCheckModule(
+      "\\func f (x : Nat) => x Nat.+ 1000000\n" +
+      "\\func pred2 (x : Nat) : Nat | suc (suc n) => n | _ => 0\n" +
+      "\\func test1 (x : Nat) : f x = suc (x Nat.+ 999999) => idp\n" +
+      "\\func test2 (x : Nat) : pred2 (1000000 Nat.+ x) = x Nat.+ 999998 => idp\n" +
+      "\\func test3 (x : Nat) : pred2 (f x) = suc (suc (x Nat.+ 999996)) => idp");
+    Expression whnf = ((Expression) ((FunctionDefinition) getDefinition("f")).getBody()).normalize(NormalizationMode.WHNF);
+    ConCallExpression conCall = whnf.cast(ConCallExpression.class);
+    assertNotNull(conCall);
+    assertEquals(Prelude.SUC, conCall.getDefinition());
+    assertTrue(conCall.getDefCallArguments().get(0) instanceof FunCallExpression);
+  }
+
+  private static void assertSucs(int n, Binding binding, Expression expr) {
+    for (int i = 0; i < n; i++) {
+      assertTrue(expr instanceof ConCallExpression && ((ConCallExpression) expr).getDefinition() == Prelude.SUC);
+      expr = ((ConCallExpression) expr).getDefCallArguments().get(0);
+    }
+    assertTrue(expr instanceof ReferenceExpression && ((ReferenceExpression) expr).getBinding() == binding);
+  }
+
+  @Test
+  public void sucChainsStayCanonical() {
+    Binding x = new TypedBinding("x", Nat());
+    Binding y = new TypedBinding("y", Nat());
+    Expression expr = Suc(Suc(new ReferenceExpression(x)));
+    assertSucs(2, x, expr.normalize(NormalizationMode.NF));
+    assertSucs(2, y, expr.subst(new ExprSubstitution(x, new ReferenceExpression(y)), LevelSubstitution.EMPTY));
+    assertSucs(3, y, expr.subst(new ExprSubstitution(x, Suc(new ReferenceExpression(y))), LevelSubstitution.EMPTY));
+  }
 }
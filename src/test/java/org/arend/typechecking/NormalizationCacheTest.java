@@ -0,0 +1,71 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.FunCallExpression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.visitor.NormalizationCache;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class NormalizationCacheTest extends TypeCheckingTestCase {
+  private static final String FUNCTION = "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))";
+
+  private Expression makeCall(int n) {
+    FunctionDefinition function = (FunctionDefinition) getDefinition("f");
+    return FunCallExpression.make(function, function.makeIdLevels(), Collections.singletonList(new SmallIntegerExpression(n)));
+  }
+
+  @Test
+  public void cachedNormalForm() {
+    typeCheckModule(FUNCTION);
+    Expression expr = makeCall(3);
+    NormalizationCache cache = new NormalizationCache(10);
+    Expression result1 = NormalizationCache.run(cache, () -> expr.normalize(NormalizationMode.WHNF));
+    Expression result2 = NormalizationCache.run(cache, () -> expr.normalize(NormalizationMode.WHNF));
+    assertSame(result1, result2);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void evictedNormalForm() {
+    typeCheckModule(FUNCTION);
+    Expression expr1 = makeCall(3);
+    Expression expr2 = makeCall(4);
+    NormalizationCache cache = new NormalizationCache(1);
+    NormalizationCache.run(cache, () -> {
+      expr1.normalize(NormalizationMode.WHNF);
+      expr2.normalize(NormalizationMode.WHNF);
+      return expr1.normalize(NormalizationMode.WHNF);
+    });
+    assertEquals(0, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void typecheckWithCache() {
+    resolveNamesModule(
+      FUNCTION + "\n" +
+      "\\func g : f 10 = 20 => idp\n" +
+      "\\func h (p : f 10 = 20) : \\Sigma (f 10 = 20) (f 10 = 20) => (p, idp)");
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null);
+    listener.setNormalizationCacheSize(100);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup), null));
+    assertThat(errorList, is(empty()));
+    assertTrue(new CoreModuleChecker(errorReporter).checkGroup(lastGroup));
+    assertTrue(listener.getNormalizationCacheMisses() > 0);
+  }
+}
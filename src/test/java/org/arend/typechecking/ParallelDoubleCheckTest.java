@@ -0,0 +1,62 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.LocalError;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.arend.core.expr.ExpressionFactory.Interval;
+import static org.junit.Assert.*;
+
+public class ParallelDoubleCheckTest extends TypeCheckingTestCase {
+  private static final int NUMBER_OF_FUNCTIONS = 20;
+
+  private String makeModule() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\data D (n : Nat) | con1 | con2 (D n)\n");
+    builder.append("\\record R (x : Nat) (p : x = x)\n");
+    for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++) {
+      builder.append("\\func f").append(i).append(" (n : Nat) : Nat | 0 => ").append(i).append(" | suc n => suc (f").append(i).append(" n)\n");
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void parallelCheck() {
+    typeCheckModule(makeModule());
+    assertTrue(new CoreModuleChecker(errorReporter).checkGroups(Collections.singletonList(lastGroup), 4));
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void errorsOrder() {
+    typeCheckModule(makeModule());
+    for (int i = 0; i < NUMBER_OF_FUNCTIONS; i += 2) {
+      ((FunctionDefinition) getDefinition("f" + i)).setResultType(Interval());
+    }
+
+    assertFalse(new CoreModuleChecker(errorReporter).checkGroups(Collections.singletonList(lastGroup), 4));
+    assertFalse(errorList.isEmpty());
+    int index = -1;
+    int numberOfDefinitions = 0;
+    for (GeneralError error : errorList) {
+      assertTrue(error instanceof LocalError);
+      int newIndex = -1;
+      for (int i = 0; i < NUMBER_OF_FUNCTIONS; i += 2) {
+        if (((LocalError) error).definition == get("f" + i)) {
+          newIndex = i;
+          break;
+        }
+      }
+      assertTrue(newIndex >= 0 && newIndex >= index);
+      if (newIndex != index) {
+        numberOfDefinitions++;
+      }
+      index = newIndex;
+    }
+    assertEquals(NUMBER_OF_FUNCTIONS / 2, numberOfDefinitions);
+  }
+}
@@ -0,0 +1,49 @@
+package org.arend.typechecking;
+
+import org.arend.util.Profiler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ProfilerTest extends TypeCheckingTestCase {
+  @After
+  public void disableProfiler() {
+    Profiler.disable();
+  }
+
+  @Test
+  public void disabledProfiler() {
+    assertNull(Profiler.start(Profiler.Phase.HEADER, "test"));
+    Profiler.count(Profiler.Counter.NORMALIZATIONS);
+    assertNull(Profiler.getInstance());
+  }
+
+  @Test
+  public void typecheckingProfile() throws IOException {
+    Profiler.enable();
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))\n" +
+      "\\func g : f 3 = 6 => idp");
+    Profiler profiler = Profiler.getInstance();
+    assertNotNull(profiler);
+    assertTrue(profiler.getCount(Profiler.Counter.NORMALIZATIONS) > 0);
+    assertTrue(profiler.getCount(Profiler.Counter.COMPARISONS) > 0);
+
+    Path file = Files.createTempFile("arend-profile", ".json");
+    try {
+      profiler.write(file);
+      String text = Files.readString(file);
+      assertTrue(text.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+      assertTrue(text.contains("\"cat\":\"BODY\""));
+      assertTrue(text.contains("\"cat\":\"TERMINATION\""));
+      assertTrue(text.contains(":g\""));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.arend.typechecking.implicitargs;
+
+import org.arend.core.context.binding.inference.ExpressionInferenceVariable;
+import org.arend.core.context.binding.inference.InferenceVariable;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.implicitargs.equations.Equation;
+import org.arend.typechecking.implicitargs.equations.TwoStageEquations;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.arend.core.expr.ExpressionFactory.Zero;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EquationsTest extends TypeCheckingTestCase {
+  private CheckTypeVisitor myVisitor;
+  private TwoStageEquations myEquations;
+  private final Map<InferenceVariable, InferenceReferenceExpression> myReferences = new HashMap<>();
+
+  @Before
+  public void initializeEquations() {
+    myVisitor = new CheckTypeVisitor(localErrorReporter, null, null);
+    myEquations = (TwoStageEquations) myVisitor.getEquations();
+  }
+
+  private InferenceVariable newVariable(boolean solvableFromEquations) {
+    InferenceVariable variable = new ExpressionInferenceVariable(Nat(), null, Collections.emptySet(), solvableFromEquations);
+    myReferences.put(variable, new InferenceReferenceExpression(variable));
+    return variable;
+  }
+
+  private Expression ref(InferenceVariable variable) {
+    return myReferences.get(variable);
+  }
+
+  private void addEquation(InferenceVariable var1, Expression expr2, InferenceVariable stuckVar2) {
+    assertTrue(myEquations.addEquation(ref(var1), expr2, Nat(), CMP.EQ, null, var1, stuckVar2));
+  }
+
+  @Test
+  public void failingBranchWithPendingEquation() {
+    InferenceVariable x = newVariable(true);
+    InferenceVariable y = newVariable(true);
+    InferenceVariable z = newVariable(false);
+    addEquation(x, ref(y), y);
+    SortedMap<Long, Equation> equations = new TreeMap<>(myEquations.getEquationMap());
+    assertThat(equations.size(), is(1));
+
+    myVisitor.withCurrentState(tc -> {
+      addEquation(z, Zero(), null);
+      assertThat(myEquations.getNotSolvableFromEquationsVars().keySet(), contains(z));
+      SortedMap<Long, Equation> outerEquations = new TreeMap<>(myEquations.getEquationMap());
+      assertThat(outerEquations.size(), is(2));
+
+      myVisitor.withCurrentState(tc2 -> {
+        // Solves y through the pending equation
+        assertTrue(myEquations.solve(x, Zero()));
+        assertTrue(x.isSolved());
+        assertTrue(y.isSolved());
+        assertThat(myEquations.getEquationMap().keySet(), not(hasItem(equations.firstKey())));
+        tc2.loadSavedState();
+        assertFalse(x.isSolved());
+        assertFalse(y.isSolved());
+        assertThat(myEquations.getEquationMap(), is(outerEquations));
+        return null;
+      });
+
+      assertThat(myEquations.getEquationMap(), is(outerEquations));
+      tc.loadSavedState();
+      assertThat(myEquations.getEquationMap(), is(equations));
+      assertThat(myEquations.getNotSolvableFromEquationsVars().entrySet(), is(empty()));
+      return null;
+    });
+
+    assertThat(myEquations.getEquationMap(), is(equations));
+    assertThat(myEquations.getTrailSize(), is(0));
+  }
+
+  @Test
+  public void updateSavedState() {
+    InferenceVariable x = newVariable(true);
+    InferenceVariable y = newVariable(true);
+    InferenceVariable z = newVariable(false);
+    addEquation(x, ref(y), y);
+
+    myVisitor.withCurrentState(tc -> {
+      addEquation(z, Zero(), null);
+      SortedMap<Long, Equation> equations = new TreeMap<>(myEquations.getEquationMap());
+      Map<InferenceVariable, Expression> notSolvableVars = new HashMap<>(myEquations.getNotSolvableFromEquationsVars());
+      tc.updateSavedState();
+
+      assertTrue(myEquations.solve(x, Zero()));
+      tc.loadSavedState();
+      assertFalse(x.isSolved());
+      assertThat(myEquations.getEquationMap(), is(equations));
+      assertThat(myEquations.getNotSolvableFromEquationsVars(), is(notSolvableVars));
+      return null;
+    });
+
+    assertThat(myEquations.getEquationMap().size(), is(2));
+    assertThat(myEquations.getNotSolvableFromEquationsVars().keySet(), contains(z));
+    assertThat(myEquations.getTrailSize(), is(0));
+  }
+
+  @Test
+  public void loadStateRestoresIndex() {
+    InferenceVariable x = newVariable(true);
+    InferenceVariable y = newVariable(true);
+    InferenceVariable z = newVariable(false);
+    addEquation(x, ref(y), y);
+    addEquation(z, ref(x), x);
+    List<Long> keys = new ArrayList<>(myEquations.getEquationMap().keySet());
+    List<Equation> equations = new ArrayList<>(myEquations.getEquationMap().values());
+    assertThat(keys.size(), is(2));
+    assertThat(myEquations.getEquationKeys(x), contains(keys.get(0), keys.get(1)));
+    assertThat(myEquations.getEquationKeys(y), contains(keys.get(0)));
+    assertThat(myEquations.getEquationKeys(z), contains(keys.get(1)));
+
+    myVisitor.withCurrentState(tc -> {
+      // Removes both equations and adds a new one for z
+      assertTrue(myEquations.solve(x, Zero()));
+      assertThat(myEquations.getEquationKeys(x), is(empty()));
+      assertThat(myEquations.getEquationKeys(z), not(hasItem(keys.get(1))));
+      tc.loadSavedState();
+      return null;
+    });
+
+    assertThat(new ArrayList<>(myEquations.getEquationMap().keySet()), is(keys));
+    assertThat(new ArrayList<>(myEquations.getEquationMap().values()), is(equations));
+    assertThat(myEquations.getEquationKeys(x), contains(keys.get(0), keys.get(1)));
+    assertThat(myEquations.getEquationKeys(y), contains(keys.get(0)));
+    assertThat(myEquations.getEquationKeys(z), contains(keys.get(1)));
+    assertThat(myEquations.getTrailSize(), is(0));
+  }
+
+  @Test
+  public void solveWokenEquation() {
+    InferenceVariable x = newVariable(true);
+    InferenceVariable u = newVariable(true);
+    InferenceVariable w = newVariable(false);
+    InferenceVariable a = newVariable(false);
+    // This equation is checked before u is solved and becomes solvable only after w is solved
+    addEquation(w, Zero(), null);
+    long key = myEquations.getEquationMap().firstKey();
+    addEquation(a, Zero(), null);
+    assertTrue(myEquations.solve(a, ref(u)));
+    u.addListener((equations, referenceExpression) -> assertTrue(equations.solve(w, ref(x))));
+
+    myEquations.solveEquations();
+    assertTrue(u.isSolved());
+    assertTrue(w.isSolved());
+    assertTrue(x.isSolved());
+    assertThat(myEquations.getEquationMap().keySet(), not(hasItem(key)));
+    assertThat(errorList, is(empty()));
+  }
+}
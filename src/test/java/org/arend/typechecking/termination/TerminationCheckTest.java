@@ -335,6 +335,41 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert TestCallGraph.testTermination(cms);
   }
 
+  private static TestVertex wideVertex(String name, int arguments) {
+    String[] labels = new String[arguments];
+    for (int i = 0; i < arguments; i++) {
+      labels[i] = "x" + i;
+    }
+    return new TestVertex(name, labels);
+  }
+
+  private static Object[] shiftData(int arguments, int shift, int lessRow) {
+    Object[] data = new Object[arguments * 2];
+    for (int i = 0; i < arguments; i++) {
+      data[2 * i] = i == lessRow ? '<' : '=';
+      data[2 * i + 1] = (i + shift) % arguments;
+    }
+    return data;
+  }
+
+  @Test
+  public void wideMatricesTest() {
+    TestVertex f = wideVertex("f", 70);
+    TestVertex g = wideVertex("g", 70);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("1", f, g, shiftData(70, 0, 66)));
+    cms.add(new TestCallMatrix("2", g, f, shiftData(70, 0, -1)));
+    assert TestCallGraph.testTermination(cms);
+  }
+
+  @Test
+  public void wideMatricesRotationTest() {
+    TestVertex f = wideVertex("f", 70);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("1", f, f, shiftData(70, 1, -1)));
+    assert !TestCallGraph.testTermination(cms);
+  }
+
   @Test
   public void factorialTest() {
     typeCheckModule(
@@ -34,6 +34,32 @@ public class TypeClassesGlobal extends TypeCheckingTestCase {
       "\\func f => B 0");
   }
 
+  @Test
+  public void instancesWithDifferentHeads() {
+    typeCheckModule(
+      "\\class X (A : \\Type0) {\n" +
+      "  | B : A -> \\Type0\n" +
+      "}\n" +
+      "\\instance Nat-X : X Nat | B => \\lam _ => Nat\n" +
+      "\\instance Pi-X : X (Nat -> Nat) | B => \\lam _ => \\Sigma Nat Nat\n" +
+      "\\instance Int-X : X Int | B => \\lam _ => Int\n" +
+      "\\func f : B 0 = Nat => idp\n" +
+      "\\func g : B (\\lam (n : Nat) => n) = (\\Sigma Nat Nat) => idp\n" +
+      "\\func h : B (pos 0) = Int => idp");
+  }
+
+  @Test
+  public void missingInstanceSearchedTwice() {
+    typeCheckModule(
+      "\\class A (C : \\Set) { | c : C }\n" +
+      "\\data D\n" +
+      "\\instance Nat-A : A Nat | c => 0\n" +
+      "\\func f : D => c\n" +
+      "\\func g : D => c\n" +
+      "\\func h : Nat => c", 2);
+    assertThatErrorsAre(instanceInference(get("A"), DataCall((DataDefinition) getDefinition("D"), Levels.EMPTY)), instanceInference(get("A"), DataCall((DataDefinition) getDefinition("D"), Levels.EMPTY)));
+  }
+
   @Test
   public void incorrectInstance() {
     typeCheckModule(